@@ -26,9 +26,10 @@
 
 package keyterms.analyzer;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -57,8 +58,10 @@ public class Analysis
 
     /**
      * The feature values.
+     *
+     * <p> The values are held in a compact store indexed by feature ordinal, which is serialized as a plain map. </p>
      */
-    private final Map<AnalysisFeature<?>, Object> features = new HashMap<>();
+    private Map<AnalysisFeature<?>, Object> features = new FeatureStore();
 
     /**
      * The score associated with the collection of feature values.
@@ -80,11 +83,22 @@ public class Analysis
     public Analysis(Analysis toCopy) {
         super();
         if (toCopy != null) {
-            features.putAll(toCopy.features);
+            features = new FeatureStore(toCopy.features);
             score = toCopy.score;
         }
     }
 
+    /**
+     * Create an independent copy of the analysis.
+     *
+     * <p> Subclasses override this method so that copies retain the subclass. </p>
+     *
+     * @return A copy of the analysis.
+     */
+    public Analysis copy() {
+        return new Analysis(this);
+    }
+
     /**
      * Determine if the specified feature value has been set.
      *
@@ -132,6 +146,28 @@ public class Analysis
         }
     }
 
+    /**
+     * Get the primitive value associated with the specified integer feature.
+     *
+     * @param feature The analysis feature of interest.
+     * @param missing The value returned if the feature has not been set.
+     *
+     * @return The value associated with the specified feature.
+     */
+    public int getInt(AnalysisFeature<Integer> feature, int missing) {
+        return ((FeatureStore)features).getInt(feature, missing);
+    }
+
+    /**
+     * Set the specified integer feature value without boxing.
+     *
+     * @param feature The analysis feature of interest.
+     * @param value The feature value.
+     */
+    public void setInt(AnalysisFeature<Integer> feature, int value) {
+        ((FeatureStore)features).putInt(feature, value);
+    }
+
     /**
      * Remove the specified analysis feature.
      *
@@ -158,4 +194,18 @@ public class Analysis
     public void setScore(Number score) {
         this.score = score;
     }
-}
\ No newline at end of file
+
+    /**
+     * Restore the compact feature store after deserialization.
+     *
+     * @param in The object input stream.
+     *
+     * @throws IOException for input errors.
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found.
+     */
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        features = new FeatureStore(features);
+    }
+}
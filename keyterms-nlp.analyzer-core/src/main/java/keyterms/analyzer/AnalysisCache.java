@@ -0,0 +1,486 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size bounded, least recently used cache of analysis results keyed by analyzer and input content.
+ *
+ * <p> Inputs are identified by a SHA-256 digest of their content along with their type and length, so that repeated
+ * inputs are recognized without retaining copies of the inputs themselves. Only {@code byte[]} and
+ * {@code CharSequence} inputs are cached. </p>
+ * <p> The cache keeps its own copies of the cached analyses and every lookup returns new copies, so callers may
+ * modify the analyses they receive. </p>
+ * <p> Entries are spread over independently locked segments, each of which evicts its own least recently used
+ * entries, so a single cache may be shared by any number of analyzer pools without serializing them. </p>
+ */
+public class AnalysisCache {
+    /**
+     * The maximum number of independently locked segments.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * The number of characters digested at a time.
+     */
+    private static final int DIGEST_CHUNK = 4096;
+
+    /**
+     * Get the content identity of the specified input.
+     *
+     * <p> The identity is independent of any particular cache, so that it can be computed once and used to look up
+     * the results of several analyzers. </p>
+     *
+     * @param input The input data.
+     *
+     * @return The content identity of the input, or {@code null} if the input cannot be cached.
+     */
+    static Content contentOf(Object input) {
+        Content content = null;
+        if (input instanceof byte[]) {
+            byte[] data = (byte[])input;
+            MessageDigest digest = newDigest();
+            digest.update(data);
+            content = new Content(false, data.length, digest.digest());
+        } else if (input instanceof CharSequence) {
+            CharSequence text = (CharSequence)input;
+            MessageDigest digest = newDigest();
+            ByteBuffer buffer = ByteBuffer.allocate(DIGEST_CHUNK * Character.BYTES);
+            for (int c = 0; c < text.length(); c++) {
+                if (!buffer.hasRemaining()) {
+                    digest.update(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                buffer.putChar(text.charAt(c));
+            }
+            digest.update(buffer.array(), 0, buffer.position());
+            content = new Content(true, text.length(), digest.digest());
+        }
+        return content;
+    }
+
+    /**
+     * Create a new content digest.
+     *
+     * @return A new content digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException error) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 is not supported.", error);
+        }
+    }
+
+    /**
+     * Create independent copies of the specified analyses.
+     *
+     * @param analyses The analyses.
+     *
+     * @return Copies of the analyses.
+     */
+    private static List<Analysis> copyOf(List<Analysis> analyses) {
+        List<Analysis> copies = new ArrayList<>(analyses.size());
+        for (Analysis analysis : analyses) {
+            copies.add((analysis != null) ? analysis.copy() : null);
+        }
+        return copies;
+    }
+
+    /**
+     * The maximum number of entries in the cache.
+     */
+    private final int maximumSize;
+
+    /**
+     * The independently locked segments of the cache.
+     */
+    private final Segment[] segments;
+
+    /**
+     * The number of cache lookups which found a cached result.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * The number of cache lookups which did not find a cached result.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The number of cached results evicted to respect the maximum cache size.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param maximumSize The maximum number of entries in the cache.
+     */
+    public AnalysisCache(int maximumSize) {
+        super();
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid cache size: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        segments = new Segment[Math.min(MAX_SEGMENTS, maximumSize)];
+        for (int s = 0; s < segments.length; s++) {
+            // Share the entries out so that the segment sizes add up to the maximum size.
+            segments[s] = new Segment(maximumSize / segments.length + ((s < maximumSize % segments.length) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Get the maximum number of entries in the cache.
+     *
+     * @return The maximum number of entries in the cache.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Get the number of entries in the cache.
+     *
+     * @return The number of entries in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of cache lookups which found a cached result.
+     *
+     * @return The number of cache lookups which found a cached result.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of cache lookups which did not find a cached result.
+     *
+     * @return The number of cache lookups which did not find a cached result.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of cached results evicted to respect the maximum cache size.
+     *
+     * @return The number of cached results evicted to respect the maximum cache size.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Get the cache key for the specified analyzer and input.
+     *
+     * @param id The analyzer identifier.
+     * @param input The input data.
+     *
+     * @return The cache key for the specified analyzer and input, or {@code null} if the input cannot be cached.
+     */
+    Key keyOf(AnalyzerId id, Object input) {
+        return keyOf(id, contentOf(input));
+    }
+
+    /**
+     * Get the cache key for the specified analyzer and input content.
+     *
+     * @param id The analyzer identifier.
+     * @param content The content identity of the input ({@code null} if the input cannot be cached).
+     *
+     * @return The cache key for the specified analyzer and input, or {@code null} if the input cannot be cached.
+     */
+    Key keyOf(AnalyzerId id, Content content) {
+        return (content != null) ? new Key(id, content) : null;
+    }
+
+    /**
+     * Get the segment which holds the specified key.
+     *
+     * @param key The cache key.
+     *
+     * @return The segment which holds the specified key.
+     */
+    private Segment segmentOf(Key key) {
+        return segments[Math.floorMod(key.hashCode(), segments.length)];
+    }
+
+    /**
+     * Get the cached results for the specified analyzer and input.
+     *
+     * @param id The analyzer identifier.
+     * @param input The input data.
+     *
+     * @return Copies of the cached results, or {@code null} if no results have been cached.
+     */
+    public List<Analysis> get(AnalyzerId id, Object input) {
+        Key key = keyOf(id, input);
+        return (key != null) ? get(key) : null;
+    }
+
+    /**
+     * Get the cached results for the specified key.
+     *
+     * @param key The cache key.
+     *
+     * @return Copies of the cached results, or {@code null} if no results have been cached.
+     */
+    List<Analysis> get(Key key) {
+        Segment segment = segmentOf(key);
+        List<Analysis> cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copyOf(cached);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache the results for the specified analyzer and input.
+     *
+     * @param id The analyzer identifier.
+     * @param input The input data.
+     * @param analyses The analysis results.
+     */
+    public void put(AnalyzerId id, Object input, List<Analysis> analyses) {
+        Key key = keyOf(id, input);
+        if (key != null) {
+            put(key, analyses);
+        }
+    }
+
+    /**
+     * Cache copies of the results for the specified key.
+     *
+     * @param key The cache key.
+     * @param analyses The analysis results.
+     */
+    void put(Key key, List<Analysis> analyses) {
+        if (analyses != null) {
+            List<Analysis> cached = Collections.unmodifiableList(copyOf(analyses));
+            Segment segment = segmentOf(key);
+            synchronized (segment) {
+                segment.put(key, cached);
+            }
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "AnalysisCache[size=" + size() + ", hits=" + hits + ", misses=" + misses +
+                ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * An independently locked, least recently used portion of the cache.
+     */
+    private final class Segment
+            extends LinkedHashMap<Key, List<Analysis>> {
+        /**
+         * The class serial version identifier.
+         */
+        private static final long serialVersionUID = -3806473307916428416L;
+
+        /**
+         * The maximum number of entries in the segment.
+         */
+        private final int capacity;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The maximum number of entries in the segment.
+         */
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<Analysis>> eldest) {
+            boolean evict = (size() > capacity);
+            if (evict) {
+                evictions.incrementAndGet();
+            }
+            return evict;
+        }
+    }
+
+    /**
+     * The content identity of an input.
+     */
+    static final class Content {
+        /**
+         * A flag indicating whether the input was text (as opposed to binary data).
+         */
+        private final boolean text;
+
+        /**
+         * The length of the input.
+         */
+        private final int length;
+
+        /**
+         * The SHA-256 digest of the input.
+         */
+        private final byte[] digest;
+
+        /**
+         * The hash code derived from the digest.
+         */
+        private final int hash;
+
+        /**
+         * Constructor.
+         *
+         * @param text A flag indicating whether the input was text (as opposed to binary data).
+         * @param length The length of the input.
+         * @param digest The SHA-256 digest of the input.
+         */
+        private Content(boolean text, int length, byte[] digest) {
+            super();
+            this.text = text;
+            this.length = length;
+            this.digest = digest;
+            hash = ByteBuffer.wrap(digest).getInt();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            boolean equals = (obj == this);
+            if ((!equals) && (obj instanceof Content)) {
+                Content content = (Content)obj;
+                equals = ((length == content.length) && (text == content.text) &&
+                        (Arrays.equals(digest, content.digest)));
+            }
+            return equals;
+        }
+    }
+
+    /**
+     * The identity of a cached analysis.
+     */
+    static final class Key {
+        /**
+         * The analyzer identifier.
+         */
+        private final AnalyzerId id;
+
+        /**
+         * The content identity of the input.
+         */
+        private final Content content;
+
+        /**
+         * Constructor.
+         *
+         * @param id The analyzer identifier.
+         * @param content The content identity of the input.
+         */
+        private Key(AnalyzerId id, Content content) {
+            super();
+            this.id = id;
+            this.content = content;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(id) + content.hashCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            boolean equals = (obj == this);
+            if ((!equals) && (obj instanceof Key)) {
+                Key key = (Key)obj;
+                equals = ((content.equals(key.content)) && (Objects.equals(id, key.id)));
+            }
+            return equals;
+        }
+    }
+}
@@ -27,10 +27,15 @@
 package keyterms.analyzer;
 
 import java.io.Serializable;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A generic marker object for a single output feature of an analysis.
+ *
+ * <p> Each distinct feature name is assigned a small, dense ordinal which analyses use to index their feature
+ * values. </p>
  */
 public class AnalysisFeature<V>
         implements Serializable {
@@ -39,6 +44,28 @@ public class AnalysisFeature<V>
      */
     private static final long serialVersionUID = 8664818036383583665L;
 
+    /**
+     * The ordinals assigned to each feature name.
+     */
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+
+    /**
+     * Get the ordinal assigned to the specified feature name, assigning the next available ordinal if necessary.
+     *
+     * @param name The feature name.
+     *
+     * @return The ordinal assigned to the specified feature name.
+     */
+    private static int ordinalOf(String name) {
+        Integer ordinal = ORDINALS.get(name);
+        if (ordinal == null) {
+            synchronized (ORDINALS) {
+                ordinal = ORDINALS.computeIfAbsent(name, (n) -> ORDINALS.size());
+            }
+        }
+        return ordinal;
+    }
+
     /**
      * The feature name.
      */
@@ -49,6 +76,11 @@ public class AnalysisFeature<V>
      */
     private final Class<V> valueClass;
 
+    /**
+     * The feature ordinal plus one ({@code 0} until resolved, as after deserialization).
+     */
+    private transient int index;
+
     /**
      * Constructor.
      *
@@ -65,6 +97,7 @@ public class AnalysisFeature<V>
         }
         this.name = name;
         this.valueClass = valueClass;
+        index = ordinalOf(name) + 1;
     }
 
     /**
@@ -76,6 +109,20 @@ public class AnalysisFeature<V>
         return name;
     }
 
+    /**
+     * Get the dense ordinal assigned to the feature name.
+     *
+     * <p> Features with equal names share the same ordinal. </p>
+     *
+     * @return The dense ordinal assigned to the feature name.
+     */
+    public int getOrdinal() {
+        if (index == 0) {
+            index = ordinalOf(name) + 1;
+        }
+        return index - 1;
+    }
+
     /**
      * Get the value type associated with the feature.
      *
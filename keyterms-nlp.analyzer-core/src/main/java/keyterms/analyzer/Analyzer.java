@@ -26,12 +26,20 @@
 
 package keyterms.analyzer;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -39,6 +47,8 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import keyterms.util.io.Encoding;
+
 /**
  * A generic function which produces an analysis of input data.
  */
@@ -220,8 +230,27 @@ public abstract class Analyzer
      * @param input The input data.
      *
      * @return The results of the analysis.
+     *
+     * @throws RejectedAnalysisException if the analyzer does not have the capacity to accept the input.
      */
     public final List<Analysis> analyze(Object input) {
+        return analyze(input, null);
+    }
+
+    /**
+     * Analyze the specified input within the specified time budget.
+     *
+     * <p> Analyses which cannot be completed within the budget are cancelled where possible; the results contain
+     * whatever analysis was completed in time. </p>
+     *
+     * @param input The input data.
+     * @param budget The time allowed for the analysis ({@code null} for no limit).
+     *
+     * @return The results of the analysis.
+     *
+     * @throws RejectedAnalysisException if the analyzer does not have the capacity to accept the input.
+     */
+    public final List<Analysis> analyze(Object input, Duration budget) {
         lock.readLock().lock();
         try {
             if (!available) {
@@ -231,7 +260,7 @@ public abstract class Analyzer
             if (input != null) {
                 if (accepts(input.getClass())) {
                     try {
-                        _analyze(input, (analysis) -> {
+                        _analyze(input, budget, (analysis) -> {
                             if ((analysis != null) && (analysis.getFeatures().size() > 0)) {
                                 results.add(analysis);
                             }
@@ -240,6 +269,10 @@ public abstract class Analyzer
                             results.sort(Analysis.SCORE_ORDER);
                         }
                     } catch (Exception error) {
+                        RejectedAnalysisException rejected = RejectedAnalysisException.causeOf(error);
+                        if (rejected != null) {
+                            throw rejected;
+                        }
                         getLogger().error("Error analyzing input: {}", input, error);
                     }
                 }
@@ -250,6 +283,87 @@ public abstract class Analyzer
         }
     }
 
+    /**
+     * Analyze a sample of the specified input stream.
+     *
+     * <p> File input streams are sampled through their channels, so that windows can be taken from the whole file.
+     * The stream is not closed. </p>
+     *
+     * @param input The input stream.
+     * @param policy The sampling policy ({@code null} for the default policy).
+     *
+     * @return The results of the analysis.
+     *
+     * @throws IOException for input errors.
+     * @throws RejectedAnalysisException if the analyzer does not have the capacity to accept the input.
+     */
+    public final List<Analysis> analyze(InputStream input, SamplingPolicy policy)
+            throws IOException {
+        ReadableByteChannel channel = (input instanceof FileInputStream)
+                ? ((FileInputStream)input).getChannel()
+                : Channels.newChannel(input);
+        return analyze(channel, policy);
+    }
+
+    /**
+     * Analyze a sample of the remaining content of the specified channel.
+     *
+     * <p> Memory use and analysis time are bounded by the sampling policy regardless of the size of the input.
+     * Analyzers which do not accept binary input are given the sample decoded as UTF-8 unless a byte order mark
+     * indicates otherwise. The channel is not closed. </p>
+     *
+     * @param channel The channel.
+     * @param policy The sampling policy ({@code null} for the default policy).
+     *
+     * @return The results of the analysis.
+     *
+     * @throws IOException for input errors.
+     * @throws RejectedAnalysisException if the analyzer does not have the capacity to accept the input.
+     */
+    public final List<Analysis> analyze(ReadableByteChannel channel, SamplingPolicy policy)
+            throws IOException {
+        SamplingPolicy.Sample sample = ((policy != null) ? policy : SamplingPolicy.DEFAULT).sample(channel);
+        Object input = sample.getData();
+        if (!accepts(byte[].class)) {
+            Charset charset = Encoding.detectBom(sample.getData());
+            input = Encoding.decode(sample.getData(), (charset != null) ? charset : Encoding.UTF8);
+        }
+        List<Analysis> results = analyze(input);
+        _sampled(sample, results);
+        return results;
+    }
+
+    /**
+     * Adjust the results of analyzing a sample so that they describe the whole input.
+     *
+     * <p> The default implementation leaves the results unchanged. </p>
+     *
+     * @param sample The sample which was analyzed.
+     * @param results The results of the analysis.
+     */
+    protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        // Intentional NoOp
+    }
+
+    /**
+     * Analyze the specified input without requiring the caller to wait for the results.
+     *
+     * <p> The default implementation performs the analysis on the calling thread and returns a completed future, or
+     * performs it on a virtual thread if the {@code analyzer.virtual.threads} system property is set (so that the
+     * waits of analyzers which depend on analyzer pools, such as ensembles, do not tie up platform threads).
+     * Analyzers which perform their work on other threads complete the future when the analysis finishes. </p>
+     *
+     * @param input The input data.
+     *
+     * @return A future for the results of the analysis.
+     */
+    public CompletableFuture<List<Analysis>> analyzeAsync(Object input) {
+        if (VirtualThreads.isEnabled()) {
+            return CompletableFuture.supplyAsync(() -> analyze(input), VirtualThreads.executor());
+        }
+        return CompletableFuture.completedFuture(analyze(input));
+    }
+
     /**
      * Analyze the specified input, notifying the collector as analysis results are produced.
      *
@@ -258,6 +372,21 @@ public abstract class Analyzer
      */
     protected abstract void _analyze(Object input, Consumer<Analysis> collector);
 
+    /**
+     * Analyze the specified input within the specified time budget, notifying the collector as analysis results are
+     * produced.
+     *
+     * <p> The default implementation ignores the budget. Analyzers which can abandon or cut short their work should
+     * override this method. </p>
+     *
+     * @param input The input.
+     * @param budget The time allowed for the analysis ({@code null} for no limit).
+     * @param collector The collector of analysis results.
+     */
+    protected void _analyze(Object input, Duration budget, Consumer<Analysis> collector) {
+        _analyze(input, collector);
+    }
+
     /**
      * Dispose of any resources associated with the analyzer.
      */
@@ -26,16 +26,30 @@
 
 package keyterms.analyzer;
 
+import java.time.Duration;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import org.slf4j.LoggerFactory;
+
 import keyterms.util.collect.Unique;
+import keyterms.util.text.Strings;
 
 /**
  * A container for information and methods used in creating analyzer instances.
  */
 public class AnalyzerFactory
         extends Unique<AnalyzerId> {
+    /**
+     * The queue capacity indicating that the number of pending analyses is not limited.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /**
+     * The default time an analyzer instance may remain unused before it is disposed.
+     */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+
     /**
      * The types of input accepted by analyzers created by this factory.
      */
@@ -61,6 +75,36 @@ public class AnalyzerFactory
      */
     private final Supplier<Analyzer> factory;
 
+    /**
+     * The maximum number of analyses which may wait for an analyzer instance.
+     */
+    private int queueCapacity = UNBOUNDED;
+
+    /**
+     * The behavior when the queue of pending analyses is full.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+
+    /**
+     * The number of analyzer instances kept by a pool even when idle.
+     */
+    private int minInstances = 1;
+
+    /**
+     * The maximum number of analyzer instances (and threads) in a pool.
+     */
+    private int maxInstances = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The time an analyzer instance in excess of the minimum may remain unused before it is disposed.
+     */
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * A flag indicating whether pooled analyses run on virtual threads.
+     */
+    private boolean virtualThreads = false;
+
     /**
      * Constructor.
      *
@@ -140,4 +184,223 @@ public class AnalyzerFactory
     public Analyzer newInstance() {
         return factory.get();
     }
+
+    /**
+     * Get the maximum number of analyses which may wait for an analyzer instance.
+     *
+     * <p> The configured capacity may be overridden through the system properties
+     * {@code analyzer.<id>.queue.capacity} or {@code analyzer.queue.capacity} (in that order of precedence).
+     * Overrides which are not positive integers are logged and ignored. </p>
+     *
+     * @return The maximum number of analyses which may wait for an analyzer instance.
+     */
+    public int getQueueCapacity() {
+        return (int)getOverride("queue.capacity", 1, Integer.MAX_VALUE, queueCapacity);
+    }
+
+    /**
+     * Set the maximum number of analyses which may wait for an analyzer instance.
+     *
+     * @param queueCapacity The maximum number of analyses which may wait for an analyzer instance.
+     *
+     * @return A reference to this factory for convenience in chaining.
+     */
+    public AnalyzerFactory withQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Get the behavior when the queue of pending analyses is full.
+     *
+     * <p> The configured policy may be overridden through the system properties
+     * {@code analyzer.<id>.overflow.policy} or {@code analyzer.overflow.policy} (in that order of precedence).
+     * Overrides which do not name a policy are logged and ignored. </p>
+     *
+     * @return The behavior when the queue of pending analyses is full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        String override = getOverride("overflow.policy");
+        if (override != null) {
+            try {
+                return OverflowPolicy.valueOf(override.toUpperCase());
+            } catch (IllegalArgumentException error) {
+                ignore("overflow.policy", override);
+            }
+        }
+        return overflowPolicy;
+    }
+
+    /**
+     * Set the behavior when the queue of pending analyses is full.
+     *
+     * @param overflowPolicy The behavior when the queue of pending analyses is full.
+     *
+     * @return A reference to this factory for convenience in chaining.
+     */
+    public AnalyzerFactory withOverflowPolicy(OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new NullPointerException("Overflow policy is required.");
+        }
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    /**
+     * Get the number of analyzer instances kept by a pool even when idle.
+     *
+     * <p> The configured value may be overridden through the system properties {@code analyzer.<id>.min.instances}
+     * or {@code analyzer.min.instances} (in that order of precedence). Overrides which are not non-negative integers
+     * are logged and ignored, and the result never exceeds the maximum number of instances. </p>
+     *
+     * @return The number of analyzer instances kept by a pool even when idle.
+     */
+    public int getMinInstances() {
+        return (int)Math.min(getOverride("min.instances", 0, Integer.MAX_VALUE, minInstances), getMaxInstances());
+    }
+
+    /**
+     * Get the maximum number of analyzer instances (and threads) in a pool.
+     *
+     * <p> The configured value may be overridden through the system properties {@code analyzer.<id>.max.instances}
+     * or {@code analyzer.max.instances} (in that order of precedence). Overrides which are not positive integers are
+     * logged and ignored. </p>
+     *
+     * @return The maximum number of analyzer instances in a pool.
+     */
+    public int getMaxInstances() {
+        return (int)getOverride("max.instances", 1, Integer.MAX_VALUE, maxInstances);
+    }
+
+    /**
+     * Set the minimum and maximum number of analyzer instances in a pool.
+     *
+     * <p> Pools start with the minimum number of instances, grow as analyses queue up, and shrink back to the
+     * minimum as instances become idle. </p>
+     *
+     * @param minInstances The number of analyzer instances kept by a pool even when idle.
+     * @param maxInstances The maximum number of analyzer instances (and threads) in a pool.
+     *
+     * @return A reference to this factory for convenience in chaining.
+     */
+    public AnalyzerFactory withInstances(int minInstances, int maxInstances) {
+        if ((minInstances < 0) || (maxInstances < 1) || (minInstances > maxInstances)) {
+            throw new IllegalArgumentException("Invalid instance limits: " + minInstances + "-" + maxInstances);
+        }
+        this.minInstances = minInstances;
+        this.maxInstances = maxInstances;
+        return this;
+    }
+
+    /**
+     * Get the time an analyzer instance in excess of the minimum may remain unused before it is disposed.
+     *
+     * <p> The configured value may be overridden through the system properties {@code analyzer.<id>.idle.seconds}
+     * or {@code analyzer.idle.seconds} (in that order of precedence). Overrides which are not positive integers are
+     * logged and ignored. </p>
+     *
+     * @return The time an analyzer instance may remain unused before it is disposed.
+     */
+    public Duration getIdleTimeout() {
+        long seconds = getOverride("idle.seconds", 1, Long.MAX_VALUE / 1_000_000_000L, -1);
+        return (seconds > 0) ? Duration.ofSeconds(seconds) : idleTimeout;
+    }
+
+    /**
+     * Set the time an analyzer instance in excess of the minimum may remain unused before it is disposed.
+     *
+     * @param idleTimeout The time an analyzer instance may remain unused before it is disposed.
+     *
+     * @return A reference to this factory for convenience in chaining.
+     */
+    public AnalyzerFactory withIdleTimeout(Duration idleTimeout) {
+        if ((idleTimeout == null) || (idleTimeout.isNegative()) || (idleTimeout.isZero())) {
+            throw new IllegalArgumentException("Invalid idle timeout: " + idleTimeout);
+        }
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * Determine if pooled analyses should run on virtual threads.
+     *
+     * <p> The configured value may be overridden through the system properties {@code analyzer.<id>.virtual.threads}
+     * or {@code analyzer.virtual.threads} (in that order of precedence). </p>
+     *
+     * @return A flag indicating whether pooled analyses should run on virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        String override = getOverride("virtual.threads");
+        return (override != null) ? Boolean.parseBoolean(override) : virtualThreads;
+    }
+
+    /**
+     * Run pooled analyses on virtual threads rather than on the pool's platform threads.
+     *
+     * <p> In this mode each analysis runs on its own virtual thread and the maximum number of analyzer instances is
+     * enforced only by the instance permits, so analyses waiting on other pools do not tie up platform threads. The
+     * setting is ignored on runtimes which do not support virtual threads. </p>
+     *
+     * @return A reference to this factory for convenience in chaining.
+     */
+    public AnalyzerFactory withVirtualThreads() {
+        this.virtualThreads = true;
+        return this;
+    }
+
+    /**
+     * Get the system property value which overrides the specified analyzer pool setting.
+     *
+     * @param setting The name of the analyzer pool setting.
+     *
+     * @return The overriding value, or {@code null} if the setting has not been overridden.
+     */
+    private String getOverride(String setting) {
+        String value = Strings.trim(System.getProperty("analyzer." + getId() + "." + setting));
+        if (Strings.isBlank(value)) {
+            value = Strings.trim(System.getProperty("analyzer." + setting));
+        }
+        return (!Strings.isBlank(value)) ? value : null;
+    }
+
+    /**
+     * Get the numeric value of the specified analyzer pool setting, falling back to the configured value if the
+     * overriding system property is not a valid integer within the allowed range.
+     *
+     * @param setting The name of the analyzer pool setting.
+     * @param minimum The minimum allowed value.
+     * @param maximum The maximum allowed value.
+     * @param configured The configured value.
+     *
+     * @return The effective value of the setting.
+     */
+    private long getOverride(String setting, long minimum, long maximum, long configured) {
+        String override = getOverride(setting);
+        if (override != null) {
+            try {
+                long value = Long.parseLong(override);
+                if ((value >= minimum) && (value <= maximum)) {
+                    return value;
+                }
+            } catch (NumberFormatException error) {
+                // Reported below.
+            }
+            ignore(setting, override);
+        }
+        return configured;
+    }
+
+    /**
+     * Report an invalid override of an analyzer pool setting.
+     *
+     * @param setting The name of the analyzer pool setting.
+     * @param value The invalid value.
+     */
+    private void ignore(String setting, String value) {
+        LoggerFactory.getLogger(AnalyzerFactory.class)
+                .warn("Ignoring invalid {} setting for analyzer {}: {}", setting, getId(), value);
+    }
 }
\ No newline at end of file
@@ -26,21 +26,41 @@
 
 package keyterms.analyzer;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-import keyterms.util.system.Threads;
+import keyterms.util.lang.Lazy;
 import keyterms.util.text.Strings;
 
 /**
  * A thread pool for running a single type of analyzer in a thread safe way.
+ *
+ * <p> Pools start with the factory's minimum number of analyzer instances and threads, grow towards the maximum as
+ * analyses queue up, and dispose of instances which have been idle longer than the factory's idle timeout. </p>
+ * <p> The minimum number of analyzer instances is created in the background; the pool accepts analyses immediately,
+ * creating instances on demand until it is ready. </p>
+ * <p> Pools may optionally run each analysis on its own virtual thread (where supported by the runtime), in which
+ * case the number of concurrent analyses is limited only by the instance permits and the queue capacity. </p>
  */
 public class AnalyzerPool
         extends Analyzer {
@@ -49,6 +69,38 @@ public class AnalyzerPool
      */
     private static final long serialVersionUID = 3649353732430837738L;
 
+    /**
+     * The shared service which periodically disposes of idle analyzer instances.
+     */
+    private static final Lazy<ScheduledExecutorService> TRIMMER = new Lazy<>(() -> {
+        ScheduledThreadPoolExecutor trimmer = new ScheduledThreadPoolExecutor(1, (runnable) -> {
+            Thread thread = new Thread(runnable, "AnalyzerPool-Trimmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        trimmer.setRemoveOnCancelPolicy(true);
+        return trimmer;
+    });
+
+    /**
+     * The shared service which creates the initial analyzer instances for new pools.
+     */
+    private static final Lazy<ExecutorService> WARM_UP = new Lazy<>(() -> Executors.newCachedThreadPool((runnable) -> {
+        Thread thread = new Thread(runnable, "AnalyzerPool-WarmUp");
+        thread.setDaemon(true);
+        return thread;
+    }));
+
+    /**
+     * The factory used to create new instances of the underlying analyzer.
+     */
+    private final AnalyzerFactory factory;
+
+    /**
+     * The identifier of the pooled analyzers.
+     */
+    private final AnalyzerId id;
+
     /**
      * The thread group for the pool's execution threads.
      */
@@ -60,14 +112,79 @@ public class AnalyzerPool
     private final ThreadPoolExecutor threadPool;
 
     /**
-     * A synchronization lock for the analyzer instance collection.
+     * The number of analyzer instances kept even when idle.
+     */
+    private final int minInstances;
+
+    /**
+     * The maximum number of analyzer instances.
+     */
+    private final int maxInstances;
+
+    /**
+     * The time (in nanoseconds) an analyzer instance in excess of the minimum may remain unused.
+     */
+    private final long idleNanos;
+
+    /**
+     * The total number of analyzer instances owned by the pool.
      */
-    private final ReentrantReadWriteLock instanceLock = new ReentrantReadWriteLock();
+    private final AtomicInteger instanceCount = new AtomicInteger();
 
     /**
      * The analyzer instances which are available.
+     *
+     * <p> Instances are handed out in last-in first-out order so that recently used (and therefore cache warm)
+     * instances are preferred, and the least recently used instances collect at the tail where they can be
+     * trimmed. </p>
      */
-    private final List<Analyzer> instances = new ArrayList<>();
+    private final ConcurrentLinkedDeque<IdleInstance> instances = new ConcurrentLinkedDeque<>();
+
+    /**
+     * One permit for each analyzer instance which is not currently in use, whether or not it has been created yet.
+     */
+    private final Semaphore instancePermits;
+
+    /**
+     * The number of submitted analyses which have not yet finished.
+     */
+    private final AtomicInteger pendingAnalyses = new AtomicInteger();
+
+    /**
+     * A flag indicating whether analyses run on virtual threads rather than on the internal thread pool.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * The behavior when the pool is at capacity.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * One permit for each analysis which may be in progress or waiting when running on virtual threads
+     * ({@code null} if not limited).
+     */
+    private final Semaphore admissions;
+
+    /**
+     * The scheduled task which disposes of idle analyzer instances.
+     */
+    private final ScheduledFuture<?> trimming;
+
+    /**
+     * The future completed once the minimum number of analyzer instances has been created.
+     */
+    private final CompletableFuture<Void> ready;
+
+    /**
+     * The optional cache of analysis results.
+     */
+    private volatile AnalysisCache cache;
+
+    /**
+     * A flag indicating whether the pool has been disposed.
+     */
+    private volatile boolean disposed;
 
     /**
      * Constructor.
@@ -77,18 +194,110 @@ public class AnalyzerPool
     public AnalyzerPool(AnalyzerFactory factory) {
         super(factory.getInputClasses(), factory.getOutputFeatures(),
                 factory.producesRankings(), factory.producesScores());
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        for (int t = 0; t < numThreads; t++) {
-            instances.add(factory.newInstance());
-        }
-        Analyzer baseAnalyzer = instances.get(0);
+        this.factory = factory;
+        id = factory.getId();
+        minInstances = factory.getMinInstances();
+        maxInstances = factory.getMaxInstances();
+        idleNanos = factory.getIdleTimeout().toNanos();
+        instancePermits = new Semaphore(maxInstances);
+        overflowPolicy = factory.getOverflowPolicy();
+        virtualThreads = ((factory.usesVirtualThreads()) && (VirtualThreads.isSupported()));
+        int queueCapacity = factory.getQueueCapacity();
+        admissions = ((virtualThreads) && (queueCapacity < AnalyzerFactory.UNBOUNDED - maxInstances))
+                ? new Semaphore(maxInstances + queueCapacity)
+                : null;
         String groupName = Strings.trim(factory.getId().toString());
         if (Strings.isBlank(groupName)) {
-            groupName = baseAnalyzer.getClass().getSimpleName() + "@" + baseAnalyzer.hashCode();
+            groupName = getClass().getSimpleName() + "@" + hashCode();
         }
         threadGroup = new ThreadGroup(groupName);
-        threadPool = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(), new PoolThreads());
+        threadPool = new ThreadPoolExecutor(minInstances, maxInstances, idleNanos, TimeUnit.NANOSECONDS,
+                new PoolQueue(factory.getQueueCapacity()), new PoolThreads(),
+                new OverflowHandler(overflowPolicy));
+        long trimPeriod = Math.max(TimeUnit.SECONDS.toNanos(1), idleNanos / 2);
+        trimming = TRIMMER.value().scheduleAtFixedRate(this::trim, trimPeriod, trimPeriod, TimeUnit.NANOSECONDS);
+        ready = (minInstances > 0)
+                ? CompletableFuture.runAsync(this::warmUp, WARM_UP.value())
+                : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Create analyzer instances until the pool holds its minimum number of instances.
+     *
+     * <p> Each instance is created under an instance permit, so that warm-up and concurrent allocations never create
+     * more than the maximum number of instances. Warm-up stops early if every permit is in use, since the pool is
+     * then already growing on demand. </p>
+     */
+    private void warmUp() {
+        while ((instanceCount.get() < minInstances) && (instancePermits.tryAcquire())) {
+            try {
+                if (instanceCount.get() < minInstances) {
+                    instances.offerLast(new IdleInstance(factory.newInstance()));
+                    instanceCount.incrementAndGet();
+                }
+            } finally {
+                instancePermits.release();
+            }
+        }
+        getLogger().debug("Analyzer pool {} is ready.", id);
+    }
+
+    /**
+     * Determine if the pool has created its minimum number of analyzer instances.
+     *
+     * @return A flag indicating whether the pool has created its minimum number of analyzer instances.
+     */
+    public boolean isReady() {
+        return ((ready.isDone()) && (!ready.isCompletedExceptionally()));
+    }
+
+    /**
+     * Get a future which completes once the pool has created its minimum number of analyzer instances.
+     *
+     * <p> The future completes exceptionally if the analyzer instances could not be created. </p>
+     *
+     * @return A future which completes once the pool is ready.
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.copy();
+    }
+
+    /**
+     * Get the number of analyzer instances currently owned by the pool.
+     *
+     * @return The number of analyzer instances currently owned by the pool.
+     */
+    public int getInstanceCount() {
+        return instanceCount.get();
+    }
+
+    /**
+     * Get the identifier of the pooled analyzers.
+     *
+     * @return The identifier of the pooled analyzers.
+     */
+    public AnalyzerId getId() {
+        return id;
+    }
+
+    /**
+     * Get the cache of analysis results used by the pool.
+     *
+     * @return The cache of analysis results used by the pool ({@code null} if results are not cached).
+     */
+    public AnalysisCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Set the cache of analysis results used by the pool.
+     *
+     * <p> Results produced within a time budget may be incomplete and are never cached. </p>
+     *
+     * @param cache The cache of analysis results to use ({@code null} to disable caching).
+     */
+    public void setCache(AnalysisCache cache) {
+        this.cache = cache;
     }
 
     /**
@@ -96,48 +305,239 @@ public class AnalyzerPool
      */
     @Override
     protected void _analyze(Object input, Consumer<Analysis> collector) {
+        _analyze(input, null, collector);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> Analyses which do not complete within the budget are cancelled. Analyses which have not yet been started
+     * by a pool worker will not be started, and the threads running analyses which have started are interrupted.
+     * Analyzers which do not respond to interruption run to completion in the background, holding their analyzer
+     * instance until they finish, and their results are discarded. </p>
+     */
+    @Override
+    protected void _analyze(Object input, Duration budget, Consumer<Analysis> collector) {
         if (accepts(input.getClass())) {
-            Future<?> future = threadPool.submit(new PoolWorker(input, collector));
-            while ((!future.isDone()) && (!future.isCancelled())) {
-                Thread.yield();
+            CompletableFuture<List<Analysis>> results = submit(input, null, budget);
+            try {
+                List<Analysis> analyses = (budget != null)
+                        ? results.get(budget.toNanos(), TimeUnit.NANOSECONDS)
+                        : results.get();
+                analyses.forEach(collector);
+            } catch (TimeoutException timeout) {
+                results.cancel(true);
+                getLogger().debug("Analysis exceeded the time budget of {}: {}", budget, input);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                getLogger().warn("Interrupted while waiting for analysis of: {}", input);
+            } catch (ExecutionException error) {
+                RejectedAnalysisException rejected = RejectedAnalysisException.causeOf(error);
+                if (rejected != null) {
+                    throw rejected;
+                }
+                getLogger().error("Error analyzing data: {}", input, error.getCause());
             }
         }
     }
 
     /**
-     * Get the number of available analyzer instances.
+     * {@inheritDoc}
      *
-     * @return The number of available analyzer instances.
+     * <p> The results are adjusted by an analyzer instance borrowed from the pool, so that pooled analyzers describe
+     * sampled inputs exactly as their instances do. </p>
      */
-    private int available() {
-        instanceLock.readLock().lock();
+    @Override
+    protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        Analyzer analyzer = allocate();
         try {
-            return instances.size();
+            analyzer._sampled(sample, results);
         } finally {
-            instanceLock.readLock().unlock();
+            release(analyzer);
         }
     }
 
     /**
-     * Allocate an analyzer instance for use by a worker.
+     * {@inheritDoc}
      *
-     * @return The allocated analyzer instance.
+     * <p> The returned future is completed by the pool worker which performs the analysis. </p>
+     * <p> If the pool does not have the capacity to accept the analysis the future completes with a
+     * {@code RejectedAnalysisException}. </p>
      */
-    protected Analyzer allocate() {
-        Analyzer analyzer = null;
-        while (analyzer == null) {
-            if (available() > 0) {
-                instanceLock.writeLock().lock();
+    @Override
+    public CompletableFuture<List<Analysis>> analyzeAsync(Object input) {
+        return analyzeAsync(input, null);
+    }
+
+    /**
+     * Analyze the specified input without requiring the caller to wait for the results.
+     *
+     * @param input The input data.
+     * @param content A supplier of the content identity of the input, shared by the pools analyzing the same input
+     * ({@code null} to compute the identity if needed).
+     *
+     * @return A future for the results of the analysis.
+     */
+    CompletableFuture<List<Analysis>> analyzeAsync(Object input, Supplier<AnalysisCache.Content> content) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Analyzer is not available.");
+        }
+        CompletableFuture<List<Analysis>> results;
+        if ((input != null) && (accepts(input.getClass()))) {
+            results = submit(input, content, null);
+        } else {
+            results = CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return results;
+    }
+
+    /**
+     * Analyze the specified input on the calling thread using an analyzer instance borrowed from the pool.
+     *
+     * <p> Handing very small inputs to a pool worker can cost more than the analysis itself. </p>
+     *
+     * @param input The input data.
+     * @param content A supplier of the content identity of the input, shared by the pools analyzing the same input
+     * ({@code null} to compute the identity if needed).
+     *
+     * @return The results of the analysis.
+     */
+    List<Analysis> analyzeOnCallingThread(Object input, Supplier<AnalysisCache.Content> content) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Analyzer is not available.");
+        }
+        AnalysisCache cache = this.cache;
+        AnalysisCache.Key key = keyOf(cache, input, content);
+        List<Analysis> results = (key != null) ? cache.get(key) : null;
+        if (results == null) {
+            Analyzer analyzer = allocate();
+            try {
+                results = analyzer.analyze(input);
+            } finally {
+                release(analyzer);
+            }
+            if (key != null) {
+                cache.put(key, results);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Submit the specified input to the thread pool for analysis.
+     *
+     * @param input The input data.
+     * @param content A supplier of the content identity of the input ({@code null} to compute the identity if
+     * needed).
+     * @param budget The time allowed for the analysis ({@code null} for no limit).
+     *
+     * @return A future for the results of the analysis.
+     */
+    private CompletableFuture<List<Analysis>> submit(Object input, Supplier<AnalysisCache.Content> content,
+            Duration budget) {
+        AnalysisCache cache = this.cache;
+        AnalysisCache.Key key = keyOf(cache, input, content);
+        if (key != null) {
+            List<Analysis> cached = cache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        PoolWorker worker = new PoolWorker(input, budget);
+        if ((key != null) && (budget == null)) {
+            worker.results.thenAccept((results) -> cache.put(key, results));
+        }
+        pendingAnalyses.incrementAndGet();
+        try {
+            if (virtualThreads) {
+                executeOnVirtualThread(worker);
+            } else {
+                threadPool.execute(worker);
+            }
+        } catch (RejectedAnalysisException rejected) {
+            pendingAnalyses.decrementAndGet();
+            worker.results.completeExceptionally(rejected);
+        }
+        return worker.results;
+    }
+
+    /**
+     * Get the cache key for the specified input.
+     *
+     * @param cache The cache of analysis results ({@code null} if results are not cached).
+     * @param input The input data.
+     * @param content A supplier of the content identity of the input ({@code null} to compute the identity).
+     *
+     * @return The cache key for the input, or {@code null} if the results are not cached.
+     */
+    private AnalysisCache.Key keyOf(AnalysisCache cache, Object input, Supplier<AnalysisCache.Content> content) {
+        if (cache == null) {
+            return null;
+        }
+        return cache.keyOf(id, (content != null) ? content.get() : AnalysisCache.contentOf(input));
+    }
+
+    /**
+     * Run the specified worker on its own virtual thread.
+     *
+     * <p> Without a queue to shed from, the {@code SHED_OLDEST} policy rejects new analyses in this mode. </p>
+     *
+     * @param worker The pool worker.
+     */
+    private void executeOnVirtualThread(PoolWorker worker) {
+        if ((admissions != null) && (!admissions.tryAcquire())) {
+            if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+                worker.run();
+                return;
+            }
+            throw new RejectedAnalysisException("Analyzer pool " + threadGroup.getName() + " is at capacity.");
+        }
+        try {
+            VirtualThreads.executor().execute(() -> {
                 try {
-                    if (available() > 0) {
-                        analyzer = instances.remove(0);
-                    }
+                    worker.run();
                 } finally {
-                    instanceLock.writeLock().unlock();
+                    if (admissions != null) {
+                        admissions.release();
+                    }
                 }
+            });
+        } catch (RejectedExecutionException rejected) {
+            if (admissions != null) {
+                admissions.release();
             }
+            throw shutDown();
+        }
+    }
+
+    /**
+     * Allocate an analyzer instance for use by a worker.
+     *
+     * <p> The calling thread waits until an analyzer instance is released if the pool is at its maximum size. </p>
+     * <p> A new analyzer instance is created if a permit is available but no idle instance is. </p>
+     *
+     * @return The allocated analyzer instance.
+     *
+     * @throws RejectedAnalysisException if the pool has been disposed.
+     */
+    protected Analyzer allocate() {
+        instancePermits.acquireUninterruptibly();
+        if (disposed) {
+            instancePermits.release();
+            throw shutDown();
+        }
+        IdleInstance idle = instances.pollFirst();
+        if (idle != null) {
+            return idle.analyzer;
+        }
+        try {
+            Analyzer analyzer = factory.newInstance();
+            instanceCount.incrementAndGet();
+            return analyzer;
+        } catch (RuntimeException error) {
+            instancePermits.release();
+            throw error;
         }
-        return analyzer;
     }
 
     /**
@@ -146,11 +546,29 @@ public class AnalyzerPool
      * @param analyzer The analyzer instance.
      */
     protected void release(Analyzer analyzer) {
-        instanceLock.writeLock().lock();
-        try {
-            instances.add(analyzer);
-        } finally {
-            instanceLock.writeLock().unlock();
+        instances.offerFirst(new IdleInstance(analyzer));
+        instancePermits.release();
+    }
+
+    /**
+     * Dispose of the least recently used analyzer instances which have been idle longer than the idle timeout,
+     * keeping at least the minimum number of instances.
+     */
+    private void trim() {
+        long now = System.nanoTime();
+        while (instanceCount.get() > minInstances) {
+            IdleInstance oldest = instances.peekLast();
+            if ((oldest == null) || (now - oldest.idleSince < idleNanos)) {
+                break;
+            }
+            if (instances.removeLastOccurrence(oldest)) {
+                instanceCount.decrementAndGet();
+                try {
+                    oldest.analyzer.dispose();
+                } catch (Exception error) {
+                    getLogger().error("Error disposing idle analyzer.", error);
+                }
+            }
         }
     }
 
@@ -159,15 +577,104 @@ public class AnalyzerPool
      */
     @Override
     protected void _dispose() {
+        disposed = true;
+        ready.handle((ignored, error) -> null).join();
+        trimming.cancel(false);
         threadPool.shutdown();
-        while (available() < threadPool.getMaximumPoolSize()) {
-            Threads.sleep(10);
+        List<Runnable> queued = new ArrayList<>();
+        threadPool.getQueue().drainTo(queued);
+        queued.stream()
+                .filter((runnable) -> runnable instanceof PoolWorker)
+                .forEach((worker) -> {
+                    pendingAnalyses.decrementAndGet();
+                    ((PoolWorker)worker).results.completeExceptionally(shutDown());
+                });
+        instancePermits.acquireUninterruptibly(maxInstances);
+        instances.forEach((idle) -> idle.analyzer.dispose());
+        instances.clear();
+        instanceCount.set(0);
+        // Workers which arrive late (such as those on virtual threads) are rejected by allocate() rather than
+        // waiting forever for a permit.
+        instancePermits.release(maxInstances);
+    }
+
+    /**
+     * Create the error used to reject analyses once the pool has been shut down.
+     *
+     * @return The error used to reject analyses once the pool has been shut down.
+     */
+    private RejectedAnalysisException shutDown() {
+        return new RejectedAnalysisException("Analyzer pool " + threadGroup.getName() + " is shut down.");
+    }
+
+    /**
+     * An analyzer instance which is not in use.
+     */
+    private static class IdleInstance {
+        /**
+         * The analyzer instance.
+         */
+        private final Analyzer analyzer;
+
+        /**
+         * The {@code System.nanoTime()} at which the analyzer instance was last released.
+         */
+        private final long idleSince = System.nanoTime();
+
+        /**
+         * Constructor.
+         *
+         * @param analyzer The analyzer instance.
+         */
+        private IdleInstance(Analyzer analyzer) {
+            super();
+            this.analyzer = analyzer;
         }
-        instanceLock.writeLock().lock();
-        try {
-            instances.forEach(Analyzer::dispose);
-        } finally {
-            instanceLock.writeLock().unlock();
+    }
+
+    /**
+     * The analyzer pool's queue of pending analyses.
+     *
+     * <p> The queue refuses new analyses while the pool has no idle threads and is below its maximum size, which
+     * causes the executor to start a new thread rather than queue the analysis. </p>
+     */
+    private class PoolQueue
+            extends LinkedBlockingQueue<Runnable> {
+        /**
+         * The class serial version identifier.
+         */
+        private static final long serialVersionUID = -4311950587061306524L;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The maximum number of pending analyses.
+         */
+        private PoolQueue(int capacity) {
+            super(capacity);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean offer(Runnable runnable) {
+            int poolSize = threadPool.getPoolSize();
+            if ((pendingAnalyses.get() > poolSize) && (poolSize < threadPool.getMaximumPoolSize())) {
+                return false;
+            }
+            return super.offer(runnable);
+        }
+
+        /**
+         * Queue the specified analysis regardless of the current pool size.
+         *
+         * @param runnable The analysis.
+         *
+         * @return A flag indicating whether the analysis was queued.
+         */
+        private boolean force(Runnable runnable) {
+            return super.offer(runnable);
         }
     }
 
@@ -211,8 +718,71 @@ public class AnalyzerPool
         }
     }
 
+    /**
+     * The analyzer pool's handler for analyses which do not fit in the queue of pending analyses.
+     */
+    private class OverflowHandler
+            implements RejectedExecutionHandler {
+        /**
+         * The behavior when the queue of pending analyses is full.
+         */
+        private final OverflowPolicy policy;
+
+        /**
+         * Constructor.
+         *
+         * @param policy The behavior when the queue of pending analyses is full.
+         */
+        private OverflowHandler(OverflowPolicy policy) {
+            super();
+            this.policy = policy;
+        }
+
+        /**
+         * Create the error used to reject an analysis.
+         *
+         * @return The error used to reject an analysis.
+         */
+        private RejectedAnalysisException rejection() {
+            return new RejectedAnalysisException("Analyzer pool " + threadGroup.getName() + " is at capacity.");
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw shutDown();
+            }
+            // The pool queue refuses work in order to grow the pool; queue it if the pool could not grow.
+            if ((executor.getQueue() instanceof PoolQueue) && (((PoolQueue)executor.getQueue()).force(runnable))) {
+                return;
+            }
+            switch (policy) {
+                case CALLER_RUNS:
+                    runnable.run();
+                    break;
+                case SHED_OLDEST:
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest instanceof PoolWorker) {
+                        pendingAnalyses.decrementAndGet();
+                        ((PoolWorker)oldest).results.completeExceptionally(rejection());
+                    }
+                    executor.execute(runnable);
+                    break;
+                default:
+                    throw rejection();
+            }
+        }
+    }
+
     /**
      * A pool worker.
+     *
+     * <p> Cancelling the results of a worker with {@code mayInterruptIfRunning} interrupts the thread running the
+     * analysis. Analyzers stop early only if they respond to interruption (for example while waiting on other
+     * analyzers); otherwise the analysis runs to completion and its results are discarded. </p>
      */
     private class PoolWorker
             implements Runnable {
@@ -222,20 +792,44 @@ public class AnalyzerPool
         private final Object input;
 
         /**
-         * The collector of analysis results.
+         * The {@code System.nanoTime()} by which the analysis must complete ({@code null} for no limit).
+         */
+        private final Long deadline;
+
+        /**
+         * The future completed with the analysis results.
          */
-        private final Consumer<Analysis> collector;
+        private final CompletableFuture<List<Analysis>> results = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if ((cancelled) && (mayInterruptIfRunning)) {
+                    interrupt();
+                }
+                return cancelled;
+            }
+        };
+
+        /**
+         * The thread running the analysis ({@code null} if the analysis is not running).
+         */
+        private Thread runner;
+
+        /**
+         * A flag indicating whether the thread running the analysis was interrupted by a cancellation.
+         */
+        private boolean interrupted;
 
         /**
          * Constructor.
          *
          * @param input The input data to analyze.
-         * @param collector The collector of analysis results.
+         * @param budget The time allowed for the analysis ({@code null} for no limit).
          */
-        private PoolWorker(Object input, Consumer<Analysis> collector) {
+        private PoolWorker(Object input, Duration budget) {
             super();
             this.input = input;
-            this.collector = collector;
+            deadline = (budget != null) ? System.nanoTime() + budget.toNanos() : null;
         }
 
         /**
@@ -243,14 +837,64 @@ public class AnalyzerPool
          */
         @Override
         public void run() {
-            Analyzer analyzer = allocate();
             try {
-                analyzer._analyze(input, collector);
+                // Analyses cancelled while waiting in the queue are not started.
+                if (!results.isDone()) {
+                    analyze();
+                }
+            } finally {
+                pendingAnalyses.decrementAndGet();
+            }
+        }
+
+        /**
+         * Analyze the input data using an analyzer instance allocated from the pool.
+         */
+        private void analyze() {
+            Analyzer analyzer;
+            try {
+                analyzer = allocate();
+            } catch (Exception error) {
+                getLogger().error("Could not allocate analyzer instance.", error);
+                results.completeExceptionally(error);
+                return;
+            }
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                Duration remaining = (deadline != null)
+                        ? Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))
+                        : null;
+                // Analyses cancelled while waiting for an analyzer instance are not started.
+                if (!results.isDone()) {
+                    results.complete(analyzer.analyze(input, remaining));
+                }
             } catch (Exception error) {
-                getLogger().error("Error analyzing data: {}", input, error);
+                if (!results.isCancelled()) {
+                    getLogger().error("Error analyzing data: {}", input, error);
+                }
+                results.completeExceptionally(error);
             } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (interrupted) {
+                        // Do not leave the cancellation interrupt behind for the next task run by this thread.
+                        Thread.interrupted();
+                    }
+                }
                 release(analyzer);
             }
         }
+
+        /**
+         * Interrupt the thread running the analysis, if any.
+         */
+        private synchronized void interrupt() {
+            if (runner != null) {
+                interrupted = true;
+                runner.interrupt();
+            }
+        }
     }
 }
\ No newline at end of file
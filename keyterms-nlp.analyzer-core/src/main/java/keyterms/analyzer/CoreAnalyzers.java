@@ -26,11 +26,17 @@
 
 package keyterms.analyzer;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -41,6 +47,9 @@ import keyterms.util.lang.Lazy;
 
 /**
  * A shared collection of analyzer thread pools.
+ *
+ * <p> Analyzer thread pools are registered as soon as their plugins are loaded and warm up in the background. Pools
+ * whose analyzers cannot be instantiated are removed once their warm up fails. </p>
  */
 public class CoreAnalyzers {
     /**
@@ -57,16 +66,36 @@ public class CoreAnalyzers {
         return INSTANCE.value();
     }
 
+    /**
+     * The default input size (in bytes or characters) below which analyzers are run sequentially on the calling
+     * thread.
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 256;
+
     /**
      * The analyzer thread pools keyed by the factory identifier.
      */
-    private final Map<AnalyzerId, AnalyzerPool> analyzerPools = new HashMap<>();
+    private final Map<AnalyzerId, AnalyzerPool> analyzerPools = new ConcurrentHashMap<>();
+
+    /**
+     * The future completed once every analyzer thread pool has finished warming up.
+     */
+    private final CompletableFuture<Void> ready;
+
+    /**
+     * The input size (in bytes or characters) below which analyzers are run sequentially on the calling thread.
+     *
+     * <p> The default may be overridden through the system property {@code analyzer.sequential.threshold}. </p>
+     */
+    private volatile int sequentialThreshold = Integer.getInteger("analyzer.sequential.threshold",
+            DEFAULT_SEQUENTIAL_THRESHOLD);
 
     /**
      * Constructor.
      */
     private CoreAnalyzers() {
         super();
+        List<CompletableFuture<Void>> warmUps = new ArrayList<>();
         ServiceLoader<AnalyzerPlugin> pluginLoader = ServiceLoader.load(AnalyzerPlugin.class);
         for (AnalyzerPlugin plugin : pluginLoader) {
             getLogger().info("Loading analyzer plugins from {}", plugin.getClass().getName());
@@ -75,7 +104,14 @@ public class CoreAnalyzers {
                     getLogger().error("Duplicate analyzer identifier: " + factory.getId());
                 } else {
                     try {
-                        analyzerPools.put(factory.getId(), new AnalyzerPool(factory));
+                        AnalyzerPool pool = new AnalyzerPool(factory);
+                        analyzerPools.put(factory.getId(), pool);
+                        warmUps.add(pool.whenReady().exceptionally((error) -> {
+                            getLogger().error("Could not instantiate {} analyzers.", factory.getId(), error);
+                            analyzerPools.remove(factory.getId(), pool);
+                            pool.dispose();
+                            return null;
+                        }));
                     } catch (Exception error) {
                         getLogger().error("Could not instantiate {} analyzers.", factory.getId(), error);
                     }
@@ -85,6 +121,28 @@ public class CoreAnalyzers {
         if (analyzerPools.isEmpty()) {
             getLogger().warn("No core analyzers loaded.");
         }
+        ready = CompletableFuture.allOf(warmUps.toArray(new CompletableFuture<?>[0]));
+        ready.thenRun(() -> getLogger().info("Core analyzers are ready: {}", analyzerPools.keySet()));
+    }
+
+    /**
+     * Determine if every analyzer thread pool has finished warming up.
+     *
+     * @return A flag indicating whether every analyzer thread pool has finished warming up.
+     */
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Get a future which completes once every analyzer thread pool has finished warming up.
+     *
+     * <p> Pools which failed to warm up have been removed by the time the future completes. </p>
+     *
+     * @return A future which completes once every analyzer thread pool has finished warming up.
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.copy();
     }
 
     /**
@@ -114,6 +172,55 @@ public class CoreAnalyzers {
         return analyzerPools.keySet();
     }
 
+    /**
+     * Get the input size (in bytes or characters) below which analyzers are run sequentially on the calling thread.
+     *
+     * @return The input size below which analyzers are run sequentially on the calling thread.
+     */
+    public int getSequentialThreshold() {
+        return sequentialThreshold;
+    }
+
+    /**
+     * Set the input size (in bytes or characters) below which analyzers are run sequentially on the calling thread.
+     *
+     * <p> A threshold of zero disables sequential execution. </p>
+     *
+     * @param sequentialThreshold The input size below which analyzers are run sequentially on the calling thread.
+     */
+    public void setSequentialThreshold(int sequentialThreshold) {
+        if (sequentialThreshold < 0) {
+            throw new IllegalArgumentException("Invalid sequential threshold: " + sequentialThreshold);
+        }
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * Set the cache of analysis results shared by all of the analyzer thread pools.
+     *
+     * @param cache The cache of analysis results to use ({@code null} to disable caching).
+     */
+    public void setCache(AnalysisCache cache) {
+        analyzerPools.values().forEach((pool) -> pool.setCache(cache));
+    }
+
+    /**
+     * Determine if the analyzers for the specified input should run sequentially on the calling thread.
+     *
+     * @param input The input.
+     *
+     * @return A flag indicating whether the analyzers for the specified input should run sequentially.
+     */
+    private boolean runSequentially(Object input) {
+        int size = Integer.MAX_VALUE;
+        if (input instanceof byte[]) {
+            size = ((byte[])input).length;
+        } else if (input instanceof CharSequence) {
+            size = ((CharSequence)input).length();
+        }
+        return (size < sequentialThreshold);
+    }
+
     /**
      * Get the specified analyzer thread pool.
      *
@@ -143,6 +250,9 @@ public class CoreAnalyzers {
     /**
      * Run all analyzers which can accept the specified input and match the specified filters.
      *
+     * <p> Small inputs are analyzed sequentially on the calling thread; larger inputs are fanned out to the
+     * analyzer thread pools. </p>
+     *
      * @param input The input.
      * @param idFilter A filter used to remove specific products from execution.
      * @param analyzerFilter A filter used to screen out unwanted analyzers.
@@ -152,19 +262,168 @@ public class CoreAnalyzers {
     public Map<AnalyzerId, List<Analysis>> run(Object input,
             Predicate<AnalyzerId> idFilter,
             Predicate<Analyzer> analyzerFilter) {
-        Map<AnalyzerId, List<Analysis>> results = new HashMap<>();
+        return run(input, idFilter, analyzerFilter, null);
+    }
+
+    /**
+     * Run all analyzers which can accept the specified input and match the specified filters within the specified
+     * time budget.
+     *
+     * <p> Analyzers which do not complete within the budget are cancelled and left out of the results. </p>
+     *
+     * @param input The input.
+     * @param idFilter A filter used to remove specific products from execution.
+     * @param analyzerFilter A filter used to screen out unwanted analyzers.
+     * @param budget The time allowed for the analyses ({@code null} for no limit).
+     *
+     * @return The analysis results from all matching analyzers which completed within the budget.
+     */
+    public Map<AnalyzerId, List<Analysis>> run(Object input,
+            Predicate<AnalyzerId> idFilter,
+            Predicate<Analyzer> analyzerFilter,
+            Duration budget) {
+        if ((input != null) && (budget == null) && (runSequentially(input))) {
+            return runOnCallingThread(input, idFilter, analyzerFilter);
+        }
+        try {
+            return runAsync(input, idFilter, analyzerFilter, budget).join();
+        } catch (CompletionException error) {
+            RejectedAnalysisException rejected = RejectedAnalysisException.causeOf(error);
+            if (rejected != null) {
+                throw rejected;
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Run all analyzers which can accept the specified input and match the specified filters without requiring the
+     * caller to wait for the results.
+     *
+     * <p> Analyzers which fail are logged and left out of the results. </p>
+     * <p> If any analyzer rejects the input the returned future completes with a {@code RejectedAnalysisException}.
+     * </p>
+     *
+     * @param input The input.
+     * @param idFilter A filter used to remove specific products from execution.
+     * @param analyzerFilter A filter used to screen out unwanted analyzers.
+     *
+     * @return A future for the analysis results from all matching analyzers.
+     */
+    public CompletableFuture<Map<AnalyzerId, List<Analysis>>> runAsync(Object input,
+            Predicate<AnalyzerId> idFilter,
+            Predicate<Analyzer> analyzerFilter) {
+        return runAsync(input, idFilter, analyzerFilter, null);
+    }
+
+    /**
+     * Run all analyzers which can accept the specified input and match the specified filters without requiring the
+     * caller to wait for the results.
+     *
+     * <p> Analyzers which fail are logged and left out of the results. </p>
+     * <p> If any analyzer rejects the input the returned future completes with a {@code RejectedAnalysisException}.
+     * </p>
+     * <p> Analyzers which do not complete within the budget are cancelled and left out of the results. Cancelling an
+     * analysis interrupts the pool thread running it; analyzers which do not respond to interruption keep their pool
+     * thread and analyzer instance until they finish, although the returned future does not wait for them. </p>
+     * <p> Small inputs without a budget are analyzed sequentially on the calling thread, and the returned future is
+     * already complete. If the {@code analyzer.virtual.threads} system property is set they are analyzed sequentially
+     * on a virtual thread instead, so that the caller does not wait for analyzer instances. </p>
+     *
+     * @param input The input.
+     * @param idFilter A filter used to remove specific products from execution.
+     * @param analyzerFilter A filter used to screen out unwanted analyzers.
+     * @param budget The time allowed for the analyses ({@code null} for no limit).
+     *
+     * @return A future for the analysis results from all matching analyzers.
+     */
+    public CompletableFuture<Map<AnalyzerId, List<Analysis>>> runAsync(Object input,
+            Predicate<AnalyzerId> idFilter,
+            Predicate<Analyzer> analyzerFilter,
+            Duration budget) {
+        if ((input != null) && (budget == null) && (runSequentially(input))) {
+            if (VirtualThreads.isEnabled()) {
+                return CompletableFuture.supplyAsync(() -> runOnCallingThread(input, idFilter, analyzerFilter),
+                        VirtualThreads.executor());
+            }
+            try {
+                return CompletableFuture.completedFuture(runOnCallingThread(input, idFilter, analyzerFilter));
+            } catch (RejectedAnalysisException rejected) {
+                return CompletableFuture.failedFuture(rejected);
+            }
+        }
+        Map<AnalyzerId, CompletableFuture<List<Analysis>>> pending = new HashMap<>();
         if (input != null) {
-            get(idFilter, analyzerFilter).entrySet().parallelStream().forEach((entry) -> {
-                AnalyzerId id = entry.getKey();
-                Analyzer analyzer = entry.getValue();
+            // The content identity used for cache lookups is computed at most once for all of the pools.
+            Lazy<AnalysisCache.Content> content = new Lazy<>(() -> AnalysisCache.contentOf(input));
+            get(idFilter, analyzerFilter).forEach((id, analyzer) -> {
                 if (analyzer.accepts(input.getClass())) {
-                    List<Analysis> analysis = analyzer.analyze(input);
-                    if (!analysis.isEmpty()) {
-                        results.put(id, analysis);
+                    CompletableFuture<List<Analysis>> analysis =
+                            ((AnalyzerPool)analyzer).analyzeAsync(input, content::value);
+                    CompletableFuture<List<Analysis>> result = analysis.exceptionally((error) -> {
+                        RejectedAnalysisException rejected = RejectedAnalysisException.causeOf(error);
+                        if (rejected != null) {
+                            throw rejected;
+                        }
+                        getLogger().error("Error running analyzer {}.", id, error);
+                        return new ArrayList<>();
+                    });
+                    if (budget != null) {
+                        result = result.completeOnTimeout(new ArrayList<>(), budget.toNanos(), TimeUnit.NANOSECONDS);
+                        result.thenRun(() -> {
+                            if (!analysis.isDone()) {
+                                getLogger().debug("Analyzer {} exceeded the time budget of {}.", id, budget);
+                                analysis.cancel(true);
+                            }
+                        });
                     }
+                    pending.put(id, result);
                 }
             });
         }
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply((ignored) -> {
+                    Map<AnalyzerId, List<Analysis>> results = new HashMap<>();
+                    pending.forEach((id, future) -> {
+                        List<Analysis> analysis = future.join();
+                        if (!analysis.isEmpty()) {
+                            results.put(id, analysis);
+                        }
+                    });
+                    return results;
+                });
+    }
+
+    /**
+     * Run all analyzers which can accept the specified input and match the specified filters sequentially on the
+     * calling thread.
+     *
+     * @param input The input.
+     * @param idFilter A filter used to remove specific products from execution.
+     * @param analyzerFilter A filter used to screen out unwanted analyzers.
+     *
+     * @return The analysis results from all matching analyzers.
+     */
+    private Map<AnalyzerId, List<Analysis>> runOnCallingThread(Object input,
+            Predicate<AnalyzerId> idFilter,
+            Predicate<Analyzer> analyzerFilter) {
+        Map<AnalyzerId, List<Analysis>> results = new HashMap<>();
+        Lazy<AnalysisCache.Content> content = new Lazy<>(() -> AnalysisCache.contentOf(input));
+        get(idFilter, analyzerFilter).keySet().forEach((id) -> {
+            AnalyzerPool analyzer = analyzerPools.get(id);
+            if (analyzer.accepts(input.getClass())) {
+                try {
+                    List<Analysis> analysis = analyzer.analyzeOnCallingThread(input, content::value);
+                    if (!analysis.isEmpty()) {
+                        results.put(id, analysis);
+                    }
+                } catch (RejectedAnalysisException rejected) {
+                    throw rejected;
+                } catch (Exception error) {
+                    getLogger().error("Error running analyzer {}.", id, error);
+                }
+            }
+        });
         return results;
     }
 
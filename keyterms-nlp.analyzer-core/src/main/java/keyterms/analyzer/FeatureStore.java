@@ -0,0 +1,417 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact map of analysis feature values indexed by feature ordinal.
+ *
+ * <p> Integer valued features are held in primitive slots and only boxed when read through the map interface. </p>
+ * <p> The store is serialized as an equivalent {@code HashMap} so that the serialized form of analyses does not
+ * depend on the store. </p>
+ */
+final class FeatureStore
+        extends AbstractMap<AnalysisFeature<?>, Object>
+        implements Serializable {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = -3390518617374071462L;
+
+    /**
+     * A marker for features whose values are held in the primitive slots.
+     */
+    private static final Object INT_VALUE = new Object();
+
+    /**
+     * An empty array of features.
+     */
+    private static final AnalysisFeature<?>[] NO_FEATURES = new AnalysisFeature<?>[0];
+
+    /**
+     * An empty array of values.
+     */
+    private static final Object[] NO_VALUES = new Object[0];
+
+    /**
+     * The features which have been set, indexed by ordinal.
+     */
+    private transient AnalysisFeature<?>[] keys = NO_FEATURES;
+
+    /**
+     * The feature values, indexed by ordinal.
+     */
+    private transient Object[] values = NO_VALUES;
+
+    /**
+     * The primitive values of integer features, indexed by ordinal (allocated on demand).
+     */
+    private transient int[] ints;
+
+    /**
+     * The number of features which have been set.
+     */
+    private transient int size;
+
+    /**
+     * Constructor.
+     */
+    FeatureStore() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param toCopy The feature values to copy.
+     */
+    FeatureStore(Map<AnalysisFeature<?>, Object> toCopy) {
+        super();
+        if (toCopy instanceof FeatureStore) {
+            FeatureStore store = (FeatureStore)toCopy;
+            keys = store.keys.clone();
+            values = store.values.clone();
+            ints = (store.ints != null) ? store.ints.clone() : null;
+            size = store.size;
+        } else if (toCopy != null) {
+            putAll(toCopy);
+        }
+    }
+
+    /**
+     * Get the ordinal of the specified key.
+     *
+     * @param key The key.
+     *
+     * @return The ordinal of the specified key, or {@code -1} if the key is not a set feature.
+     */
+    private int indexOf(Object key) {
+        if (key instanceof AnalysisFeature) {
+            int ordinal = ((AnalysisFeature<?>)key).getOrdinal();
+            if ((ordinal < keys.length) && (keys[ordinal] != null)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Make sure that the slot for the specified ordinal exists.
+     *
+     * @param ordinal The feature ordinal.
+     */
+    private void ensureSlot(int ordinal) {
+        if (ordinal >= keys.length) {
+            int length = Math.max(ordinal + 1, 8);
+            keys = Arrays.copyOf(keys, length);
+            values = Arrays.copyOf(values, length);
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, length);
+            }
+        }
+    }
+
+    /**
+     * Get the value held at the specified ordinal.
+     *
+     * @param ordinal The feature ordinal.
+     *
+     * @return The value held at the specified ordinal.
+     */
+    private Object valueAt(int ordinal) {
+        Object value = values[ordinal];
+        return (value == INT_VALUE) ? Integer.valueOf(ints[ordinal]) : value;
+    }
+
+    /**
+     * Get the primitive value of the specified integer feature.
+     *
+     * @param feature The analysis feature of interest.
+     * @param missing The value returned if the feature is not set.
+     *
+     * @return The primitive value of the specified integer feature.
+     */
+    int getInt(AnalysisFeature<Integer> feature, int missing) {
+        int ordinal = indexOf(feature);
+        if (ordinal < 0) {
+            return missing;
+        }
+        Object value = values[ordinal];
+        return (value == INT_VALUE) ? ints[ordinal] : (Integer)value;
+    }
+
+    /**
+     * Set the primitive value of the specified integer feature.
+     *
+     * @param feature The analysis feature of interest.
+     * @param value The feature value.
+     */
+    void putInt(AnalysisFeature<Integer> feature, int value) {
+        int ordinal = feature.getOrdinal();
+        ensureSlot(ordinal);
+        if (ints == null) {
+            ints = new int[keys.length];
+        }
+        if (keys[ordinal] == null) {
+            size++;
+        }
+        keys[ordinal] = feature;
+        values[ordinal] = INT_VALUE;
+        ints[ordinal] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return (indexOf(key) >= 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object get(Object key) {
+        int ordinal = indexOf(key);
+        return (ordinal >= 0) ? valueAt(ordinal) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object put(AnalysisFeature<?> key, Object value) {
+        if (value == null) {
+            throw new NullPointerException("Feature value is required.");
+        }
+        Object previous = get(key);
+        if ((value instanceof Integer) && (Integer.class.equals(key.getValueClass()))) {
+            putInt((AnalysisFeature<Integer>)key, (Integer)value);
+        } else {
+            int ordinal = key.getOrdinal();
+            ensureSlot(ordinal);
+            if (keys[ordinal] == null) {
+                size++;
+            }
+            keys[ordinal] = key;
+            values[ordinal] = value;
+        }
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object remove(Object key) {
+        int ordinal = indexOf(key);
+        Object previous = null;
+        if (ordinal >= 0) {
+            previous = valueAt(ordinal);
+            keys[ordinal] = null;
+            values[ordinal] = null;
+            size--;
+        }
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<AnalysisFeature<?>> keySet() {
+        return new AbstractSet<AnalysisFeature<?>>() {
+            @Override
+            public Iterator<AnalysisFeature<?>> iterator() {
+                Slots slots = new Slots();
+                return new Iterator<AnalysisFeature<?>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return slots.hasNext();
+                    }
+
+                    @Override
+                    public AnalysisFeature<?> next() {
+                        return keys[slots.next()];
+                    }
+
+                    @Override
+                    public void remove() {
+                        slots.remove();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<AnalysisFeature<?>, Object>> entrySet() {
+        return new AbstractSet<Entry<AnalysisFeature<?>, Object>>() {
+            @Override
+            public Iterator<Entry<AnalysisFeature<?>, Object>> iterator() {
+                Slots slots = new Slots();
+                return new Iterator<Entry<AnalysisFeature<?>, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return slots.hasNext();
+                    }
+
+                    @Override
+                    public Entry<AnalysisFeature<?>, Object> next() {
+                        int ordinal = slots.next();
+                        return new SimpleImmutableEntry<>(keys[ordinal], valueAt(ordinal));
+                    }
+
+                    @Override
+                    public void remove() {
+                        slots.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Replace the store with an equivalent hash map when serialized.
+     *
+     * @return An equivalent hash map.
+     */
+    private Object writeReplace() {
+        return new HashMap<>(this);
+    }
+
+    /**
+     * An iterator over the ordinals of the features which have been set.
+     */
+    private final class Slots {
+        /**
+         * The ordinal of the next feature which has been set.
+         */
+        private int next = advance(0);
+
+        /**
+         * The ordinal last returned.
+         */
+        private int last = -1;
+
+        /**
+         * Get the first ordinal at or after the specified ordinal for which a feature has been set.
+         *
+         * @param from The starting ordinal.
+         *
+         * @return The ordinal of the next feature which has been set.
+         */
+        private int advance(int from) {
+            int ordinal = from;
+            while ((ordinal < keys.length) && (keys[ordinal] == null)) {
+                ordinal++;
+            }
+            return ordinal;
+        }
+
+        /**
+         * Determine if there are more features.
+         *
+         * @return A flag indicating whether there are more features.
+         */
+        boolean hasNext() {
+            return (next < keys.length);
+        }
+
+        /**
+         * Get the ordinal of the next feature.
+         *
+         * @return The ordinal of the next feature.
+         */
+        int next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return last;
+        }
+
+        /**
+         * Remove the feature last returned.
+         */
+        void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            FeatureStore.this.remove(keys[last]);
+            last = -1;
+        }
+    }
+}
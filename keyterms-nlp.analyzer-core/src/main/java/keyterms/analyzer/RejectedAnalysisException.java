@@ -0,0 +1,65 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer;
+
+/**
+ * An error indicating that an analyzer did not have the capacity to accept an analysis request.
+ *
+ * <p> Callers may treat this error as a signal to retry later rather than as a failure of the analyzer. </p>
+ */
+public class RejectedAnalysisException
+        extends RuntimeException {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = 4526283947560120519L;
+
+    /**
+     * Find the analysis rejection which caused the specified error.
+     *
+     * @param error The error.
+     *
+     * @return The analysis rejection which caused the specified error, or {@code null} if the error was not caused by
+     * an analysis rejection.
+     */
+    public static RejectedAnalysisException causeOf(Throwable error) {
+        Throwable cause = error;
+        while ((cause != null) && (!(cause instanceof RejectedAnalysisException))) {
+            cause = (cause.getCause() != cause) ? cause.getCause() : null;
+        }
+        return (RejectedAnalysisException)cause;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param message The error message.
+     */
+    public RejectedAnalysisException(String message) {
+        super(message);
+    }
+}
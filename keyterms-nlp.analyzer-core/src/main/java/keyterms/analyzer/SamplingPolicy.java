@@ -0,0 +1,332 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A policy for analyzing large inputs from a portion of their content.
+ *
+ * <p> A sample consists of the head of the input followed by a fixed number of windows spaced evenly over the rest of
+ * the input. Windows can only be placed in seekable channels; the sample of any other channel is simply a longer head
+ * of the same total size. </p>
+ * <p> Windows in ASCII compatible data are trimmed so that they do not start or end within a UTF-8 sequence, and
+ * windows in other data (such as UTF-16) are aligned on four byte boundaries. </p>
+ */
+public class SamplingPolicy
+        implements Serializable {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = -4637208468730195562L;
+
+    /**
+     * The default sampling policy: a 64 KiB head plus eight 8 KiB windows.
+     */
+    public static final SamplingPolicy DEFAULT = new SamplingPolicy(64 * 1024, 8, 8 * 1024);
+
+    /**
+     * The number of bytes read from the beginning of the input.
+     */
+    private final int headSize;
+
+    /**
+     * The number of windows read from the rest of the input.
+     */
+    private final int windowCount;
+
+    /**
+     * The number of bytes in each window.
+     */
+    private final int windowSize;
+
+    /**
+     * Constructor.
+     *
+     * @param headSize The number of bytes read from the beginning of the input.
+     * @param windowCount The number of windows read from the rest of the input.
+     * @param windowSize The number of bytes in each window.
+     */
+    public SamplingPolicy(int headSize, int windowCount, int windowSize) {
+        super();
+        if (headSize <= 0) {
+            throw new IllegalArgumentException("Invalid sample head size: " + headSize);
+        }
+        if ((windowCount < 0) || ((windowCount > 0) && (windowSize < 4))) {
+            throw new IllegalArgumentException("Invalid sample windows: " + windowCount + " x " + windowSize);
+        }
+        if ((long)headSize + (long)windowCount * windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Sample size is too large.");
+        }
+        this.headSize = headSize;
+        this.windowCount = windowCount;
+        this.windowSize = (windowCount > 0) ? windowSize : 0;
+    }
+
+    /**
+     * Get the number of bytes read from the beginning of the input.
+     *
+     * @return The number of bytes read from the beginning of the input.
+     */
+    public int getHeadSize() {
+        return headSize;
+    }
+
+    /**
+     * Get the number of windows read from the rest of the input.
+     *
+     * @return The number of windows read from the rest of the input.
+     */
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    /**
+     * Get the number of bytes in each window.
+     *
+     * @return The number of bytes in each window.
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Get the maximum number of bytes in a sample.
+     *
+     * @return The maximum number of bytes in a sample.
+     */
+    public int getMaxSampleSize() {
+        return headSize + windowCount * windowSize;
+    }
+
+    /**
+     * Sample the remaining content of the specified channel.
+     *
+     * <p> The channel is read from its current position and is not closed. </p>
+     *
+     * @param channel The channel.
+     *
+     * @return The sample.
+     *
+     * @throws IOException for input errors.
+     */
+    public Sample sample(ReadableByteChannel channel)
+            throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("Channel is required.");
+        }
+        int maxSampleSize = getMaxSampleSize();
+        if (!(channel instanceof SeekableByteChannel)) {
+            byte[] data = read(channel, maxSampleSize);
+            if ((data.length < maxSampleSize) || (read(channel, 1).length == 0)) {
+                return new Sample(data, (long)data.length, true);
+            }
+            return new Sample(Arrays.copyOf(data, trimEnd(data, 0, data.length, isAsciiCompatible(data))),
+                    null, false);
+        }
+        SeekableByteChannel seekable = (SeekableByteChannel)channel;
+        long start = seekable.position();
+        long size = Math.max(0, seekable.size() - start);
+        if (size <= maxSampleSize) {
+            return new Sample(read(seekable, (int)size), size, true);
+        }
+        byte[] head = read(seekable, headSize);
+        boolean textual = isAsciiCompatible(head);
+        ByteArrayOutputStream sample = new ByteArrayOutputStream(maxSampleSize);
+        sample.write(head, 0, trimEnd(head, 0, head.length, textual));
+        long rest = size - headSize;
+        long spare = rest - (long)windowCount * windowSize;
+        for (int w = 1; w <= windowCount; w++) {
+            long offset = headSize + (spare * w / windowCount) + ((long)(w - 1) * windowSize);
+            offset -= (offset % 4);
+            seekable.position(start + offset);
+            byte[] window = read(seekable, windowSize);
+            int from = textual ? trimStart(window, 0, window.length) : 0;
+            int to = trimEnd(window, from, window.length, textual);
+            sample.write(window, from, to - from);
+        }
+        return new Sample(sample.toByteArray(), size, false);
+    }
+
+    /**
+     * Read up to the specified number of bytes from the channel.
+     *
+     * @param channel The channel.
+     * @param length The maximum number of bytes to read.
+     *
+     * @return The bytes read.
+     *
+     * @throws IOException for input errors.
+     */
+    private static byte[] read(ReadableByteChannel channel, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while ((buffer.hasRemaining()) && (channel.read(buffer) >= 0)) {
+            // Keep reading until the buffer is full or the channel is exhausted.
+        }
+        byte[] data = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Determine if the specified data appears to use an ASCII compatible encoding (no NUL bytes).
+     *
+     * @param data The data.
+     *
+     * @return A flag indicating whether the data appears to use an ASCII compatible encoding.
+     */
+    private static boolean isAsciiCompatible(byte[] data) {
+        for (byte b : data) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the start of the first complete UTF-8 sequence in the specified portion of the data.
+     *
+     * @param data The data.
+     * @param from The start of the portion (inclusive).
+     * @param to The end of the portion (exclusive).
+     *
+     * @return The start of the first complete sequence.
+     */
+    private static int trimStart(byte[] data, int from, int to) {
+        int start = from;
+        while ((start < to) && (start - from < 3) && ((data[start] & 0xC0) == 0x80)) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Find the end of the last complete UTF-8 sequence (or four byte unit for non-textual data) in the specified
+     * portion of the data.
+     *
+     * @param data The data.
+     * @param from The start of the portion (inclusive).
+     * @param to The end of the portion (exclusive).
+     * @param textual A flag indicating whether the data appears to use an ASCII compatible encoding.
+     *
+     * @return The end of the last complete sequence.
+     */
+    private static int trimEnd(byte[] data, int from, int to, boolean textual) {
+        if (!textual) {
+            return to - ((to - from) % 4);
+        }
+        for (int b = to - 1; (b >= from) && (b >= to - 3); b--) {
+            int value = data[b] & 0xFF;
+            if (value >= 0xC0) {
+                int sequenceLength = (value >= 0xF0) ? 4 : (value >= 0xE0) ? 3 : 2;
+                return (b + sequenceLength > to) ? b : to;
+            }
+            if (value < 0x80) {
+                break;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "SamplingPolicy[" + headSize + " + " + windowCount + " x " + windowSize + "]";
+    }
+
+    /**
+     * The sampled content of an input.
+     */
+    public static class Sample {
+        /**
+         * The sampled bytes.
+         */
+        private final byte[] data;
+
+        /**
+         * The size of the whole input ({@code null} if unknown).
+         */
+        private final Long size;
+
+        /**
+         * A flag indicating whether the sample contains the whole input.
+         */
+        private final boolean complete;
+
+        /**
+         * Constructor.
+         *
+         * @param data The sampled bytes.
+         * @param size The size of the whole input ({@code null} if unknown).
+         * @param complete A flag indicating whether the sample contains the whole input.
+         */
+        Sample(byte[] data, Long size, boolean complete) {
+            super();
+            this.data = data;
+            this.size = size;
+            this.complete = complete;
+        }
+
+        /**
+         * Get the sampled bytes.
+         *
+         * @return The sampled bytes.
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * Get the size of the whole input.
+         *
+         * @return The size of the whole input ({@code null} if unknown).
+         */
+        public Long getSize() {
+            return size;
+        }
+
+        /**
+         * Determine if the sample contains the whole input.
+         *
+         * @return A flag indicating whether the sample contains the whole input.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.LoggerFactory;
+
+import keyterms.util.lang.Lazy;
+import keyterms.util.text.Strings;
+
+/**
+ * Access to a virtual thread per task executor on runtimes which provide one.
+ *
+ * <p> The executor is located reflectively so that the analyzers remain usable on runtimes which predate virtual
+ * threads. </p>
+ * <p> Besides the pools which opt in individually, the system property {@code analyzer.virtual.threads} enables
+ * virtual threads for the work which waits on pools: asynchronous analyses by non-pooled analyzers (such as
+ * ensembles) and small core analyzer runs which would otherwise block the calling thread. </p>
+ */
+final class VirtualThreads {
+    /**
+     * The virtual thread per task executor, or {@code null} if the runtime does not support virtual threads.
+     */
+    private static final Lazy<ExecutorService> EXECUTOR = new Lazy<>(() -> {
+        ExecutorService executor = null;
+        try {
+            executor = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception error) {
+            LoggerFactory.getLogger(VirtualThreads.class)
+                    .warn("Virtual threads are not supported by this runtime; analyzer pools will use platform threads.");
+        }
+        return executor;
+    });
+
+    /**
+     * Determine if the runtime supports virtual threads.
+     *
+     * @return A flag indicating whether the runtime supports virtual threads.
+     */
+    static boolean isSupported() {
+        return (EXECUTOR.value() != null);
+    }
+
+    /**
+     * Determine if virtual threads are enabled for work which waits on analyzer pools.
+     *
+     * @return A flag indicating whether the {@code analyzer.virtual.threads} system property is set and the runtime
+     * supports virtual threads.
+     */
+    static boolean isEnabled() {
+        return ((Boolean.parseBoolean(Strings.trim(System.getProperty("analyzer.virtual.threads")))) &&
+                (isSupported()));
+    }
+
+    /**
+     * Get the shared virtual thread per task executor.
+     *
+     * @return The shared virtual thread per task executor, or {@code null} if the runtime does not support virtual
+     * threads.
+     */
+    static ExecutorService executor() {
+        return EXECUTOR.value();
+    }
+
+    /**
+     * Constructor.
+     */
+    private VirtualThreads() {
+        super();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer.text;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.LoggerFactory;
+
+import keyterms.analyzer.AnalyzerId;
+import keyterms.util.collect.Keyed;
+import keyterms.util.text.Strings;
+import keyterms.util.text.parser.Parsers;
+
+/**
+ * An ordered set of tiers of constituent analyzers which an ensemble consults one tier at a time, stopping as soon as
+ * the votes cast so far satisfy the stopping rule.
+ *
+ * <p> Cascades are written as the stopping rule followed by the tiers, separated by vertical bars, with the analyzers
+ * within a tier separated by commas (e.g. {@code "margin=0.5|jscript|cld2,icu,mozilla"}). </p>
+ */
+public class Cascade
+        implements Serializable {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = 2793367504451386151L;
+
+    /**
+     * The system property which specifies the cascade used by ensembles which have not been given one.
+     */
+    public static final String PROPERTY = "analyzer.cascade";
+
+    /**
+     * The rules which decide whether a tier's election settles a feature.
+     */
+    public enum Rule {
+        /**
+         * Every analyzer which voted ranked the same value first.
+         */
+        UNANIMOUS,
+        /**
+         * The winning value's share of the vote leads the runner up by at least the margin.
+         */
+        MARGIN
+    }
+
+    /**
+     * The most recently parsed default cascade, keyed by its specification ({@code null} valued if the specification
+     * is invalid).
+     */
+    private static volatile Keyed<String, Cascade> defaultCascade;
+
+    /**
+     * Get the cascade specified by the {@code analyzer.cascade} system property.
+     *
+     * <p> Each specification is parsed once. An invalid specification is logged and ignored, so that ensembles
+     * consult every analyzer rather than fail every analysis. </p>
+     *
+     * @return The default cascade ({@code null} if none, or an invalid one, has been specified).
+     */
+    public static Cascade getDefault() {
+        String spec = Strings.trim(System.getProperty(PROPERTY));
+        if (Strings.isBlank(spec)) {
+            return null;
+        }
+        Keyed<String, Cascade> current = defaultCascade;
+        if ((current == null) || (!spec.equals(current.getKey()))) {
+            Cascade cascade = null;
+            try {
+                cascade = parse(spec);
+            } catch (IllegalArgumentException error) {
+                LoggerFactory.getLogger(Cascade.class)
+                        .warn("Ignoring invalid {} setting: {} ({})", PROPERTY, spec, error.getMessage());
+            }
+            current = new Keyed<>(spec, cascade);
+            defaultCascade = current;
+        }
+        return current.getValue();
+    }
+
+    /**
+     * Parse the textual representation of a cascade.
+     *
+     * @param text The textual representation of the cascade.
+     *
+     * @return The equivalent cascade.
+     *
+     * @throws IllegalArgumentException if the text is not a valid cascade specification.
+     */
+    public static Cascade parse(CharSequence text) {
+        if (Strings.isBlank(text)) {
+            throw new IllegalArgumentException("Cascade specification is required.");
+        }
+        String[] parts = text.toString().split("\\|");
+        Keyed<String, String> rule = Parsers.parseKeyed(parts[0], "=");
+        List<Set<AnalyzerId>> tiers = new ArrayList<>();
+        for (int p = 1; p < parts.length; p++) {
+            Set<AnalyzerId> tier = new LinkedHashSet<>();
+            for (String id : parts[p].split(",")) {
+                AnalyzerId analyzerId = AnalyzerId.valueOf(Strings.trim(id));
+                if (analyzerId != null) {
+                    tier.add(analyzerId);
+                }
+            }
+            tiers.add(tier);
+        }
+        switch (Rule.valueOf(Strings.trim(rule.getKey()).toUpperCase())) {
+            case UNANIMOUS:
+                return unanimous(tiers);
+            case MARGIN:
+                if (Strings.isBlank(rule.getValue())) {
+                    throw new IllegalArgumentException("Cascade margin is required: " + text);
+                }
+                return margin(Parsers.parseDouble(rule.getValue()), tiers);
+            default:
+                throw new IllegalArgumentException("Invalid cascade rule: " + rule.getKey());
+        }
+    }
+
+    /**
+     * Create a cascade whose tiers stop when every analyzer which voted agrees.
+     *
+     * @param tiers The tiers of constituent analyzers in the order they are consulted.
+     *
+     * @return The cascade.
+     */
+    public static Cascade unanimous(List<Set<AnalyzerId>> tiers) {
+        return new Cascade(Rule.UNANIMOUS, 0.0, tiers);
+    }
+
+    /**
+     * Create a cascade whose tiers stop when the winning value leads by the specified share of the vote.
+     *
+     * @param margin The lead (between {@code 0} and {@code 1}) which settles the vote.
+     * @param tiers The tiers of constituent analyzers in the order they are consulted.
+     *
+     * @return The cascade.
+     */
+    public static Cascade margin(double margin, List<Set<AnalyzerId>> tiers) {
+        return new Cascade(Rule.MARGIN, margin, tiers);
+    }
+
+    /**
+     * The stopping rule.
+     */
+    private final Rule rule;
+
+    /**
+     * The lead which settles the vote under the margin rule.
+     */
+    private final double margin;
+
+    /**
+     * The tiers of constituent analyzers in the order they are consulted.
+     */
+    private final List<Set<AnalyzerId>> tiers;
+
+    /**
+     * Constructor.
+     *
+     * @param rule The stopping rule.
+     * @param margin The lead which settles the vote under the margin rule.
+     * @param tiers The tiers of constituent analyzers in the order they are consulted.
+     */
+    private Cascade(Rule rule, double margin, List<Set<AnalyzerId>> tiers) {
+        super();
+        if (!((margin >= 0) && (margin <= 1))) {
+            throw new IllegalArgumentException("Invalid cascade margin: " + margin);
+        }
+        if ((tiers == null) || (tiers.isEmpty()) || (tiers.stream().anyMatch((t) -> (t == null) || (t.isEmpty())))) {
+            throw new IllegalArgumentException("Cascade tiers are required.");
+        }
+        this.rule = rule;
+        this.margin = margin;
+        // New collections are used to avoid non-serializable implementations.
+        this.tiers = Collections.unmodifiableList(tiers.stream()
+                .map((t) -> Collections.unmodifiableSet(new LinkedHashSet<>(t)))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Get the stopping rule.
+     *
+     * @return The stopping rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get the lead which settles the vote under the margin rule.
+     *
+     * @return The lead which settles the vote under the margin rule.
+     */
+    public double getMargin() {
+        return margin;
+    }
+
+    /**
+     * Get the tiers of constituent analyzers in the order they are consulted.
+     *
+     * @return The tiers of constituent analyzers.
+     */
+    public List<Set<AnalyzerId>> getTiers() {
+        return tiers;
+    }
+
+    /**
+     * Determine if the specified election settles the feature under the stopping rule.
+     *
+     * <p> An election without votes never settles a feature. </p>
+     *
+     * @param election The election.
+     *
+     * @return A flag indicating whether the election settles the feature.
+     */
+    public boolean isDecided(Election<?> election) {
+        if (rule == Rule.UNANIMOUS) {
+            return election.isUnanimous();
+        }
+        List<? extends Keyed<?, Double>> results = election.getResults();
+        if (results.isEmpty()) {
+            return false;
+        }
+        double lead = results.get(0).getValue() - ((results.size() > 1) ? results.get(1).getValue() : 0.0);
+        return (lead >= margin);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        String ruleText = (rule == Rule.MARGIN)
+                ? "margin=" + margin
+                : rule.name().toLowerCase();
+        return ruleText + "|" + tiers.stream()
+                .map((t) -> t.stream().map(AnalyzerId::toString).collect(Collectors.joining(",")))
+                .collect(Collectors.joining("|"));
+    }
+}
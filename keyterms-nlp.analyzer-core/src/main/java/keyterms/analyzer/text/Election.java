@@ -32,10 +32,15 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisFeature;
+import keyterms.analyzer.AnalyzerId;
 import keyterms.util.collect.Keyed;
 import keyterms.util.math.Statistics;
 import keyterms.util.text.Strings;
@@ -56,6 +61,48 @@ public class Election<C> {
         HIGH_SCORE = highScore;
     }
 
+    /**
+     * Create an election from the ranked values of a feature produced by the constituent analyzers of an ensemble.
+     *
+     * <p> The votes of each analyzer are weighted so that an analyzer which produced results for several forms of the
+     * input carries no more weight than one which produced results for a single form. </p>
+     *
+     * @param analyzerResults The analysis results of each analyzer for each form of the input.
+     * @param feature The feature being elected.
+     * @param normalizer An optional function which normalizes the feature values (the analyses are not modified).
+     * @param maxRank The maximum rank to consider for the election.
+     * @param <C> The feature value class.
+     *
+     * @return The election.
+     */
+    public static <C> Election<C> of(Map<Object, Map<AnalyzerId, List<Analysis>>> analyzerResults,
+            AnalysisFeature<C> feature, UnaryOperator<C> normalizer, int maxRank) {
+        Map<String, Double> countsPerAnalyzer = new HashMap<>();
+        analyzerResults.forEach((i, ir) -> ir.keySet().stream()
+                .map(AnalyzerId::getAnalyzerId)
+                .forEach((analyzerId) -> countsPerAnalyzer.compute(analyzerId, (id, count) ->
+                        (count != null) ? count + 1 : 1)));
+        Election<C> election = new Election<>(maxRank);
+        analyzerResults.forEach((i, ir) -> {
+            if (!ir.isEmpty()) {
+                ir.forEach((analyzer, results) -> {
+                    double weight = 1.0 / countsPerAnalyzer.get(analyzer.getAnalyzerId());
+                    for (int r = 0; r < results.size(); r++) {
+                        Analysis result = results.get(r);
+                        C value = result.get(feature);
+                        if (normalizer != null) {
+                            value = normalizer.apply(value);
+                        }
+                        if (value != null) {
+                            election.add(value, r + 1, weight);
+                        }
+                    }
+                });
+            }
+        });
+        return election;
+    }
+
     /**
      * The maximum rank to consider for the election.
      */
@@ -97,6 +144,29 @@ public class Election<C> {
         weightedVotes.add(new WeightedVote(value, rank, weight));
     }
 
+    /**
+     * Determine if every vote for a first choice was cast for the same value.
+     *
+     * <p> An election without first choice votes is not unanimous. </p>
+     *
+     * @return A flag indicating whether the first choice votes are unanimous.
+     */
+    public boolean isUnanimous() {
+        C first = null;
+        boolean voted = false;
+        for (WeightedVote wv : weightedVotes) {
+            if (wv.rank == 1) {
+                if (!voted) {
+                    first = wv.value;
+                    voted = true;
+                } else if (!Objects.equals(first, wv.value)) {
+                    return false;
+                }
+            }
+        }
+        return voted;
+    }
+
     /**
      * Tally the weighted votes in the election under the simple rank voting scheme.
      *
@@ -27,23 +27,28 @@
 package keyterms.analyzer.text;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import keyterms.analyzer.Analysis;
 import keyterms.analyzer.AnalysisFeature;
 import keyterms.analyzer.Analyzer;
 import keyterms.analyzer.AnalyzerId;
 import keyterms.analyzer.CoreAnalyzers;
+import keyterms.analyzer.SamplingPolicy;
 import keyterms.nlp.iso.Language;
 import keyterms.nlp.iso.Script;
 import keyterms.util.collect.Bags;
+import keyterms.util.collect.Keyed;
 import keyterms.util.io.Encoding;
 import keyterms.util.text.Strings;
 
@@ -53,6 +58,16 @@ import keyterms.util.text.Strings;
  * <p> Ensemble analyzers rely on concrete analyzers from the {@code CoreAnalyzers} instance. </p>
  * <p> Ensemble analyzers evaluate each text analysis feature semi-independently. </p>
  * <p> Ensemble analyzers produce only a single analysis which is not scored. </p>
+ * <p> When analyzing within a time budget, each feature is evaluated using whatever constituent analyses were
+ * completed in time. </p>
+ * <p> Constituent analyzers scheduled up front (see {@link #scheduleAnalyzers(Working)}) run once per form of the
+ * input, as soon as that form is available, and their results are shared by all of the identification phases. </p>
+ * <p> Large inputs can be analyzed from a sample (see {@code SamplingPolicy}), in which case the size reported is that
+ * of the whole input. </p>
+ * <p> The binary and text forms of the input are only built when a constituent analyzer needs them, and binary input
+ * is decoded at most once per candidate character encoding. </p>
+ * <p> Ensembles with a {@code Cascade} consult its tiers of analyzers in order and stop as soon as a tier settles the
+ * feature, recording the number of tiers consulted as the {@link #TIER} feature. </p>
  */
 public abstract class EnsembleAnalyzer
         extends Analyzer {
@@ -68,11 +83,17 @@ public abstract class EnsembleAnalyzer
             byte[].class, CharSequence.class
     );
 
+    /**
+     * The number of cascade tiers consulted before every feature was settled (one more than the number of tiers if
+     * the full ensemble had to decide).
+     */
+    public static final AnalysisFeature<Integer> TIER = new AnalysisFeature<>("tier", Integer.class);
+
     /**
      * The analysis features that the analyzer can produce.
      */
     public static final Set<AnalysisFeature<?>> OUTPUT_FEATURES = Bags.staticSet(
-            TextInfo.SIZE, TextInfo.ENCODING, TextInfo.LENGTH, TextInfo.LANGUAGE, TextInfo.SCRIPT
+            TextInfo.SIZE, TextInfo.ENCODING, TextInfo.LENGTH, TextInfo.LANGUAGE, TextInfo.SCRIPT, TIER
     );
 
     /**
@@ -85,6 +106,11 @@ public abstract class EnsembleAnalyzer
      */
     public static final boolean PRODUCES_SCORES = false;
 
+    /**
+     * The tiers of constituent analyzers consulted before the full ensemble ({@code null} for the default).
+     */
+    private Cascade cascade;
+
     /**
      * Constructor.
      */
@@ -92,19 +118,49 @@ public abstract class EnsembleAnalyzer
         super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
     }
 
+    /**
+     * Get the tiers of constituent analyzers consulted before the full ensemble.
+     *
+     * <p> Ensembles without a cascade of their own use the cascade specified by the {@code analyzer.cascade} system
+     * property, if any. </p>
+     *
+     * @return The cascade ({@code null} if every analysis uses the full ensemble).
+     */
+    public Cascade getCascade() {
+        return (cascade != null) ? cascade : Cascade.getDefault();
+    }
+
+    /**
+     * Set the tiers of constituent analyzers consulted before the full ensemble.
+     *
+     * @param cascade The cascade ({@code null} for the default).
+     */
+    public void setCascade(Cascade cascade) {
+        this.cascade = cascade;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void _analyze(Object input, Consumer<Analysis> collector) {
+        _analyze(input, null, collector);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _analyze(Object input, Duration budget, Consumer<Analysis> collector) {
         Working working = startIdentification(input);
+        working.setBudget(budget);
+        scheduleAnalyzers(working);
         if (working.isBinary) {
             identifyEncoding(working);
             if (working.textInfo.getEncoding() != null) {
                 Charset encoding = Encoding.getCharset(working.textInfo.getEncoding());
                 if (encoding != null) {
-                    working.inputText = Encoding.decode(working.inputData, encoding);
-                    working.setLength(working.inputText.length());
+                    working.decode(encoding);
                 }
             }
         }
@@ -113,6 +169,14 @@ public abstract class EnsembleAnalyzer
         collector.accept(working.textInfo);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        TextInfo.describeSampled(sample, results);
+    }
+
     /**
      * Start the analysis process for an individual input.
      *
@@ -122,6 +186,72 @@ public abstract class EnsembleAnalyzer
      */
     protected abstract Working startIdentification(Object input);
 
+    /**
+     * Schedule the constituent analyzers needed by any of the identification phases.
+     *
+     * <p> Scheduled analyzers which accept binary input start immediately, while those which accept text start as
+     * soon as the text form of the input is known. </p>
+     * <p> By default nothing is scheduled and each phase runs its analyzers when it asks for their results. </p>
+     *
+     * @param working The working analysis.
+     */
+    protected void scheduleAnalyzers(Working working) {
+        // Intentional NoOp
+    }
+
+    /**
+     * Limit the specified analyzer filter to the first tier of the cascade, if any.
+     *
+     * <p> Ensembles with a cascade should schedule only the first tier, leaving later tiers to start on demand. </p>
+     *
+     * @param idFilter A filter used to remove specific products from execution.
+     *
+     * @return The filter limited to the first tier of the cascade.
+     */
+    protected Predicate<AnalyzerId> firstTier(Predicate<AnalyzerId> idFilter) {
+        Cascade cascade = getCascade();
+        return (cascade == null) ? idFilter : (id) -> ((cascade.getTiers().get(0).contains(id)) &&
+                ((idFilter == null) || (idFilter.test(id))));
+    }
+
+    /**
+     * Elect the value of the specified feature by consulting the tiers of the cascade in order.
+     *
+     * <p> Each tier's election includes the votes of all of the tiers before it. </p>
+     *
+     * @param working The working analysis.
+     * @param idFilter A filter used to remove specific products from execution.
+     * @param feature The feature being elected.
+     * @param normalizer An optional function which normalizes the feature values.
+     * @param maxVotes The maximum number of votes per analyzer to consider in an election.
+     * @param <C> The feature value class.
+     *
+     * @return The results of the election which settled the feature, or {@code null} if there is no cascade or no
+     * tier settled the feature.
+     */
+    protected <C> List<Keyed<C, Double>> elect(Working working, Predicate<AnalyzerId> idFilter,
+            AnalysisFeature<C> feature, UnaryOperator<C> normalizer, int maxVotes) {
+        Cascade cascade = getCascade();
+        if (cascade == null) {
+            return null;
+        }
+        List<Set<AnalyzerId>> tiers = cascade.getTiers();
+        Set<AnalyzerId> consulted = new HashSet<>();
+        for (int t = 0; t < tiers.size(); t++) {
+            consulted.addAll(tiers.get(t));
+            Election<C> election = Election.of(working.runAnalyzers(
+                    (id) -> ((consulted.contains(id)) && ((idFilter == null) || (idFilter.test(id)))),
+                    (analyzer) -> analyzer.produces(feature)),
+                    feature, normalizer, maxVotes);
+            if (cascade.isDecided(election)) {
+                working.recordTier(t + 1);
+                return election.getResults();
+            }
+        }
+        working.recordTier(tiers.size() + 1);
+        return null;
+    }
+
     /**
      * Identify the character encoding of the input data.
      *
@@ -147,15 +277,29 @@ public abstract class EnsembleAnalyzer
      * Working information for the ensemble processes.
      */
     protected static class Working {
+        /**
+         * The kinds of input representation for which constituent analyses are kept.
+         */
+        private enum Form {
+            /**
+             * The binary form of the input data.
+             */
+            BINARY,
+            /**
+             * The original text input.
+             */
+            TEXT
+        }
+
         /**
          * The working text information.
          */
         private final TextInfo textInfo;
 
         /**
-         * The binary form of the input data.
+         * The binary form of the input data ({@code null} until needed for text input).
          */
-        private final byte[] inputData;
+        private byte[] inputData;
 
         /**
          * A flag indicating whether the original input was binary data.
@@ -168,9 +312,35 @@ public abstract class EnsembleAnalyzer
         private String inputText;
 
         /**
-         * A map of prior analysis results.
+         * The representation kind of the current text form of the input data.
+         */
+        private Object textForm;
+
+        /**
+         * The representation kind of the text decoded with each candidate character encoding.
+         */
+        private final Map<Charset, Object> decodings = new HashMap<>();
+
+        /**
+         * The distinct text forms of the input data keyed by representation kind.
+         */
+        private final Map<Object, String> texts = new HashMap<>();
+
+        /**
+         * The analyzers to run on each form of the input as soon as it is available.
+         */
+        private final Map<AnalyzerId, Analyzer> scheduledAnalyzers = new HashMap<>();
+
+        /**
+         * The pending and completed analysis results for each representation kind of the input.
+         */
+        private final Map<Object, Map<AnalyzerId, CompletableFuture<List<Analysis>>>> analyzerResults =
+                new HashMap<>();
+
+        /**
+         * The {@code System.nanoTime()} by which the analysis must complete ({@code null} for no limit).
          */
-        private final Map<Object, Map<AnalyzerId, List<Analysis>>> priorResults = new HashMap<>();
+        private Long deadline;
 
         /**
          * Constructor.
@@ -183,13 +353,51 @@ public abstract class EnsembleAnalyzer
             isBinary = (input instanceof byte[]);
             if (isBinary) {
                 inputData = (byte[])input;
+                textInfo.setSize(inputData.length);
             } else {
                 inputText = Strings.toString(input);
-                inputData = Encoding.encode(inputText, Encoding.UTF8);
+                textForm = Form.TEXT;
+                texts.put(Form.TEXT, inputText);
+                // The binary form is the UTF-8 encoding of the text, so decoding it as UTF-8 yields the same text.
+                decodings.put(Encoding.UTF8, Form.TEXT);
                 textInfo.setEncoding(Encoding.UTF8.name());
                 textInfo.setLength(inputText.length());
+                textInfo.setSize(utf8Size(inputText));
             }
-            textInfo.setSize(inputData.length);
+        }
+
+        /**
+         * Compute the size of the UTF-8 encoding of the specified text without encoding it.
+         *
+         * <p> Unpaired surrogates count as the single replacement byte written by the UTF-8 encoder. </p>
+         *
+         * @param text The text.
+         *
+         * @return The size of the UTF-8 encoding of the text.
+         */
+        private static int utf8Size(String text) {
+            int size = 0;
+            int length = text.length();
+            for (int c = 0; c < length; c++) {
+                char ch = text.charAt(c);
+                if (ch < 0x80) {
+                    size++;
+                } else if (ch < 0x800) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(ch)) {
+                    if ((c + 1 < length) && (Character.isLowSurrogate(text.charAt(c + 1)))) {
+                        size += 4;
+                        c++;
+                    } else {
+                        size++;
+                    }
+                } else if (Character.isLowSurrogate(ch)) {
+                    size++;
+                } else {
+                    size += 3;
+                }
+            }
+            return size;
         }
 
         /**
@@ -211,9 +419,14 @@ public abstract class EnsembleAnalyzer
         /**
          * Get the binary form of the input data.
          *
+         * <p> The binary form of text input is its UTF-8 encoding, which is built on first use. </p>
+         *
          * @return The binary form of the input data.
          */
         public byte[] getInputData() {
+            if (inputData == null) {
+                inputData = Encoding.encode(texts.get(Form.TEXT), Encoding.UTF8);
+            }
             return inputData;
         }
 
@@ -226,6 +439,35 @@ public abstract class EnsembleAnalyzer
             return inputText;
         }
 
+        /**
+         * Make the binary data decoded with the specified character encoding the text form of the input data,
+         * starting any scheduled analyzers which accept text.
+         *
+         * <p> Each candidate encoding is decoded at most once, and decodings which produce text equal to an earlier
+         * decoding share that decoding's text and analysis results. </p>
+         *
+         * @param charset The character encoding.
+         */
+        private void decode(Charset charset) {
+            Object form = decodings.get(charset);
+            if (form == null) {
+                String decoded = Encoding.decode(getInputData(), charset);
+                form = texts.entrySet().stream()
+                        .filter((e) -> e.getValue().equals(decoded))
+                        .map(Map.Entry::getKey)
+                        .findFirst()
+                        .orElse(charset);
+                texts.putIfAbsent(form, decoded);
+                decodings.put(charset, form);
+            }
+            textForm = form;
+            inputText = texts.get(form);
+            textInfo.setLength(inputText.length());
+            if (!Strings.isBlank(inputText)) {
+                submit(textForm, scheduledAnalyzers);
+            }
+        }
+
         /**
          * Get the binary size of the associated text input.
          *
@@ -253,15 +495,12 @@ public abstract class EnsembleAnalyzer
             String oldEncoding = textInfo.getEncoding();
             textInfo.setEncoding(encoding);
             if ((!Strings.isBlank(oldEncoding)) || (!Objects.equals(oldEncoding, textInfo.getEncoding()))) {
-                Integer length = null;
-                if (!Strings.isBlank(encoding)) {
-                    Charset charset = Encoding.getCharset(encoding);
-                    if (charset != null) {
-                        inputText = Encoding.decode(inputData, charset);
-                        length = inputText.length();
-                    }
+                Charset charset = (!Strings.isBlank(encoding)) ? Encoding.getCharset(encoding) : null;
+                if (charset != null) {
+                    decode(charset);
+                } else {
+                    textInfo.setLength(null);
                 }
-                textInfo.setLength(length);
             }
         }
 
@@ -283,6 +522,15 @@ public abstract class EnsembleAnalyzer
             textInfo.setLength(length);
         }
 
+        /**
+         * Set the length of the associated text.
+         *
+         * @param length The length of the associated text.
+         */
+        public void setLength(int length) {
+            textInfo.setLength(length);
+        }
+
         /**
          * Get the language of the associated text.
          *
@@ -319,6 +567,35 @@ public abstract class EnsembleAnalyzer
             textInfo.setScript(script);
         }
 
+        /**
+         * Set the time allowed for the analysis, starting now.
+         *
+         * @param budget The time allowed for the analysis ({@code null} for no limit).
+         */
+        protected void setBudget(Duration budget) {
+            deadline = (budget != null) ? System.nanoTime() + budget.toNanos() : null;
+        }
+
+        /**
+         * Get the time remaining for the analysis.
+         *
+         * @return The time remaining for the analysis ({@code null} for no limit).
+         */
+        public Duration getRemainingBudget() {
+            return (deadline != null) ? Duration.ofNanos(Math.max(0, deadline - System.nanoTime())) : null;
+        }
+
+        /**
+         * Record the number of cascade tiers consulted to settle a feature.
+         *
+         * @param tier The number of cascade tiers consulted.
+         */
+        protected void recordTier(int tier) {
+            if (tier > textInfo.getInt(TIER, 0)) {
+                textInfo.setInt(TIER, tier);
+            }
+        }
+
         /**
          * Get the working analysis.
          *
@@ -329,7 +606,24 @@ public abstract class EnsembleAnalyzer
         }
 
         /**
-         * Run all acceptable analyzers, reusing any prior results on equivalent data.
+         * Schedule the analyzers which match the specified filters to run on each form of the input as soon as it is
+         * available.
+         *
+         * @param idFilter A filter used to remove specific products from execution.
+         * @param analyzerFilter A filter used to screen out unwanted analyzers.
+         */
+        public void schedule(Predicate<AnalyzerId> idFilter, Predicate<Analyzer> analyzerFilter) {
+            scheduledAnalyzers.putAll(CoreAnalyzers.getInstance().get(idFilter, analyzerFilter));
+            submit(Form.BINARY, scheduledAnalyzers);
+            if (!Strings.isBlank(inputText)) {
+                submit(textForm, scheduledAnalyzers);
+            }
+        }
+
+        /**
+         * Run all acceptable analyzers, reusing any prior or scheduled results on equivalent data.
+         *
+         * <p> Analyzers which do not complete within the remaining time budget are left out of the results. </p>
          *
          * @param idFilter A filter used to remove specific products from execution.
          * @param analyzerFilter A filter used to screen out unwanted analyzers.
@@ -340,52 +634,71 @@ public abstract class EnsembleAnalyzer
                 Predicate<AnalyzerId> idFilter,
                 Predicate<Analyzer> analyzerFilter) {
             Map<Object, Map<AnalyzerId, List<Analysis>>> results = new HashMap<>();
-            if (inputData != null) {
-                Map<AnalyzerId, List<Analysis>> analyzerResults = runAnalyzers(inputData, idFilter, analyzerFilter);
-                priorResults.computeIfAbsent(inputData, (o) -> new HashMap<>()).putAll(analyzerResults);
-                results.put(inputData, analyzerResults);
+            Map<AnalyzerId, Analyzer> analyzers = CoreAnalyzers.getInstance().get(idFilter, analyzerFilter);
+            // Both forms of the input are submitted before waiting on either.
+            Map<AnalyzerId, CompletableFuture<List<Analysis>>> dataResults = submit(Form.BINARY, analyzers);
+            Map<AnalyzerId, CompletableFuture<List<Analysis>>> textResults = (!Strings.isBlank(inputText))
+                    ? submit(textForm, analyzers)
+                    : null;
+            if (!dataResults.isEmpty()) {
+                results.put(getInputData(), join(dataResults, analyzers.keySet()));
             }
-            if (!Strings.isBlank(inputText)) {
-                Map<AnalyzerId, List<Analysis>> analyzerResults = runAnalyzers(inputText, idFilter, analyzerFilter);
-                priorResults.computeIfAbsent(inputText, (o) -> new HashMap<>()).putAll(analyzerResults);
-                results.put(inputText, analyzerResults);
+            if (textResults != null) {
+                results.put(inputText, join(textResults, analyzers.keySet()));
             }
             return results;
         }
 
         /**
-         * Run all acceptable analyzers, reusing any prior results on equivalent data.
+         * Start the specified analyzers on the specified representation of the input unless they have already been
+         * started on it.
          *
-         * @param input The input data.
-         * @param idFilter A filter used to remove specific products from execution.
-         * @param analyzerFilter A filter used to screen out unwanted analyzers.
+         * <p> The representation itself is only built if one of the analyzers needs to run on it. </p>
          *
-         * @return The analysis results from all matching analyzers.
+         * @param form The representation kind.
+         * @param analyzers The analyzers.
+         *
+         * @return The pending and completed analysis results for the representation.
          */
-        private Map<AnalyzerId, List<Analysis>> runAnalyzers(Object input,
-                Predicate<AnalyzerId> idFilter,
-                Predicate<Analyzer> analyzerFilter) {
-            Map<AnalyzerId, List<Analysis>> results = new HashMap<>();
-            if (input != null) {
-                Set<AnalyzerId> reused = new HashSet<>();
-                Map<AnalyzerId, List<Analysis>> prior = priorResults.get(input);
-                if (prior != null) {
-                    prior.forEach((id, analyzerResults) -> {
-                        if ((idFilter == null) || (idFilter.test(id))) {
-                            Analyzer analyzer = CoreAnalyzers.getInstance().get(id);
-                            if (((analyzerFilter == null) || (analyzerFilter.test(analyzer))) &&
-                                    (analyzer.accepts(input.getClass()))) {
-                                reused.add(id);
-                                results.put(id, analyzerResults);
-                            }
-                        }
-                    });
+        private Map<AnalyzerId, CompletableFuture<List<Analysis>>> submit(Object form,
+                Map<AnalyzerId, Analyzer> analyzers) {
+            Map<AnalyzerId, CompletableFuture<List<Analysis>>> inputResults =
+                    analyzerResults.computeIfAbsent(form, (f) -> new HashMap<>());
+            Class<?> inputClass = (form == Form.BINARY) ? byte[].class : String.class;
+            Set<AnalyzerId> toRun = new HashSet<>();
+            analyzers.forEach((id, analyzer) -> {
+                if ((!inputResults.containsKey(id)) && (analyzer.accepts(inputClass))) {
+                    toRun.add(id);
                 }
-                results.putAll(CoreAnalyzers.getInstance().run(input,
-                        (id) -> ((!reused.contains(id)) && ((idFilter == null) || (idFilter.test(id)))),
-                        analyzerFilter));
+            });
+            if (!toRun.isEmpty()) {
+                Object input = (form == Form.BINARY) ? getInputData() : texts.get(form);
+                CompletableFuture<Map<AnalyzerId, List<Analysis>>> run = CoreAnalyzers.getInstance()
+                        .runAsync(input, toRun::contains, null, getRemainingBudget());
+                toRun.forEach((id) -> inputResults.put(id, run.thenApply((results) -> results.get(id))));
             }
+            return inputResults;
+        }
+
+        /**
+         * Wait for the results of the specified analyzers.
+         *
+         * @param inputResults The pending and completed analysis results for an input.
+         * @param ids The identifiers of the analyzers of interest.
+         *
+         * @return The non-empty results of the specified analyzers.
+         */
+        private Map<AnalyzerId, List<Analysis>> join(Map<AnalyzerId, CompletableFuture<List<Analysis>>> inputResults,
+                Set<AnalyzerId> ids) {
+            Map<AnalyzerId, List<Analysis>> results = new HashMap<>();
+            ids.forEach((id) -> {
+                CompletableFuture<List<Analysis>> result = inputResults.get(id);
+                List<Analysis> analysis = (result != null) ? result.join() : null;
+                if (analysis != null) {
+                    results.put(id, analysis);
+                }
+            });
             return results;
         }
     }
-}
\ No newline at end of file
+}
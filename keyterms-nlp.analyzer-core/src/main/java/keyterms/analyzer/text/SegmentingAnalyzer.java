@@ -0,0 +1,290 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer.text;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisFeature;
+import keyterms.analyzer.Analyzer;
+import keyterms.analyzer.AnalyzerId;
+import keyterms.analyzer.CoreAnalyzers;
+import keyterms.analyzer.RejectedAnalysisException;
+import keyterms.nlp.iso.Language;
+import keyterms.nlp.iso.Script;
+import keyterms.nlp.text.SentenceSplitter;
+import keyterms.util.collect.Bags;
+import keyterms.util.collect.Keyed;
+import keyterms.util.text.Strings;
+import keyterms.util.text.TextSplitter;
+
+/**
+ * A text analyzer which identifies the language and script of each part of a mixed-language text.
+ *
+ * <p> The text is split into sentences using language neutral boundary rules (or into fixed length windows), the
+ * constituent analyzers from the {@code CoreAnalyzers} singleton vote on the language and script of every segment,
+ * and neighbouring segments which agree are merged into a single span. One analysis is produced per span, in text
+ * order, with the character {@link #OFFSET} and {@link TextInfo#LENGTH} of the span. The spans cover the whole text.
+ * </p>
+ * <p> All of the segments are submitted to the analyzer pools before any results are collected. </p>
+ * <p> Segments for which no language is identified (e.g. numbers or punctuation) are attached to the preceding span.
+ * </p>
+ * <p> Like the voting ensemble, this class is inherently thread safe. </p>
+ */
+public class SegmentingAnalyzer
+        extends Analyzer {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = 6103618873722405281L;
+
+    /**
+     * The types of input accepted by the analyzer.
+     */
+    public static final Set<Class<?>> INPUT_CLASSES = Bags.staticSet(
+            CharSequence.class
+    );
+
+    /**
+     * The character offset of a span within the analyzed text.
+     */
+    public static final AnalysisFeature<Integer> OFFSET = new AnalysisFeature<>("offset", Integer.class);
+
+    /**
+     * The analysis features that the analyzer can produce.
+     */
+    public static final Set<AnalysisFeature<?>> OUTPUT_FEATURES = Bags.staticSet(
+            OFFSET, TextInfo.LENGTH, TextInfo.LANGUAGE, TextInfo.SCRIPT
+    );
+
+    /**
+     * A flag indicating whether the analyzer produces multiple analyses.
+     */
+    public static final boolean PRODUCES_RANKINGS = true;
+
+    /**
+     * A flag indicating whether the analyzer produces meaningful scores.
+     */
+    public static final boolean PRODUCES_SCORES = false;
+
+    /**
+     * The maximum number of votes per analyzer to consider in an election.
+     */
+    private static final int MAX_VOTES = 5;
+
+    /**
+     * Get a text splitter which breaks text into windows of approximately the specified length.
+     *
+     * <p> Windows end at the last white space within the window where possible and never split a surrogate pair.
+     * </p>
+     *
+     * @param windowLength The maximum length of a window.
+     *
+     * @return The text splitter.
+     */
+    public static TextSplitter windows(int windowLength) {
+        if (windowLength < 2) {
+            throw new IllegalArgumentException("Invalid window length: " + windowLength);
+        }
+        return (text) -> {
+            List<String> windows = new ArrayList<>();
+            if (!Strings.isEmpty(text)) {
+                int start = 0;
+                while (start < text.length()) {
+                    int end = Math.min(start + windowLength, text.length());
+                    if (end < text.length()) {
+                        int space = end;
+                        while ((space > start) && (!Character.isWhitespace(text.charAt(space - 1)))) {
+                            space--;
+                        }
+                        end = (space > start) ? space : end;
+                        if ((end - 1 > start) && (Character.isHighSurrogate(text.charAt(end - 1)))) {
+                            end--;
+                        }
+                    }
+                    windows.add(text.subSequence(start, end).toString());
+                    start = end;
+                }
+            }
+            return windows;
+        };
+    }
+
+    /**
+     * The set of identifiers for analyzers to include in the voting.
+     */
+    private final Set<AnalyzerId> analyzerIds;
+
+    /**
+     * The maximum length of a segment ({@code 0} to split the text into sentences).
+     */
+    private final int windowLength;
+
+    /**
+     * Constructor.
+     *
+     * <p> The text is split into sentences and all available analyzers vote. </p>
+     */
+    public SegmentingAnalyzer() {
+        this(null, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param analyzerIds The set of identifiers for analyzers to include in the voting.
+     * @param windowLength The maximum length of a segment ({@code 0} to split the text into sentences).
+     */
+    public SegmentingAnalyzer(Set<AnalyzerId> analyzerIds, int windowLength) {
+        super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
+        if ((windowLength < 0) || (windowLength == 1)) {
+            throw new IllegalArgumentException("Invalid window length: " + windowLength);
+        }
+        this.analyzerIds = analyzerIds;
+        this.windowLength = windowLength;
+    }
+
+    /**
+     * Determine if the specified analyzer is included in the voting.
+     *
+     * @param id The analyzer identifier.
+     *
+     * @return A flag indicating whether the specified analyzer is included in the voting.
+     */
+    private boolean isVoter(AnalyzerId id) {
+        return ((analyzerIds == null) || (analyzerIds.isEmpty()) || (analyzerIds.contains(id)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _analyze(Object input, Consumer<Analysis> collector) {
+        _analyze(input, null, collector);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _analyze(Object input, Duration budget, Consumer<Analysis> collector) {
+        String text = input.toString();
+        TextSplitter splitter = (windowLength > 0)
+                ? windows(windowLength)
+                : new SentenceSplitter(Locale.ROOT);
+        List<String> segments = splitter.split(text);
+        // All of the segments are submitted before waiting on any of them.
+        List<CompletableFuture<Map<AnalyzerId, List<Analysis>>>> pending = new ArrayList<>();
+        for (String segment : segments) {
+            pending.add((!Strings.isBlank(segment))
+                    ? CoreAnalyzers.getInstance().runAsync(segment, this::isVoter,
+                    (analyzer) -> ((analyzer.produces(TextInfo.LANGUAGE)) || (analyzer.produces(TextInfo.SCRIPT))),
+                    budget)
+                    : CompletableFuture.completedFuture(Collections.emptyMap()));
+        }
+        TextInfo span = null;
+        int cursor = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            String segment = segments.get(s);
+            int offset = text.indexOf(segment, cursor);
+            offset = (offset >= 0) ? offset : cursor;
+            cursor = offset + segment.length();
+            Map<Object, Map<AnalyzerId, List<Analysis>>> results =
+                    Collections.singletonMap(segment, join(pending.get(s)));
+            Language language = winner(Election.of(results, TextInfo.LANGUAGE, null, MAX_VOTES));
+            Script script = winner(Election.of(results, TextInfo.SCRIPT, null, MAX_VOTES));
+            if ((language == null) || ((span != null) &&
+                    (Objects.equals(language, span.getLanguage())) && (Objects.equals(script, span.getScript())))) {
+                continue;
+            }
+            // The first span also covers any unidentified text before it.
+            int spanOffset = (span != null) ? offset : 0;
+            if (span != null) {
+                span.setLength(offset - span.getInt(OFFSET, 0));
+                collector.accept(span);
+            }
+            span = new TextInfo();
+            span.setInt(OFFSET, spanOffset);
+            span.setLanguage(language);
+            span.setScript(script);
+        }
+        if (span != null) {
+            span.setLength(text.length() - span.getInt(OFFSET, 0));
+            collector.accept(span);
+        }
+    }
+
+    /**
+     * Wait for the results of the constituent analyzers on a segment.
+     *
+     * @param pending The pending results.
+     *
+     * @return The results.
+     */
+    private static Map<AnalyzerId, List<Analysis>> join(CompletableFuture<Map<AnalyzerId, List<Analysis>>> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException error) {
+            RejectedAnalysisException rejected = RejectedAnalysisException.causeOf(error);
+            if (rejected != null) {
+                throw rejected;
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Get the winner of an election.
+     *
+     * @param election The election.
+     * @param <C> The feature value class.
+     *
+     * @return The winner of the election ({@code null} if no votes were cast).
+     */
+    private static <C> C winner(Election<C> election) {
+        List<Keyed<C, Double>> results = election.getResults();
+        return (!results.isEmpty()) ? results.get(0).getKey() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _dispose() {
+        // Intentional NoOp
+    }
+}
@@ -26,8 +26,11 @@
 
 package keyterms.analyzer.text;
 
+import java.util.List;
+
 import keyterms.analyzer.Analysis;
 import keyterms.analyzer.AnalysisFeature;
+import keyterms.analyzer.SamplingPolicy;
 import keyterms.nlp.iso.Language;
 import keyterms.nlp.iso.Script;
 import keyterms.nlp.iso.WrittenLanguage;
@@ -87,6 +90,28 @@ public class TextInfo
         return textInfo;
     }
 
+    /**
+     * Adjust the size and length in analyses of a sample so that they describe the whole input.
+     *
+     * <p> The size becomes the size of the whole input when it is known, and the length of text decoded from an
+     * incomplete sample is removed. </p>
+     *
+     * @param sample The sample which was analyzed.
+     * @param results The analyses of the sample.
+     */
+    public static void describeSampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        if (!sample.isComplete()) {
+            results.forEach((analysis) -> {
+                if ((sample.getSize() != null) && (analysis.contains(SIZE))) {
+                    analysis.setInt(SIZE, (int)Math.min(Integer.MAX_VALUE, sample.getSize()));
+                } else {
+                    analysis.remove(SIZE);
+                }
+                analysis.remove(LENGTH);
+            });
+        }
+    }
+
     /**
      * Constructor.
      */
@@ -103,6 +128,14 @@ public class TextInfo
         super(analysis);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TextInfo copy() {
+        return new TextInfo(this);
+    }
+
     /**
      * Get the binary size of the associated text input.
      *
@@ -121,6 +154,15 @@ public class TextInfo
         set(SIZE, size);
     }
 
+    /**
+     * Set the binary size of the associated text input.
+     *
+     * @param size The binary size of the associated text input.
+     */
+    public void setSize(int size) {
+        setInt(SIZE, size);
+    }
+
     /**
      * Get the name of the character encoding scheme for the associated text input.
      *
@@ -136,7 +178,31 @@ public class TextInfo
      * @param encoding The name of the character encoding scheme for the associated text input.
      */
     public void setEncoding(String encoding) {
-        set(ENCODING, Strings.toLowerCase(Strings.trim(encoding)));
+        set(ENCODING, isNormalized(encoding) ? encoding : Strings.toLowerCase(Strings.trim(encoding)));
+    }
+
+    /**
+     * Determine if the specified encoding name is already trimmed and in lower case.
+     *
+     * @param encoding The name of the character encoding scheme.
+     *
+     * @return A flag indicating whether the encoding name may be stored as is.
+     */
+    private static boolean isNormalized(String encoding) {
+        if ((encoding == null) || (encoding.isEmpty())) {
+            return true;
+        }
+        int last = encoding.length() - 1;
+        if ((encoding.charAt(0) <= ' ') || (encoding.charAt(last) <= ' ')) {
+            return false;
+        }
+        for (int c = 0; c <= last; c++) {
+            char ch = encoding.charAt(c);
+            if ((ch >= 0x80) || (Character.isUpperCase(ch))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -157,6 +223,15 @@ public class TextInfo
         set(LENGTH, length);
     }
 
+    /**
+     * Set the length of the associated text.
+     *
+     * @param length The length of the associated text.
+     */
+    public void setLength(int length) {
+        setInt(LENGTH, length);
+    }
+
     /**
      * Get the language of the associated text.
      *
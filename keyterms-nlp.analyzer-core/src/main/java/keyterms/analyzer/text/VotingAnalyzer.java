@@ -27,15 +27,15 @@
 package keyterms.analyzer.text;
 
 import java.nio.charset.Charset;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
-import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisFeature;
 import keyterms.analyzer.AnalyzerId;
 import keyterms.nlp.iso.Language;
 import keyterms.nlp.iso.Script;
+import keyterms.util.collect.Bags;
 import keyterms.util.collect.Keyed;
 import keyterms.util.io.Encoding;
 import keyterms.util.text.Strings;
@@ -47,6 +47,11 @@ import keyterms.util.text.Strings;
  * <p> Unlike the core {@code Analyzer} implementations, this class is inherently thread safe. </p>
  *
  * <p> Only binary ({@code byte[]}) and text inputs ({@code CharSequence} are accepted. </p>
+ *
+ * <p> By default every core analyzer votes except the pre-classifiers (such as the {@code SNIFF} encoding sniffer),
+ * which report only certain results at full confidence and would otherwise outweigh the statistical detectors. A
+ * pre-classifier votes only when the cascade names it, typically as the first tier
+ * (e.g. {@code "unanimous|SNIFF|ICU,MOZ"}). </p>
  */
 public class VotingAnalyzer
         extends EnsembleAnalyzer {
@@ -55,6 +60,13 @@ public class VotingAnalyzer
      */
     private static final int MAX_VOTES = 5;
 
+    /**
+     * The analyzers which are consulted by default only when named by the cascade.
+     */
+    private static final Set<AnalyzerId> PRE_CLASSIFIERS = Bags.staticSet(
+            new AnalyzerId("SNIFF")
+    );
+
     /**
      * Normalize the encoding name as much as possible so that equivalent entries will be seen as equal.
      *
@@ -107,39 +119,67 @@ public class VotingAnalyzer
         return new Working(input);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void scheduleAnalyzers(Working working) {
+        // Encodings are only elected for binary input.
+        boolean binary = working.isBinary();
+        working.schedule(firstTier(this::isVoter),
+                (analyzer) -> (((binary) && (analyzer.produces(TextInfo.ENCODING))) ||
+                        (analyzer.produces(TextInfo.LANGUAGE)) ||
+                        (analyzer.produces(TextInfo.SCRIPT))));
+    }
+
+    /**
+     * Determine if the specified analyzer is included in the voting.
+     *
+     * @param id The analyzer identifier.
+     *
+     * @return A flag indicating whether the specified analyzer is included in the voting.
+     */
+    private boolean isVoter(AnalyzerId id) {
+        if ((analyzerIds != null) && (!analyzerIds.isEmpty())) {
+            return analyzerIds.contains(id);
+        }
+        if (PRE_CLASSIFIERS.contains(id)) {
+            Cascade cascade = getCascade();
+            return ((cascade != null) && (cascade.getTiers().stream().anyMatch((tier) -> tier.contains(id))));
+        }
+        return true;
+    }
+
+    /**
+     * Elect the value of the specified feature, consulting the full ensemble only if the cascade (if any) does not
+     * settle it.
+     *
+     * @param working The working analysis.
+     * @param feature The feature being elected.
+     * @param normalizer An optional function which normalizes the feature values.
+     * @param <C> The feature value class.
+     *
+     * @return The election results.
+     */
+    private <C> List<Keyed<C, Double>> elect(Working working, AnalysisFeature<C> feature, UnaryOperator<C> normalizer) {
+        List<Keyed<C, Double>> electionResults = elect(working, this::isVoter, feature, normalizer, MAX_VOTES);
+        if (electionResults == null) {
+            electionResults = Election.of(
+                    working.runAnalyzers(this::isVoter, (analyzer) -> analyzer.produces(feature)),
+                    feature, normalizer, MAX_VOTES).getResults();
+        }
+        return electionResults;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void identifyEncoding(Working working) {
-        byte[] inputData = working.getInputData();
-        if ((inputData != null) && (inputData.length > 0)) {
-            Map<Object, Map<AnalyzerId, List<Analysis>>> encodingResults =
-                    working.runAnalyzers(
-                            (id) -> ((analyzerIds == null) || (analyzerIds.isEmpty()) || (analyzerIds.contains(id))),
-                            (analyzer) -> analyzer.produces(TextInfo.ENCODING));
-            Map<String, Double> countsPerAnalyzer = new HashMap<>();
-            encodingResults.forEach((i, ir) -> ir.keySet().stream()
-                    .map(AnalyzerId::getAnalyzerId)
-                    .forEach((analyzerId) -> countsPerAnalyzer.compute(analyzerId, (id, count) ->
-                            (count != null) ? count + 1 : 1)));
-            Election<String> encodingElection = new Election<>(MAX_VOTES);
-            encodingResults.forEach((i, ir) -> {
-                if (!ir.isEmpty()) {
-                    ir.forEach((analyzer, results) -> {
-                        double weight = 1.0 / countsPerAnalyzer.get(analyzer.getAnalyzerId());
-                        for (int r = 0; r < results.size(); r++) {
-                            Analysis result = results.get(r);
-                            String encoding = normalizeEncoding(result.get(TextInfo.ENCODING));
-                            result.set(TextInfo.ENCODING, encoding);
-                            if (encoding != null) {
-                                encodingElection.add(encoding, r + 1, weight);
-                            }
-                        }
-                    });
-                }
-            });
-            List<Keyed<String, Double>> electionResults = encodingElection.getResults();
+        Integer size = working.getSize();
+        if ((size != null) && (size > 0)) {
+            List<Keyed<String, Double>> electionResults =
+                    elect(working, TextInfo.ENCODING, VotingAnalyzer::normalizeEncoding);
             if (!electionResults.isEmpty()) {
                 working.setEncoding(electionResults.get(0).getKey());
             } else {
@@ -154,31 +194,7 @@ public class VotingAnalyzer
     @Override
     protected void identifyLanguage(Working working) {
         if (!Strings.isBlank(working.getInputText())) {
-            Map<Object, Map<AnalyzerId, List<Analysis>>> languageResults =
-                    working.runAnalyzers(
-                            (id) -> ((analyzerIds == null) || (analyzerIds.isEmpty()) || (analyzerIds.contains(id))),
-                            (analyzer) -> analyzer.produces(TextInfo.LANGUAGE));
-            Map<String, Double> countsPerAnalyzer = new HashMap<>();
-            languageResults.forEach((i, ir) -> ir.keySet().stream()
-                    .map(AnalyzerId::getAnalyzerId)
-                    .forEach((analyzerId) -> countsPerAnalyzer.compute(analyzerId, (id, count) ->
-                            (count != null) ? count + 1 : 1)));
-            Election<Language> languageElection = new Election<>(MAX_VOTES);
-            languageResults.forEach((i, ir) -> {
-                if (!ir.isEmpty()) {
-                    ir.forEach((analyzer, results) -> {
-                        double weight = 1.0 / countsPerAnalyzer.get(analyzer.getAnalyzerId());
-                        for (int r = 0; r < results.size(); r++) {
-                            Analysis result = results.get(r);
-                            Language language = result.get(TextInfo.LANGUAGE);
-                            if (language != null) {
-                                languageElection.add(language, r + 1, weight);
-                            }
-                        }
-                    });
-                }
-            });
-            List<Keyed<Language, Double>> electionResults = languageElection.getResults();
+            List<Keyed<Language, Double>> electionResults = elect(working, TextInfo.LANGUAGE, null);
             if (!electionResults.isEmpty()) {
                 working.setLanguage(electionResults.get(0).getKey());
             }
@@ -191,31 +207,7 @@ public class VotingAnalyzer
     @Override
     protected void identifyScript(Working working) {
         if (!Strings.isBlank(working.getInputText())) {
-            Map<Object, Map<AnalyzerId, List<Analysis>>> scriptResults =
-                    working.runAnalyzers(
-                            (id) -> ((analyzerIds == null) || (analyzerIds.isEmpty()) || (analyzerIds.contains(id))),
-                            (analyzer) -> analyzer.produces(TextInfo.SCRIPT));
-            Map<String, Double> countsPerAnalyzer = new HashMap<>();
-            scriptResults.forEach((i, ir) -> ir.keySet().stream()
-                    .map(AnalyzerId::getAnalyzerId)
-                    .forEach((analyzerId) -> countsPerAnalyzer.compute(analyzerId, (id, count) ->
-                            (count != null) ? count + 1 : 1)));
-            Election<Script> scriptElection = new Election<>(MAX_VOTES);
-            scriptResults.forEach((i, ir) -> {
-                if (!ir.isEmpty()) {
-                    ir.forEach((analyzer, results) -> {
-                        double weight = 1.0 / countsPerAnalyzer.get(analyzer.getAnalyzerId());
-                        for (int r = 0; r < results.size(); r++) {
-                            Analysis result = results.get(r);
-                            Script script = result.get(TextInfo.SCRIPT);
-                            if (script != null) {
-                                scriptElection.add(script, r + 1, weight);
-                            }
-                        }
-                    });
-                }
-            });
-            List<Keyed<Script, Double>> electionResults = scriptElection.getResults();
+            List<Keyed<Script, Double>> electionResults = elect(working, TextInfo.SCRIPT, null);
             if (!electionResults.isEmpty()) {
                 working.setScript(electionResults.get(0).getKey());
             }
@@ -0,0 +1,122 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import keyterms.analyzer.text.TextInfo;
+import keyterms.nlp.iso.Language;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AnalysisCache_UT {
+
+    private static final AnalyzerId ID = new AnalyzerId("TEST");
+
+    private static List<Analysis> analyses(String encoding) {
+        TextInfo textInfo = new TextInfo();
+        textInfo.set(TextInfo.ENCODING, encoding);
+        textInfo.setLanguage(Language.ENGLISH);
+        textInfo.setScore(0.5);
+        List<Analysis> analyses = new ArrayList<>();
+        analyses.add(textInfo);
+        return analyses;
+    }
+
+    @Test
+    public void copiesOnPutAndGet() {
+        AnalysisCache cache = new AnalysisCache(10);
+        List<Analysis> original = analyses("UTF-8");
+        cache.put(ID, "text", original);
+        original.get(0).set(TextInfo.ENCODING, "changed");
+        List<Analysis> first = cache.get(ID, "text");
+        assertNotNull(first);
+        assertEquals("UTF-8", first.get(0).get(TextInfo.ENCODING));
+        assertTrue(first.get(0) instanceof TextInfo);
+        first.get(0).set(TextInfo.ENCODING, "changed");
+        first.add(new Analysis());
+        List<Analysis> second = cache.get(ID, "text");
+        assertEquals(1, second.size());
+        assertNotSame(first.get(0), second.get(0));
+        assertEquals("UTF-8", second.get(0).get(TextInfo.ENCODING));
+        assertEquals(Language.ENGLISH, second.get(0).get(TextInfo.LANGUAGE));
+        assertEquals(0.5, second.get(0).getScore());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void contentIdentity() {
+        AnalysisCache cache = new AnalysisCache(10);
+        cache.put(ID, "text", analyses("UTF-8"));
+        assertNotNull(cache.get(ID, new StringBuilder("text")));
+        assertNull(cache.get(ID, "texT"));
+        assertNull(cache.get(ID, "text".getBytes(StandardCharsets.UTF_8)));
+        assertNull(cache.get(new AnalyzerId("OTHER"), "text"));
+        assertNull(cache.get(ID, 42));
+        cache.put(ID, 42, analyses("UTF-8"));
+        assertEquals(1, cache.size());
+        // Long inputs are digested in chunks; a change anywhere must change the identity.
+        StringBuilder text = new StringBuilder();
+        for (int c = 0; c < 10000; c++) {
+            text.append((char)('a' + (c % 26)));
+        }
+        AnalysisCache.Content content = AnalysisCache.contentOf(text);
+        assertEquals(content, AnalysisCache.contentOf(text.toString()));
+        text.setCharAt(9000, '!');
+        assertNotEquals(content, AnalysisCache.contentOf(text));
+        byte[] data = new byte[10000];
+        AnalysisCache.Content binary = AnalysisCache.contentOf(data);
+        data[9999] = 1;
+        assertNotEquals(binary, AnalysisCache.contentOf(data));
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction() {
+        AnalysisCache cache = new AnalysisCache(40);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(ID, "text " + i, analyses("UTF-8"));
+            assertTrue(cache.size() <= cache.getMaximumSize());
+        }
+        assertEquals(1000 - cache.size(), cache.getEvictions());
+        assertNotNull(cache.get(ID, "text 999"));
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.put(ID, "text", Collections.emptyList());
+        assertEquals(0, cache.get(ID, "text").size());
+    }
+}
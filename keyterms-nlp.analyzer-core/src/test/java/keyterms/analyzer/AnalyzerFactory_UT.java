@@ -0,0 +1,103 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import keyterms.analyzer.text.TextInfo;
+
+import static org.junit.Assert.assertEquals;
+
+public class AnalyzerFactory_UT {
+
+    private static AnalyzerFactory factory() {
+        return new AnalyzerFactory(new AnalyzerId("OVERRIDE"),
+                Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false,
+                () -> new AnalyzerPool_UT.BlockingAnalyzer(new CountDownLatch(0), new CountDownLatch(0)))
+                .withQueueCapacity(8)
+                .withInstances(1, 4)
+                .withOverflowPolicy(OverflowPolicy.CALLER_RUNS)
+                .withIdleTimeout(Duration.ofSeconds(30));
+    }
+
+    private static void withProperty(String name, String value, Runnable test) {
+        System.setProperty(name, value);
+        try {
+            test.run();
+        } finally {
+            System.clearProperty(name);
+        }
+    }
+
+    @Test
+    public void validOverrides() {
+        withProperty("analyzer.OVERRIDE.queue.capacity", "16",
+                () -> assertEquals(16, factory().getQueueCapacity()));
+        withProperty("analyzer.queue.capacity", "32",
+                () -> assertEquals(32, factory().getQueueCapacity()));
+        withProperty("analyzer.OVERRIDE.max.instances", " 2 ",
+                () -> assertEquals(2, factory().getMaxInstances()));
+        withProperty("analyzer.OVERRIDE.min.instances", "0",
+                () -> assertEquals(0, factory().getMinInstances()));
+        withProperty("analyzer.OVERRIDE.min.instances", "9",
+                () -> assertEquals(4, factory().getMinInstances()));
+        withProperty("analyzer.OVERRIDE.overflow.policy", "shed_oldest",
+                () -> assertEquals(OverflowPolicy.SHED_OLDEST, factory().getOverflowPolicy()));
+        withProperty("analyzer.OVERRIDE.idle.seconds", "5",
+                () -> assertEquals(Duration.ofSeconds(5), factory().getIdleTimeout()));
+    }
+
+    @Test
+    public void invalidOverridesFallBack() {
+        for (String invalid : new String[] { "0", "-1", "many", "1.5", "99999999999" }) {
+            withProperty("analyzer.OVERRIDE.queue.capacity", invalid,
+                    () -> assertEquals(8, factory().getQueueCapacity()));
+            withProperty("analyzer.OVERRIDE.max.instances", invalid,
+                    () -> assertEquals(4, factory().getMaxInstances()));
+            withProperty("analyzer.OVERRIDE.idle.seconds", invalid,
+                    () -> assertEquals(Duration.ofSeconds(30), factory().getIdleTimeout()));
+        }
+        withProperty("analyzer.OVERRIDE.min.instances", "-1",
+                () -> assertEquals(1, factory().getMinInstances()));
+        withProperty("analyzer.OVERRIDE.overflow.policy", "drop",
+                () -> assertEquals(OverflowPolicy.CALLER_RUNS, factory().getOverflowPolicy()));
+        // A bad override leaves pools usable.
+        withProperty("analyzer.queue.capacity", "0", () -> {
+            AnalyzerPool pool = new AnalyzerPool(factory());
+            try {
+                assertEquals(1, pool.analyze("text").size());
+            } finally {
+                pool.dispose();
+            }
+        });
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import keyterms.analyzer.text.TextInfo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AnalyzerPool_UT {
+
+    private static AnalyzerFactory factory(CountDownLatch started, CountDownLatch proceed) {
+        return new AnalyzerFactory(new AnalyzerId("BLOCKING"),
+                Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false,
+                () -> new BlockingAnalyzer(started, proceed));
+    }
+
+    private static RejectedAnalysisException rejectionOf(CompletableFuture<List<Analysis>> results)
+            throws Exception {
+        try {
+            results.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException error) {
+            return RejectedAnalysisException.causeOf(error);
+        }
+        return null;
+    }
+
+    @Test
+    public void disposeRejectsQueuedAnalyses()
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AnalyzerPool pool = new AnalyzerPool(factory(started, proceed).withInstances(1, 1));
+        CompletableFuture<List<Analysis>> running = pool.analyzeAsync("running");
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        List<CompletableFuture<List<Analysis>>> queued = Arrays.asList(
+                pool.analyzeAsync("queued 1"), pool.analyzeAsync("queued 2"));
+        CompletableFuture<Void> disposal = CompletableFuture.runAsync(pool::dispose);
+        for (CompletableFuture<List<Analysis>> results : queued) {
+            assertNotNull(rejectionOf(results));
+        }
+        assertFalse(disposal.isDone());
+        proceed.countDown();
+        disposal.get(10, TimeUnit.SECONDS);
+        assertEquals(1, running.get(10, TimeUnit.SECONDS).size());
+        assertEquals(0, pool.getInstanceCount());
+        // Late allocations fail fast instead of waiting for a permit.
+        try {
+            pool.allocate();
+            throw new AssertionError("Allocated an instance from a disposed pool.");
+        } catch (RejectedAnalysisException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void budgetInterruptsAnalysis()
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AnalyzerPool pool = new AnalyzerPool(new AnalyzerFactory(new AnalyzerId("BUDGET"),
+                Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false,
+                () -> new BlockingAnalyzer(started, new CountDownLatch(1), interrupted))
+                .withInstances(1, 1));
+        try {
+            assertTrue(pool.analyze("text", Duration.ofMillis(50)).isEmpty());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            // The interrupt does not leak into the next analysis run by the pool thread.
+            CompletableFuture<List<Analysis>> next = pool.analyzeAsync("next");
+            Thread.sleep(50);
+            assertFalse(next.isDone());
+            next.cancel(true);
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    // Starts one analysis on the single instance, queues another and then overflows the queue.
+    private static List<CompletableFuture<List<Analysis>>> overflow(OverflowPolicy policy, CountDownLatch proceed)
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AnalyzerPool pool = new AnalyzerPool(factory(started, proceed)
+                .withInstances(1, 1)
+                .withQueueCapacity(1)
+                .withOverflowPolicy(policy));
+        List<CompletableFuture<List<Analysis>>> results = new ArrayList<>();
+        try {
+            results.add(pool.analyzeAsync("running"));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            results.add(pool.analyzeAsync("queued"));
+            results.add(pool.analyzeAsync("overflow"));
+        } finally {
+            proceed.countDown();
+            for (CompletableFuture<List<Analysis>> result : results) {
+                result.handle((r, e) -> r).get(10, TimeUnit.SECONDS);
+            }
+            pool.dispose();
+        }
+        return results;
+    }
+
+    @Test
+    public void rejectOverflow()
+            throws Exception {
+        List<CompletableFuture<List<Analysis>>> results = overflow(OverflowPolicy.REJECT, new CountDownLatch(1));
+        assertEquals(1, results.get(0).get(10, TimeUnit.SECONDS).size());
+        assertEquals(1, results.get(1).get(10, TimeUnit.SECONDS).size());
+        assertNotNull(rejectionOf(results.get(2)));
+    }
+
+    @Test
+    public void shedOldestOverflow()
+            throws Exception {
+        List<CompletableFuture<List<Analysis>>> results = overflow(OverflowPolicy.SHED_OLDEST, new CountDownLatch(1));
+        assertEquals(1, results.get(0).get(10, TimeUnit.SECONDS).size());
+        assertNotNull(rejectionOf(results.get(1)));
+        assertEquals(1, results.get(2).get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void callerRunsOverflow()
+            throws Exception {
+        CountDownLatch proceed = new CountDownLatch(1);
+        CompletableFuture<List<CompletableFuture<List<Analysis>>>> submission = new CompletableFuture<>();
+        Thread caller = new Thread(() -> {
+            try {
+                submission.complete(overflow(OverflowPolicy.CALLER_RUNS, proceed));
+            } catch (Throwable error) {
+                submission.completeExceptionally(error);
+            }
+        });
+        caller.start();
+        // The overflowing analysis runs on the submitting thread, which waits for the busy instance.
+        Thread.sleep(50);
+        assertFalse(submission.isDone());
+        proceed.countDown();
+        List<CompletableFuture<List<Analysis>>> results = submission.get(10, TimeUnit.SECONDS);
+        assertTrue(results.get(2).isDone());
+        for (CompletableFuture<List<Analysis>> result : results) {
+            assertEquals(1, result.get(10, TimeUnit.SECONDS).size());
+        }
+    }
+
+    @Test
+    public void budgetReturnsTimelyResults() {
+        AnalyzerPool pool = new AnalyzerPool(factory(new CountDownLatch(1), new CountDownLatch(0))
+                .withInstances(1, 1));
+        try {
+            List<Analysis> results = pool.analyze("text", Duration.ofSeconds(10));
+            assertEquals(1, results.size());
+            assertEquals(4, (int)results.get(0).get(TextInfo.LENGTH));
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    @Test
+    public void budgetSkipsQueuedAnalysis()
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        List<String> inputs = Collections.synchronizedList(new ArrayList<>());
+        AnalyzerPool pool = new AnalyzerPool(new AnalyzerFactory(new AnalyzerId("QUEUED"),
+                Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false,
+                () -> new BlockingAnalyzer(started, proceed) {
+                    @Override
+                    protected void _analyze(Object input, Consumer<Analysis> collector) {
+                        inputs.add(input.toString());
+                        super._analyze(input, collector);
+                    }
+                }).withInstances(1, 1));
+        try {
+            CompletableFuture<List<Analysis>> running = pool.analyzeAsync("running");
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // The budget expires while the analysis waits for the busy instance.
+            assertTrue(pool.analyze("budgeted", Duration.ofMillis(50)).isEmpty());
+            proceed.countDown();
+            assertEquals(1, running.get(10, TimeUnit.SECONDS).size());
+            assertEquals(1, pool.analyze("after", Duration.ofSeconds(10)).size());
+            assertEquals(Arrays.asList("running", "after"), inputs);
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    @Test
+    public void asyncCompletion()
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AnalyzerPool pool = new AnalyzerPool(factory(started, proceed).withInstances(1, 1));
+        try {
+            // The caller is not blocked while a pool worker runs the analysis.
+            CompletableFuture<List<Analysis>> results = pool.analyzeAsync("text");
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertFalse(results.isDone());
+            CompletableFuture<Thread> completer = results.thenApply((r) -> Thread.currentThread());
+            proceed.countDown();
+            List<Analysis> analyses = results.get(10, TimeUnit.SECONDS);
+            assertEquals(1, analyses.size());
+            assertEquals(4, (int)analyses.get(0).get(TextInfo.LENGTH));
+            // The future is completed by the pool worker which performed the analysis.
+            assertNotSame(Thread.currentThread(), completer.get(10, TimeUnit.SECONDS));
+            // Inputs the analyzer does not accept complete immediately without results.
+            CompletableFuture<List<Analysis>> unaccepted = pool.analyzeAsync(42);
+            assertTrue(unaccepted.isDone());
+            assertTrue(unaccepted.get().isEmpty());
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    @Test
+    public void asyncFailure()
+            throws Exception {
+        AnalyzerPool rejecting = new AnalyzerPool(failing(new RejectedAnalysisException("Busy.")));
+        try {
+            assertNotNull(rejectionOf(rejecting.analyzeAsync("text")));
+        } finally {
+            rejecting.dispose();
+        }
+        // Other analyzer errors are logged and complete the future without results.
+        AnalyzerPool failing = new AnalyzerPool(failing(new IllegalStateException("Broken.")));
+        try {
+            assertTrue(failing.analyzeAsync("text").get(10, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            failing.dispose();
+        }
+    }
+
+    private static AnalyzerFactory failing(RuntimeException error) {
+        return new AnalyzerFactory(new AnalyzerId("FAILING"),
+                Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false,
+                () -> new BlockingAnalyzer(new CountDownLatch(1), new CountDownLatch(0)) {
+                    @Override
+                    protected void _analyze(Object input, Consumer<Analysis> collector) {
+                        throw error;
+                    }
+                }).withInstances(1, 1);
+    }
+
+    @Test
+    public void concurrentCheckout()
+            throws Exception {
+        int maxInstances = 4;
+        AnalyzerPool pool = new AnalyzerPool(factory(new CountDownLatch(1), new CountDownLatch(0))
+                .withInstances(1, maxInstances));
+        Set<Analyzer> checkedOut = ConcurrentHashMap.newKeySet();
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                results.add(threads.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        Analyzer analyzer = pool.allocate();
+                        // No instance is ever handed to two threads at once.
+                        assertTrue(checkedOut.add(analyzer));
+                        assertTrue(checkedOut.size() <= maxInstances);
+                        checkedOut.remove(analyzer);
+                        pool.release(analyzer);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+            assertTrue(pool.getInstanceCount() <= maxInstances);
+            // Instances are handed out most recently released first.
+            Analyzer first = pool.allocate();
+            Analyzer second = pool.allocate();
+            pool.release(first);
+            pool.release(second);
+            assertSame(second, pool.allocate());
+            assertSame(first, pool.allocate());
+            pool.release(first);
+            pool.release(second);
+        } finally {
+            threads.shutdownNow();
+            pool.dispose();
+        }
+    }
+
+    static class BlockingAnalyzer
+            extends Analyzer {
+
+        private final CountDownLatch started;
+
+        private final CountDownLatch proceed;
+
+        private final CountDownLatch interrupted;
+
+        BlockingAnalyzer(CountDownLatch started, CountDownLatch proceed) {
+            this(started, proceed, new CountDownLatch(1));
+        }
+
+        BlockingAnalyzer(CountDownLatch started, CountDownLatch proceed, CountDownLatch interrupted) {
+            super(Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false);
+            this.started = started;
+            this.proceed = proceed;
+            this.interrupted = interrupted;
+        }
+
+        @Override
+        protected void _analyze(Object input, Consumer<Analysis> collector) {
+            started.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException error) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            TextInfo textInfo = new TextInfo();
+            textInfo.setLength(input.toString().length());
+            collector.accept(textInfo);
+        }
+
+        @Override
+        protected void _dispose() {
+            // Intentional NoOp
+        }
+    }
+}
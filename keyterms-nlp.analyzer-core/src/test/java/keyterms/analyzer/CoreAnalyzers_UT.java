@@ -0,0 +1,103 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import keyterms.analyzer.text.ScriptedPlugin;
+import keyterms.nlp.iso.Language;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CoreAnalyzers_UT {
+
+    private static final AnalyzerId LANG1 = new AnalyzerId("LANG1");
+
+    @Before
+    public void setUp() {
+        ScriptedPlugin.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ScriptedPlugin.reset();
+    }
+
+    @Test
+    public void smallInputRunsSequentially()
+            throws Exception {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        CompletableFuture<Map<AnalyzerId, List<Analysis>>> results =
+                CoreAnalyzers.getInstance().runAsync("bonjour", LANG1::equals, null);
+        assertTrue(results.isDone());
+        assertEquals(1, results.get().get(LANG1).size());
+        assertEquals(1, ScriptedPlugin.calls("LANG1"));
+    }
+
+    @Test
+    public void smallInputRejectionFailsFuture() {
+        ScriptedPlugin.reject("LANG1");
+        CompletableFuture<Map<AnalyzerId, List<Analysis>>> results;
+        try {
+            results = CoreAnalyzers.getInstance().runAsync("bonjour", LANG1::equals, null);
+        } catch (RejectedAnalysisException rejected) {
+            fail("The rejection was thrown rather than reported through the future.");
+            return;
+        }
+        try {
+            results.get(10, TimeUnit.SECONDS);
+            fail("The rejected analysis completed normally.");
+        } catch (ExecutionException error) {
+            assertNotNull(RejectedAnalysisException.causeOf(error));
+        } catch (Exception error) {
+            fail("The rejected analysis did not complete: " + error);
+        }
+    }
+
+    @Test
+    public void smallInputRejectionIsThrownByRun() {
+        ScriptedPlugin.reject("LANG1");
+        try {
+            CoreAnalyzers.getInstance().run("bonjour", LANG1::equals, null);
+            fail("The rejected analysis completed normally.");
+        } catch (RejectedAnalysisException rejected) {
+            assertEquals(1, ScriptedPlugin.calls("LANG1"));
+        }
+    }
+}
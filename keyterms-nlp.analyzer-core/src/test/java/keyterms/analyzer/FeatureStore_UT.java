@@ -0,0 +1,144 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import keyterms.util.io.Serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeatureStore_UT {
+
+    private static final AnalysisFeature<String> NAME = new AnalysisFeature<>("store_name", String.class);
+
+    private static final AnalysisFeature<Integer> COUNT = new AnalysisFeature<>("store_count", Integer.class);
+
+    private static final AnalysisFeature<Double> RATIO = new AnalysisFeature<>("store_ratio", Double.class);
+
+    private static FeatureStore store() {
+        FeatureStore store = new FeatureStore();
+        store.put(NAME, "name");
+        store.putInt(COUNT, 3);
+        store.put(RATIO, 0.5);
+        return store;
+    }
+
+    @Test
+    public void putAndGet() {
+        FeatureStore store = store();
+        assertEquals(3, store.size());
+        assertEquals("name", store.get(NAME));
+        assertEquals(3, store.get(COUNT));
+        assertEquals(3, store.getInt(COUNT, -1));
+        assertEquals(0.5, store.get(RATIO));
+        assertEquals(3, store.put(COUNT, 4));
+        assertEquals(4, store.getInt(COUNT, -1));
+        assertEquals(3, store.size());
+        // Features with equal names share a slot.
+        assertEquals("name", store.get(new AnalysisFeature<>("store_name", String.class)));
+        assertNull(store.get("store_name"));
+        assertFalse(store.containsKey(new AnalysisFeature<>("store_missing", String.class)));
+        assertEquals(-1, store.getInt(new AnalysisFeature<>("store_missing", Integer.class), -1));
+        try {
+            store.put(NAME, null);
+            fail("Stored a null feature value.");
+        } catch (NullPointerException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void removeAndClear() {
+        FeatureStore store = store();
+        assertEquals(3, store.remove(COUNT));
+        assertEquals(2, store.size());
+        assertFalse(store.containsKey(COUNT));
+        assertEquals(-1, store.getInt(COUNT, -1));
+        assertNull(store.remove(COUNT));
+        store.clear();
+        assertEquals(0, store.size());
+        assertTrue(store.isEmpty());
+        assertNull(store.get(NAME));
+    }
+
+    @Test
+    public void iteration() {
+        FeatureStore store = store();
+        Map<AnalysisFeature<?>, Object> expected = new HashMap<>();
+        expected.put(NAME, "name");
+        expected.put(COUNT, 3);
+        expected.put(RATIO, 0.5);
+        assertEquals(expected, store);
+        assertEquals(expected.keySet(), store.keySet());
+        Iterator<AnalysisFeature<?>> keys = store.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next() == COUNT) {
+                keys.remove();
+            }
+        }
+        expected.remove(COUNT);
+        assertEquals(expected, store);
+        assertEquals(2, store.entrySet().size());
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        FeatureStore store = store();
+        FeatureStore copy = new FeatureStore(store);
+        copy.putInt(COUNT, 7);
+        copy.remove(NAME);
+        assertEquals(3, store.getInt(COUNT, -1));
+        assertEquals("name", store.get(NAME));
+        Map<AnalysisFeature<?>, Object> plain = new HashMap<>(store);
+        assertEquals(store, new FeatureStore(plain));
+    }
+
+    @Test
+    public void analysisSerialization()
+            throws Exception {
+        Analysis analysis = new Analysis();
+        analysis.set(NAME, "name");
+        analysis.setInt(COUNT, 3);
+        analysis.setScore(0.25);
+        Analysis copy = Serialization.serialCopy(Analysis.class, analysis);
+        assertEquals("name", copy.get(NAME));
+        assertEquals(3, copy.getInt(COUNT, -1));
+        assertEquals(0.25, copy.getScore());
+        copy.setInt(COUNT, 4);
+        assertEquals(4, (int)copy.get(COUNT));
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import keyterms.analyzer.text.TextInfo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SamplingPolicy_UT {
+
+    private static final SamplingPolicy POLICY = new SamplingPolicy(16, 2, 8);
+
+    private static SamplingPolicy.Sample sampleFile(byte[] data)
+            throws IOException {
+        Path file = Files.createTempFile("sample", ".dat");
+        try {
+            Files.write(file, data);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return POLICY.sample(channel);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static SamplingPolicy.Sample sampleStream(byte[] data)
+            throws IOException {
+        try (ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(data))) {
+            return POLICY.sample(channel);
+        }
+    }
+
+    private static byte[] ascii(int length) {
+        byte[] data = new byte[length];
+        for (int b = 0; b < length; b++) {
+            data[b] = (byte)(32 + b % 90);
+        }
+        return data;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(parts).mapToInt((p) -> p.length).sum());
+        Arrays.stream(parts).forEach(buffer::put);
+        return buffer.array();
+    }
+
+    private static void assertUtf8(byte[] data) {
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data));
+        } catch (CharacterCodingException error) {
+            throw new AssertionError("Sample is not valid UTF-8: " + Arrays.toString(data), error);
+        }
+    }
+
+    @Test
+    public void invalidPolicies() {
+        for (int[] invalid : new int[][] { { 0, 1, 8 }, { 16, -1, 8 }, { 16, 1, 3 }, { Integer.MAX_VALUE, 1, 8 } }) {
+            try {
+                new SamplingPolicy(invalid[0], invalid[1], invalid[2]);
+                throw new AssertionError("Accepted invalid policy: " + Arrays.toString(invalid));
+            } catch (IllegalArgumentException expected) {
+                // Expected.
+            }
+        }
+        assertEquals(16, new SamplingPolicy(16, 0, 8).getMaxSampleSize());
+    }
+
+    @Test
+    public void smallInputsAreComplete()
+            throws IOException {
+        byte[] data = ascii(32);
+        SamplingPolicy.Sample sample = sampleFile(data);
+        assertTrue(sample.isComplete());
+        assertEquals(Long.valueOf(32), sample.getSize());
+        assertArrayEquals(data, sample.getData());
+        sample = sampleFile(new byte[0]);
+        assertTrue(sample.isComplete());
+        assertEquals(0, sample.getData().length);
+    }
+
+    @Test
+    public void headAndWindows()
+            throws IOException {
+        // 100 bytes: 84 bytes follow the head, 68 of which are spare, so windows start at 16 + 34 (aligned down
+        // to 48) and 16 + 68 + 8 = 92.
+        byte[] data = ascii(100);
+        SamplingPolicy.Sample sample = sampleFile(data);
+        assertFalse(sample.isComplete());
+        assertEquals(Long.valueOf(100), sample.getSize());
+        byte[] expected = concat(Arrays.copyOfRange(data, 0, 16), Arrays.copyOfRange(data, 48, 56),
+                Arrays.copyOfRange(data, 92, 100));
+        assertArrayEquals(expected, sample.getData());
+    }
+
+    @Test
+    public void utf8Trimming()
+            throws IOException {
+        String text = String.join("", Collections.nCopies(40, "€"));
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        SamplingPolicy.Sample sample = sampleFile(data);
+        assertFalse(sample.isComplete());
+        assertTrue(sample.getData().length <= POLICY.getMaxSampleSize());
+        assertEquals(0, sample.getData().length % 3);
+        assertUtf8(sample.getData());
+        // Four byte sequences split at the end of the head are trimmed as well.
+        data = String.join("", Collections.nCopies(20, "😀")).getBytes(StandardCharsets.UTF_8);
+        sample = sampleFile(data);
+        assertUtf8(sample.getData());
+        sample = sampleStream(Arrays.copyOf(data, 35));
+        assertUtf8(sample.getData());
+        assertEquals(32, sample.getData().length);
+    }
+
+    @Test
+    public void wideEncodingAlignment()
+            throws IOException {
+        byte[] data = String.join("", Collections.nCopies(50, "abc")).getBytes(StandardCharsets.UTF_16LE);
+        SamplingPolicy.Sample sample = sampleFile(data);
+        assertFalse(sample.isComplete());
+        assertEquals(0, sample.getData().length % 4);
+        String decoded = new String(sample.getData(), StandardCharsets.UTF_16LE);
+        assertTrue(decoded.startsWith("abcabcab"));
+        assertEquals(-1, decoded.indexOf('�'));
+        sample = sampleStream(Arrays.copyOf(data, 34));
+        assertEquals(32, sample.getData().length);
+    }
+
+    @Test
+    public void streamSizeProbe()
+            throws IOException {
+        // An input which exactly fills the sample is complete only once the probe finds the end of the stream.
+        byte[] data = ascii(32);
+        SamplingPolicy.Sample sample = sampleStream(data);
+        assertTrue(sample.isComplete());
+        assertEquals(Long.valueOf(32), sample.getSize());
+        assertArrayEquals(data, sample.getData());
+        sample = sampleStream(ascii(20));
+        assertTrue(sample.isComplete());
+        assertEquals(Long.valueOf(20), sample.getSize());
+        // Larger streams yield a longer head with no known size.
+        data = ascii(33);
+        sample = sampleStream(data);
+        assertFalse(sample.isComplete());
+        assertNull(sample.getSize());
+        assertArrayEquals(Arrays.copyOf(data, 32), sample.getData());
+    }
+
+    @Test
+    public void pooledAnalyzersDescribeSamples()
+            throws IOException {
+        AnalyzerFactory factory = new AnalyzerFactory(new AnalyzerId("SAMPLED"),
+                Collections.singleton(byte[].class),
+                new HashSet<>(Arrays.asList(TextInfo.SIZE, TextInfo.LENGTH)), false, false, SampledAnalyzer::new);
+        AnalyzerPool pool = new AnalyzerPool(factory);
+        try {
+            List<Analysis> results = pool.analyze(Channels.newChannel(new ByteArrayInputStream(ascii(100))), POLICY);
+            assertEquals(1, results.size());
+            assertFalse(results.get(0).contains(TextInfo.SIZE));
+            assertFalse(results.get(0).contains(TextInfo.LENGTH));
+            results = pool.analyze(Channels.newChannel(new ByteArrayInputStream(ascii(20))), POLICY);
+            assertEquals(Integer.valueOf(20), results.get(0).get(TextInfo.SIZE));
+            assertEquals(Integer.valueOf(20), results.get(0).get(TextInfo.LENGTH));
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    private static class SampledAnalyzer
+            extends Analyzer {
+
+        private SampledAnalyzer() {
+            super(Collections.singleton(byte[].class), new HashSet<>(Arrays.asList(TextInfo.SIZE, TextInfo.LENGTH)),
+                    false, false);
+        }
+
+        @Override
+        protected void _analyze(Object input, Consumer<Analysis> collector) {
+            TextInfo textInfo = new TextInfo();
+            textInfo.setSize(((byte[])input).length);
+            textInfo.setLength(((byte[])input).length);
+            collector.accept(textInfo);
+        }
+
+        @Override
+        protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+            TextInfo.describeSampled(sample, results);
+        }
+
+        @Override
+        protected void _dispose() {
+            // Intentional NoOp
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import keyterms.analyzer.text.ScriptedPlugin;
+import keyterms.analyzer.text.TextInfo;
+import keyterms.nlp.iso.Language;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreads_UT {
+
+    private static final String PROPERTY = "analyzer.virtual.threads";
+
+    private static final AnalyzerId LANG1 = new AnalyzerId("LANG1");
+
+    private final AtomicReference<Thread> analyzerThread = new AtomicReference<>();
+
+    @Before
+    public void setUp() {
+        ScriptedPlugin.reset();
+        ScriptedPlugin.language("LANG1", (text) -> {
+            analyzerThread.set(Thread.currentThread());
+            return Language.FRENCH;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(PROPERTY);
+        ScriptedPlugin.reset();
+    }
+
+    private static boolean isVirtual(Thread thread)
+            throws Exception {
+        return (Boolean)Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertFalse(VirtualThreads.isEnabled());
+        System.setProperty(PROPERTY, "true");
+        assertEquals(VirtualThreads.isSupported(), VirtualThreads.isEnabled());
+        assertEquals(VirtualThreads.isSupported(), VirtualThreads.executor() != null);
+    }
+
+    @Test
+    public void platformThreadsWhenDisabled()
+            throws Exception {
+        // Small inputs are analyzed on the calling thread.
+        CompletableFuture<Map<AnalyzerId, List<Analysis>>> results =
+                CoreAnalyzers.getInstance().runAsync("bonjour", LANG1::equals, null);
+        assertTrue(results.isDone());
+        assertEquals(1, results.get().get(LANG1).size());
+        assertSame(Thread.currentThread(), analyzerThread.get());
+        CompletableFuture<List<Analysis>> analysis = new RecordingAnalyzer(analyzerThread).analyzeAsync("bonjour");
+        assertTrue(analysis.isDone());
+        assertSame(Thread.currentThread(), analyzerThread.get());
+    }
+
+    @Test
+    public void runAsyncOnVirtualThread()
+            throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        System.setProperty(PROPERTY, "true");
+        Map<AnalyzerId, List<Analysis>> results = CoreAnalyzers.getInstance()
+                .runAsync("bonjour", LANG1::equals, null)
+                .get(10, TimeUnit.SECONDS);
+        assertEquals(1, results.get(LANG1).size());
+        assertTrue(isVirtual(analyzerThread.get()));
+    }
+
+    @Test
+    public void analyzeAsyncOnVirtualThread()
+            throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        System.setProperty(PROPERTY, "true");
+        Analyzer analyzer = new RecordingAnalyzer(analyzerThread);
+        try {
+            assertEquals(1, analyzer.analyzeAsync("bonjour").get(10, TimeUnit.SECONDS).size());
+            assertTrue(isVirtual(analyzerThread.get()));
+        } finally {
+            analyzer.dispose();
+        }
+    }
+
+    private static class RecordingAnalyzer
+            extends Analyzer {
+
+        private final AtomicReference<Thread> thread;
+
+        private RecordingAnalyzer(AtomicReference<Thread> thread) {
+            super(Collections.singleton(String.class), Collections.singleton(TextInfo.LENGTH), false, false);
+            this.thread = thread;
+        }
+
+        @Override
+        protected void _analyze(Object input, Consumer<Analysis> collector) {
+            thread.set(Thread.currentThread());
+            TextInfo textInfo = new TextInfo();
+            textInfo.setLength(input.toString().length());
+            collector.accept(textInfo);
+        }
+
+        @Override
+        protected void _dispose() {
+            // Intentional NoOp
+        }
+    }
+}
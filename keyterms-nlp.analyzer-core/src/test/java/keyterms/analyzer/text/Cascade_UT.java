@@ -0,0 +1,173 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer.text;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalyzerId;
+import keyterms.util.collect.Bags;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Cascade_UT {
+
+    private static final AnalyzerId A = new AnalyzerId("A");
+
+    private static final AnalyzerId B = new AnalyzerId("B");
+
+    private static final AnalyzerId C = new AnalyzerId("C");
+
+    private static void assertInvalid(String spec) {
+        try {
+            Cascade.parse(spec);
+            fail("Parsed invalid cascade: " + spec);
+        } catch (IllegalArgumentException expected) {
+            // Expected.
+        }
+    }
+
+    // Each vote is the only result of a different analyzer.
+    private static Election<String> election(String... votes) {
+        Map<AnalyzerId, List<Analysis>> results = new HashMap<>();
+        for (int v = 0; v < votes.length; v++) {
+            TextInfo textInfo = new TextInfo();
+            textInfo.setEncoding(votes[v]);
+            results.put(new AnalyzerId("V" + v), Collections.singletonList(textInfo));
+        }
+        return Election.of(Collections.singletonMap("text", results), TextInfo.ENCODING, null, 1);
+    }
+
+    @Test
+    public void parseUnanimous() {
+        Cascade cascade = Cascade.parse(" Unanimous | A | B, C ");
+        assertEquals(Cascade.Rule.UNANIMOUS, cascade.getRule());
+        assertEquals(Arrays.asList(Bags.staticSet(A), Bags.staticSet(B, C)), cascade.getTiers());
+        assertEquals("unanimous|A|B,C", cascade.toString());
+    }
+
+    @Test
+    public void parseMargin() {
+        Cascade cascade = Cascade.parse("margin=0.25|A,B|C");
+        assertEquals(Cascade.Rule.MARGIN, cascade.getRule());
+        assertEquals(0.25, cascade.getMargin(), 0.0);
+        assertEquals(Arrays.asList(Bags.staticSet(A, B), Bags.staticSet(C)), cascade.getTiers());
+        assertEquals(cascade.toString(), Cascade.parse(cascade.toString()).toString());
+    }
+
+    @Test
+    public void malformedSpecifications() {
+        assertInvalid(null);
+        assertInvalid(" ");
+        assertInvalid("unanimous");
+        assertInvalid("unanimous|");
+        assertInvalid("unanimous| , |A");
+        assertInvalid("|A");
+        assertInvalid("majority|A");
+        assertInvalid("margin|A");
+        assertInvalid("margin=|A");
+        assertInvalid("margin=abc|A");
+        assertInvalid("margin=-0.1|A");
+        assertInvalid("margin=1.5|A");
+        assertInvalid("margin=NaN|A");
+    }
+
+    @Test
+    public void invalidTiers() {
+        try {
+            Cascade.unanimous(Collections.emptyList());
+            fail("Created a cascade without tiers.");
+        } catch (IllegalArgumentException expected) {
+            // Expected.
+        }
+        try {
+            Cascade.margin(0.5, Collections.singletonList(Collections.<AnalyzerId>emptySet()));
+            fail("Created a cascade with an empty tier.");
+        } catch (IllegalArgumentException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void tiersAreCopied() {
+        Set<AnalyzerId> tier = Bags.hashSet(A);
+        Cascade cascade = Cascade.unanimous(Collections.singletonList(tier));
+        tier.add(B);
+        assertEquals(Bags.staticSet(A), cascade.getTiers().get(0));
+    }
+
+    @Test
+    public void defaultCascade() {
+        String previous = System.getProperty(Cascade.PROPERTY);
+        try {
+            System.clearProperty(Cascade.PROPERTY);
+            assertNull(Cascade.getDefault());
+            System.setProperty(Cascade.PROPERTY, "unanimous|A");
+            Cascade cascade = Cascade.getDefault();
+            assertEquals("unanimous|A", cascade.toString());
+            assertSame(cascade, Cascade.getDefault());
+            System.setProperty(Cascade.PROPERTY, "margin=0.5|B");
+            assertEquals("margin=0.5|B", Cascade.getDefault().toString());
+            // Invalid specifications are ignored rather than failing every ensemble analysis.
+            System.setProperty(Cascade.PROPERTY, "unanimous");
+            assertNull(Cascade.getDefault());
+            assertNull(Cascade.getDefault());
+        } finally {
+            if (previous != null) {
+                System.setProperty(Cascade.PROPERTY, previous);
+            } else {
+                System.clearProperty(Cascade.PROPERTY);
+            }
+        }
+    }
+
+    @Test
+    public void stoppingRules() {
+        Cascade unanimous = Cascade.parse("unanimous|A");
+        assertTrue(unanimous.isDecided(election("utf-8", "utf-8")));
+        assertFalse(unanimous.isDecided(election("utf-8", "big5")));
+        assertFalse(unanimous.isDecided(election()));
+        Cascade margin = Cascade.parse("margin=0.5|A");
+        assertTrue(margin.isDecided(election("utf-8")));
+        assertTrue(margin.isDecided(election("utf-8", "utf-8", "utf-8", "big5")));
+        assertFalse(margin.isDecided(election("utf-8", "utf-8", "big5")));
+        assertFalse(margin.isDecided(election()));
+    }
+}
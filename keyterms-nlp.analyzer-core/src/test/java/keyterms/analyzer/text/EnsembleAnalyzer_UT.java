@@ -0,0 +1,219 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import keyterms.analyzer.Analysis;
+import keyterms.nlp.iso.Language;
+import keyterms.nlp.iso.Script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class EnsembleAnalyzer_UT {
+
+    private static final String INPUT = "some text";
+
+    @Before
+    public void setUp() {
+        ScriptedPlugin.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ScriptedPlugin.reset();
+    }
+
+    private static Analysis analyze(String cascade) {
+        VotingAnalyzer analyzer = new VotingAnalyzer();
+        analyzer.setCascade(Cascade.parse(cascade));
+        try {
+            List<Analysis> analyses = analyzer.analyze(INPUT);
+            assertEquals(1, analyses.size());
+            return analyses.get(0);
+        } finally {
+            analyzer.dispose();
+        }
+    }
+
+    @Test
+    public void unanimousFirstTierSettles() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        ScriptedPlugin.language("LANG2", Language.FRENCH);
+        ScriptedPlugin.language("LANG3", Language.ENGLISH);
+        Analysis analysis = analyze("unanimous|LANG1,LANG2|LANG3");
+        assertEquals(Language.FRENCH, analysis.get(TextInfo.LANGUAGE));
+        assertEquals(1, (int)analysis.get(EnsembleAnalyzer.TIER));
+        // Later tiers are neither scheduled nor run on demand.
+        assertEquals(0, ScriptedPlugin.calls("LANG3"));
+    }
+
+    @Test
+    public void disagreementFallsBackToEnsemble() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        ScriptedPlugin.language("LANG2", Language.ENGLISH);
+        ScriptedPlugin.language("LANG3", Language.FRENCH);
+        Analysis analysis = analyze("unanimous|LANG1,LANG2|LANG3");
+        assertEquals(Language.FRENCH, analysis.get(TextInfo.LANGUAGE));
+        assertEquals(3, (int)analysis.get(EnsembleAnalyzer.TIER));
+        assertEquals(1, ScriptedPlugin.calls("LANG1"));
+        assertEquals(1, ScriptedPlugin.calls("LANG3"));
+    }
+
+    @Test
+    public void marginSettlesLaterTier() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        ScriptedPlugin.language("LANG2", Language.ENGLISH);
+        ScriptedPlugin.language("LANG3", Language.FRENCH);
+        Analysis analysis = analyze("margin=0.3|LANG1,LANG2|LANG3");
+        assertEquals(Language.FRENCH, analysis.get(TextInfo.LANGUAGE));
+        assertEquals(2, (int)analysis.get(EnsembleAnalyzer.TIER));
+        // Each analyzer runs once even though its votes count in every later tier.
+        assertEquals(1, ScriptedPlugin.calls("LANG1"));
+        assertEquals(1, ScriptedPlugin.calls("LANG3"));
+    }
+
+    @Test
+    public void marginNotReachedFallsBackToEnsemble() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        ScriptedPlugin.language("LANG2", Language.ENGLISH);
+        ScriptedPlugin.language("LANG3", Language.FRENCH);
+        Analysis analysis = analyze("margin=0.5|LANG1,LANG2|LANG3");
+        assertEquals(Language.FRENCH, analysis.get(TextInfo.LANGUAGE));
+        assertEquals(3, (int)analysis.get(EnsembleAnalyzer.TIER));
+    }
+
+    @Test
+    public void invalidDefaultCascadeUsesEnsemble() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        String previous = System.getProperty(Cascade.PROPERTY);
+        System.setProperty(Cascade.PROPERTY, "unanimous");
+        VotingAnalyzer analyzer = new VotingAnalyzer();
+        try {
+            List<Analysis> analyses = analyzer.analyze(INPUT);
+            assertEquals(1, analyses.size());
+            assertEquals(Language.FRENCH, analyses.get(0).get(TextInfo.LANGUAGE));
+        } finally {
+            analyzer.dispose();
+            if (previous != null) {
+                System.setProperty(Cascade.PROPERTY, previous);
+            } else {
+                System.clearProperty(Cascade.PROPERTY);
+            }
+        }
+    }
+
+    private static void scriptOnePerPhase() {
+        ScriptedPlugin.reset();
+        ScriptedPlugin.encoding("ENC1", "UTF-8");
+        ScriptedPlugin.encoding("ENC2", "UTF-8");
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        ScriptedPlugin.language("LANG2", Language.FRENCH);
+        ScriptedPlugin.language("LANG3", Language.ENGLISH);
+    }
+
+    @Test
+    public void analyzersRunOncePerInput() {
+        VotingAnalyzer analyzer = new VotingAnalyzer();
+        analyzer.setCascade(null);
+        try {
+            scriptOnePerPhase();
+            Analysis analysis = analyzer.analyze(INPUT).get(0);
+            assertEquals(Language.FRENCH, analysis.get(TextInfo.LANGUAGE));
+            assertEquals(Script.LATN, analysis.get(TextInfo.SCRIPT));
+            // The language and script phases share a single run of each text analyzer, and encoding detectors
+            // are not run on text input.
+            for (String id : new String[] { "LANG1", "LANG2", "LANG3" }) {
+                assertEquals(id, 1, ScriptedPlugin.calls(id));
+            }
+            assertEquals(0, ScriptedPlugin.calls("ENC1"));
+            assertEquals(0, ScriptedPlugin.calls("ENC2"));
+            scriptOnePerPhase();
+            analysis = analyzer.analyze(INPUT.getBytes(StandardCharsets.UTF_8)).get(0);
+            assertEquals("utf-8", analysis.get(TextInfo.ENCODING).toLowerCase());
+            assertEquals(Language.FRENCH, analysis.get(TextInfo.LANGUAGE));
+            // The later phases share one run of each text analyzer on the decoded text.
+            for (String id : new String[] { "ENC1", "ENC2", "LANG1", "LANG2", "LANG3" }) {
+                assertEquals(id, 1, ScriptedPlugin.calls(id));
+            }
+        } finally {
+            analyzer.dispose();
+        }
+    }
+
+    // Selects each of the encodings in turn, recording the text form of the input after each selection.
+    private static List<String> selectEncodings(byte[] input, String... encodings) {
+        List<String> texts = new ArrayList<>();
+        VotingAnalyzer analyzer = new VotingAnalyzer() {
+            @Override
+            protected void identifyEncoding(Working working) {
+                for (String encoding : encodings) {
+                    working.setEncoding(encoding);
+                    texts.add(working.getInputText());
+                }
+            }
+        };
+        analyzer.setCascade(null);
+        try {
+            analyzer.analyze(input);
+        } finally {
+            analyzer.dispose();
+        }
+        return texts;
+    }
+
+    @Test
+    public void decodesOncePerCharset() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        List<String> texts = selectEncodings("café".getBytes(StandardCharsets.UTF_8),
+                "UTF-8", "ISO-8859-1", "UTF-8", "ISO-8859-1");
+        assertEquals("café", texts.get(0));
+        assertNotEquals(texts.get(0), texts.get(1));
+        // Reselecting an encoding reuses its decoding.
+        assertSame(texts.get(0), texts.get(2));
+        assertSame(texts.get(1), texts.get(3));
+        // The text analyzers run once per distinct decoding.
+        assertEquals(2, ScriptedPlugin.calls("LANG1"));
+    }
+
+    @Test
+    public void equalDecodingsShareResults() {
+        ScriptedPlugin.language("LANG1", Language.FRENCH);
+        List<String> texts = selectEncodings("cafe".getBytes(StandardCharsets.UTF_8), "UTF-8", "ISO-8859-1");
+        assertSame(texts.get(0), texts.get(1));
+        assertEquals(1, ScriptedPlugin.calls("LANG1"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer.text;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisFeature;
+import keyterms.analyzer.Analyzer;
+import keyterms.analyzer.AnalyzerFactory;
+import keyterms.analyzer.AnalyzerId;
+import keyterms.analyzer.AnalyzerPlugin;
+import keyterms.analyzer.RejectedAnalysisException;
+import keyterms.nlp.iso.Language;
+import keyterms.nlp.iso.Script;
+
+/**
+ * A test plugin whose analyzers report whatever results the tests script for them.
+ *
+ * <p> The binary analyzers ({@code SNIFF}, {@code ENC1} and {@code ENC2}) report encodings, and the text analyzers
+ * ({@code LANG1}, {@code LANG2} and {@code LANG3}) report languages and scripts. Analyzers may also be scripted to
+ * detect the language of their input or to reject it. </p>
+ */
+public class ScriptedPlugin
+        implements AnalyzerPlugin {
+
+    private static final Map<String, List<TextInfo>> RESULTS = new ConcurrentHashMap<>();
+
+    private static final Map<String, AtomicInteger> CALLS = new ConcurrentHashMap<>();
+
+    private static final Set<String> REJECTING = ConcurrentHashMap.newKeySet();
+
+    private static final Map<String, Function<String, Language>> DETECTORS = new ConcurrentHashMap<>();
+
+    public static void reset() {
+        DETECTORS.clear();
+        RESULTS.clear();
+        CALLS.clear();
+        REJECTING.clear();
+    }
+
+    public static void encoding(String id, String... encodings) {
+        RESULTS.put(id, Arrays.stream(encodings).map((encoding) -> {
+            TextInfo textInfo = new TextInfo();
+            textInfo.setEncoding(encoding);
+            return textInfo;
+        }).collect(Collectors.toList()));
+    }
+
+    public static void language(String id, Language... languages) {
+        RESULTS.put(id, Arrays.stream(languages).map(ScriptedPlugin::textInfo).collect(Collectors.toList()));
+    }
+
+    private static TextInfo textInfo(Language language) {
+        TextInfo textInfo = new TextInfo();
+        textInfo.setLanguage(language);
+        textInfo.setScript(Script.LATN);
+        return textInfo;
+    }
+
+    public static void language(String id, Function<String, Language> detector) {
+        DETECTORS.put(id, detector);
+    }
+
+    public static void reject(String id) {
+        REJECTING.add(id);
+    }
+
+    public static int calls(String id) {
+        AtomicInteger calls = CALLS.get(id);
+        return (calls != null) ? calls.get() : 0;
+    }
+
+    @Override
+    public Set<AnalyzerFactory> getAnalyzerFactories() {
+        Set<AnalyzerFactory> factories = new HashSet<>();
+        for (String id : new String[] { "SNIFF", "ENC1", "ENC2" }) {
+            factories.add(factory(id, byte[].class, TextInfo.ENCODING));
+        }
+        for (String id : new String[] { "LANG1", "LANG2", "LANG3" }) {
+            factories.add(factory(id, CharSequence.class, TextInfo.LANGUAGE, TextInfo.SCRIPT));
+        }
+        return factories;
+    }
+
+    private static AnalyzerFactory factory(String id, Class<?> inputClass, AnalysisFeature<?>... features) {
+        Set<Class<?>> inputClasses = Collections.singleton(inputClass);
+        Set<AnalysisFeature<?>> outputFeatures = new HashSet<>(Arrays.asList(features));
+        return new AnalyzerFactory(new AnalyzerId(id), inputClasses, outputFeatures, true, true,
+                () -> new ScriptedAnalyzer(id, inputClasses, outputFeatures));
+    }
+
+    private static class ScriptedAnalyzer
+            extends Analyzer {
+
+        private final String id;
+
+        private ScriptedAnalyzer(String id, Set<Class<?>> inputClasses, Set<AnalysisFeature<?>> outputFeatures) {
+            super(inputClasses, outputFeatures, true, true);
+            this.id = id;
+        }
+
+        @Override
+        protected void _analyze(Object input, Consumer<Analysis> collector) {
+            CALLS.computeIfAbsent(id, (k) -> new AtomicInteger()).incrementAndGet();
+            if (REJECTING.contains(id)) {
+                throw new RejectedAnalysisException("Analyzer " + id + " rejected the input.");
+            }
+            List<TextInfo> results = RESULTS.getOrDefault(id, Collections.emptyList());
+            Function<String, Language> detector = DETECTORS.get(id);
+            if (detector != null) {
+                Language language = detector.apply(input.toString());
+                results = (language != null) ? Collections.singletonList(textInfo(language)) : Collections.emptyList();
+            }
+            for (int r = 0; r < results.size(); r++) {
+                TextInfo result = results.get(r).copy();
+                result.setScore(1.0 - r * 0.1);
+                collector.accept(result);
+            }
+        }
+
+        @Override
+        protected void _dispose() {
+            // Intentional NoOp
+        }
+    }
+}
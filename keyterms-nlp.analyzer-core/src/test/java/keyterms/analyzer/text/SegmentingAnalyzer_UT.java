@@ -0,0 +1,167 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer.text;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalyzerId;
+import keyterms.nlp.iso.Language;
+import keyterms.util.text.TextSplitter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentingAnalyzer_UT {
+
+    @Before
+    public void setUp() {
+        ScriptedPlugin.reset();
+        ScriptedPlugin.language("LANG1", (text) -> {
+            if (text.contains("slow")) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException interrupted) {
+                    return null;
+                }
+            }
+            return (text.contains("Bonjour")) ? Language.FRENCH
+                    : (text.contains("Hello")) ? Language.ENGLISH
+                    : null;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        ScriptedPlugin.reset();
+    }
+
+    private static List<Analysis> analyze(String text, int windowLength, Duration budget) {
+        SegmentingAnalyzer analyzer = new SegmentingAnalyzer(Collections.singleton(new AnalyzerId("LANG1")),
+                windowLength);
+        try {
+            return analyzer.analyze(text, budget);
+        } finally {
+            analyzer.dispose();
+        }
+    }
+
+    private static void assertSpan(Analysis span, Language language, int offset, int length) {
+        assertEquals(language, span.get(TextInfo.LANGUAGE));
+        assertEquals(offset, (int)span.get(SegmentingAnalyzer.OFFSET));
+        assertEquals(length, (int)span.get(TextInfo.LENGTH));
+    }
+
+    @Test
+    public void spans() {
+        String text = "Bonjour le monde. Hello world. Hello again. Bonjour encore.";
+        List<Analysis> spans = analyze(text, 0, null);
+        assertEquals(3, spans.size());
+        assertSpan(spans.get(0), Language.FRENCH, 0, 18);
+        // Agreeing neighbours are merged.
+        assertSpan(spans.get(1), Language.ENGLISH, 18, 26);
+        assertSpan(spans.get(2), Language.FRENCH, 44, text.length() - 44);
+    }
+
+    @Test
+    public void unidentifiedSegments() {
+        String text = "1234. Hello world. 5678. Bonjour le monde. 9012.";
+        List<Analysis> spans = analyze(text, 0, null);
+        assertEquals(2, spans.size());
+        // Unidentified text before the first span belongs to it, and later unidentified text to the preceding span.
+        assertSpan(spans.get(0), Language.ENGLISH, 0, 25);
+        assertSpan(spans.get(1), Language.FRENCH, 25, text.length() - 25);
+    }
+
+    @Test
+    public void noSpans() {
+        assertTrue(analyze("1234. 5678.", 0, null).isEmpty());
+        assertTrue(analyze("", 0, null).isEmpty());
+    }
+
+    @Test
+    public void windowedSpans() {
+        String text = "Hello world Hello world Bonjour monde Bonjour monde";
+        List<Analysis> spans = analyze(text, 12, null);
+        assertEquals(2, spans.size());
+        assertSpan(spans.get(0), Language.ENGLISH, 0, 24);
+        assertSpan(spans.get(1), Language.FRENCH, 24, text.length() - 24);
+    }
+
+    @Test
+    public void windows() {
+        TextSplitter windows = SegmentingAnalyzer.windows(8);
+        assertEquals(Collections.emptyList(), windows.split(""));
+        // Windows end after the last white space within the window.
+        assertEquals(List.of("hello ", "world ", "again"), windows.split("hello world again"));
+        // Windows without white space are cut at the window length.
+        assertEquals(List.of("abcdefgh", "ij"), windows.split("abcdefghij"));
+        // Surrogate pairs are never split.
+        String text = "abcdefg𝐀hi";
+        List<String> split = windows.split(text);
+        assertEquals(List.of("abcdefg", "𝐀hi"), split);
+        assertEquals(text, String.join("", SegmentingAnalyzer.windows(2).split(text)));
+        for (String window : SegmentingAnalyzer.windows(2).split("𝐀𝐁")) {
+            assertEquals(2, window.length());
+        }
+    }
+
+    @Test
+    public void invalidWindowLength() {
+        try {
+            SegmentingAnalyzer.windows(1);
+            fail("A window length of 1 was accepted.");
+        } catch (IllegalArgumentException expected) {
+            // Expected.
+        }
+        try {
+            new SegmentingAnalyzer(null, 1);
+            fail("A window length of 1 was accepted.");
+        } catch (IllegalArgumentException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void budget() {
+        String text = "Bonjour le monde. Hello slow world.";
+        long start = System.nanoTime();
+        List<Analysis> spans = analyze(text, 0, Duration.ofMillis(500));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        // The segment which exceeds the budget is left unidentified and attaches to the preceding span.
+        assertEquals(1, spans.size());
+        assertSpan(spans.get(0), Language.FRENCH, 0, text.length());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalyzerId;
+import keyterms.util.collect.Bags;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VotingAnalyzer_UT {
+
+    private static final byte[] INPUT = "plain ascii text".getBytes(StandardCharsets.US_ASCII);
+
+    @Before
+    public void setUp() {
+        ScriptedPlugin.reset();
+        ScriptedPlugin.encoding("SNIFF", "US-ASCII");
+        ScriptedPlugin.encoding("ENC1", "UTF-8");
+        ScriptedPlugin.encoding("ENC2", "UTF-8");
+    }
+
+    @After
+    public void tearDown() {
+        ScriptedPlugin.reset();
+    }
+
+    private static String encoding(VotingAnalyzer analyzer) {
+        try {
+            List<Analysis> analyses = analyzer.analyze(INPUT);
+            assertEquals(1, analyses.size());
+            return analyses.get(0).get(TextInfo.ENCODING);
+        } finally {
+            analyzer.dispose();
+        }
+    }
+
+    @Test
+    public void sniffDoesNotVoteByDefault() {
+        VotingAnalyzer analyzer = new VotingAnalyzer();
+        analyzer.setCascade(null);
+        assertEquals("utf-8", encoding(analyzer).toLowerCase());
+        assertEquals(0, ScriptedPlugin.calls("SNIFF"));
+        assertTrue(ScriptedPlugin.calls("ENC1") > 0);
+    }
+
+    @Test
+    public void sniffVotesWhenCascaded() {
+        VotingAnalyzer analyzer = new VotingAnalyzer();
+        analyzer.setCascade(Cascade.parse("unanimous|SNIFF|ENC1,ENC2"));
+        assertEquals("us-ascii", encoding(analyzer).toLowerCase());
+        assertEquals(1, ScriptedPlugin.calls("SNIFF"));
+        assertEquals(0, ScriptedPlugin.calls("ENC1"));
+        assertEquals(0, ScriptedPlugin.calls("ENC2"));
+    }
+
+    @Test
+    public void sniffVotesWhenSelected() {
+        VotingAnalyzer analyzer = new VotingAnalyzer(Bags.staticSet(new AnalyzerId("SNIFF")));
+        assertEquals("us-ascii", encoding(analyzer).toLowerCase());
+        assertEquals(0, ScriptedPlugin.calls("ENC1"));
+    }
+}
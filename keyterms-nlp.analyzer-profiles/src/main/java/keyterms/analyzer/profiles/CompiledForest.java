@@ -0,0 +1,404 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.analyzer.profiles;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.trees.RandomForest;
+import weka.classifiers.trees.RandomTree;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+/**
+ * A WEKA random forest compiled into flat arrays for allocation free classification.
+ *
+ * <p> The nodes of every tree are laid out in parallel arrays of split attributes, split thresholds and child offsets,
+ * and the normalized class distributions of the leaves are stored end to end in a single array.  Classification walks
+ * the arrays using a caller supplied vector of attribute values and accumulates the leaf distributions into a caller
+ * supplied array. </p>
+ * <p> Leaf distributions are normalized at compile time by the same WEKA routine used during tree traversal, and are
+ * summed and normalized in the same order as {@code RandomForest.distributionForInstance}, so the compiled forest
+ * produces exactly the same distributions as the original forest. </p>
+ * <p> WEKA splits instances with missing split attribute values between the branches of the tree.  The compiled forest
+ * does not; it reports such instances so that the caller can classify them with the original forest. </p>
+ * <p> Compiled forests are immutable and may be shared between threads. </p>
+ */
+public final class CompiledForest {
+    /**
+     * Compile the specified random forest.
+     *
+     * @param forest The trained random forest.
+     * @param header The attribute model the forest was trained on.
+     *
+     * @return The compiled forest.
+     *
+     * @throws Exception if the forest cannot be compiled
+     */
+    public static CompiledForest compile(RandomForest forest, Instances header)
+            throws Exception {
+        if (forest == null) {
+            throw new NullPointerException("Random forest is required.");
+        }
+        if (header == null) {
+            throw new NullPointerException("Attribute model is required.");
+        }
+        if ((header.classIndex() < 0) || (!header.classAttribute().isNominal())) {
+            throw new IllegalArgumentException("Only nominal class attributes can be compiled.");
+        }
+        Compiler compiler = new Compiler(header);
+        Classifier[] trees = (Classifier[])field(forest, "m_Classifiers");
+        int[] roots = new int[trees.length];
+        for (int t = 0; t < trees.length; t++) {
+            if (!(trees[t] instanceof RandomTree)) {
+                throw new IllegalArgumentException("Unsupported forest member: " + trees[t].getClass().getName());
+            }
+            roots[t] = compiler.addTree((RandomTree)trees[t]);
+        }
+        return new CompiledForest(header.numClasses(), roots, compiler);
+    }
+
+    /**
+     * Get the value of a (possibly inherited) non-public field.
+     *
+     * @param owner The object which owns the field.
+     * @param name The field name.
+     *
+     * @return The field value.
+     *
+     * @throws ReflectiveOperationException if the field cannot be read
+     */
+    private static Object field(Object owner, String name)
+            throws ReflectiveOperationException {
+        for (Class<?> type = owner.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(owner);
+            } catch (NoSuchFieldException missing) {
+                // Check the super class.
+            }
+        }
+        throw new NoSuchFieldException(owner.getClass().getName() + "." + name);
+    }
+
+    /**
+     * The number of class values.
+     */
+    private final int classes;
+
+    /**
+     * The root node of each tree.
+     */
+    private final int[] roots;
+
+    /**
+     * The split attribute of each node ({@code -1} for leaves).
+     */
+    private final int[] attributes;
+
+    /**
+     * Flags indicating whether each node splits on a nominal attribute.
+     */
+    private final boolean[] nominal;
+
+    /**
+     * The numeric split threshold of each node.
+     */
+    private final double[] thresholds;
+
+    /**
+     * The offset of the first child of each internal node, or the offset of the class distribution of each leaf.
+     */
+    private final int[] offsets;
+
+    /**
+     * The child nodes of the internal nodes.
+     */
+    private final int[] children;
+
+    /**
+     * The normalized class distributions of the leaves.
+     */
+    private final double[] distributions;
+
+    /**
+     * Constructor.
+     *
+     * @param classes The number of class values.
+     * @param roots The root node of each tree.
+     * @param compiler The compiler holding the nodes of the trees.
+     */
+    private CompiledForest(int classes, int[] roots, Compiler compiler) {
+        super();
+        this.classes = classes;
+        this.roots = roots;
+        attributes = compiler.attributes.stream().mapToInt(Integer::intValue).toArray();
+        nominal = new boolean[compiler.nominal.size()];
+        for (int n = 0; n < nominal.length; n++) {
+            nominal[n] = compiler.nominal.get(n);
+        }
+        thresholds = compiler.thresholds.stream().mapToDouble(Double::doubleValue).toArray();
+        offsets = compiler.offsets.stream().mapToInt(Integer::intValue).toArray();
+        children = compiler.children.stream().mapToInt(Integer::intValue).toArray();
+        distributions = compiler.distributions.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Get the number of trees in the forest.
+     *
+     * @return The number of trees in the forest.
+     */
+    public int getTreeCount() {
+        return roots.length;
+    }
+
+    /**
+     * Get the total number of nodes in the forest.
+     *
+     * @return The total number of nodes in the forest.
+     */
+    public int getNodeCount() {
+        return attributes.length;
+    }
+
+    /**
+     * Get the number of class values.
+     *
+     * @return The number of class values.
+     */
+    public int getClassCount() {
+        return classes;
+    }
+
+    /**
+     * Compute the class distribution for the specified attribute values.
+     *
+     * <p> Nominal attribute values are value indices, as in WEKA instances. </p>
+     *
+     * @param values The attribute values (indexed as in the attribute model).
+     * @param distribution The array which receives the class distribution (one element per class value).
+     *
+     * @return A flag indicating whether the distribution was computed ({@code false} if a split attribute value was
+     * missing).
+     */
+    public boolean distribution(double[] values, double[] distribution) {
+        Arrays.fill(distribution, 0);
+        for (int root : roots) {
+            int node = root;
+            while (attributes[node] >= 0) {
+                double value = values[attributes[node]];
+                if (Double.isNaN(value)) {
+                    return false;
+                }
+                int branch = (nominal[node]) ? (int)value : ((value < thresholds[node]) ? 0 : 1);
+                node = children[offsets[node] + branch];
+            }
+            int offset = offsets[node];
+            for (int c = 0; c < classes; c++) {
+                distribution[c] += distributions[offset + c];
+            }
+        }
+        if (!Utils.eq(Utils.sum(distribution), 0)) {
+            Utils.normalize(distribution);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + roots.length + " trees, " + attributes.length + " nodes]";
+    }
+
+    /**
+     * The working storage used to lay out the nodes of a forest.
+     */
+    private static class Compiler {
+        /**
+         * The attribute model the forest was trained on.
+         */
+        private final Instances header;
+
+        /**
+         * The split attribute of each node.
+         */
+        private final List<Integer> attributes = new ArrayList<>();
+
+        /**
+         * Flags indicating whether each node splits on a nominal attribute.
+         */
+        private final List<Boolean> nominal = new ArrayList<>();
+
+        /**
+         * The numeric split threshold of each node.
+         */
+        private final List<Double> thresholds = new ArrayList<>();
+
+        /**
+         * The child or class distribution offset of each node.
+         */
+        private final List<Integer> offsets = new ArrayList<>();
+
+        /**
+         * The child nodes of the internal nodes.
+         */
+        private final List<Integer> children = new ArrayList<>();
+
+        /**
+         * The normalized class distributions of the leaves.
+         */
+        private final List<Double> distributions = new ArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param header The attribute model the forest was trained on.
+         */
+        private Compiler(Instances header) {
+            super();
+            this.header = header;
+        }
+
+        /**
+         * Add the nodes of a tree.
+         *
+         * @param tree The tree.
+         *
+         * @return The root node of the tree.
+         *
+         * @throws Exception if the tree cannot be compiled
+         */
+        private int addTree(RandomTree tree)
+                throws Exception {
+            Classifier zeroR = (Classifier)field(tree, "m_zeroR");
+            if (zeroR != null) {
+                // Trees trained without usable attributes predict the class prior.
+                Instance instance = new DenseInstance(header.numAttributes());
+                instance.setDataset(header);
+                return addLeaf(addDistribution(zeroR.distributionForInstance(instance)));
+            }
+            Object root = field(tree, "m_Tree");
+            if (root == null) {
+                throw new IllegalArgumentException("Untrained random tree.");
+            }
+            return addNode(root, -1, tree.getAllowUnclassifiedInstances());
+        }
+
+        /**
+         * Add a tree node and its descendants.
+         *
+         * <p> WEKA falls back to the class distribution of the nearest ancestor which has one when a branch reaches
+         * an empty leaf.  Empty leaves are therefore compiled as leaves sharing that ancestor's distribution. </p>
+         *
+         * @param node The tree node.
+         * @param fallback The offset of the distribution of the nearest ancestor with one ({@code -1} for none).
+         * @param allowUnclassified A flag indicating whether empty leaves produce an all zero distribution.
+         *
+         * @return The index of the compiled node.
+         *
+         * @throws Exception if the node cannot be compiled
+         */
+        private int addNode(Object node, int fallback, boolean allowUnclassified)
+                throws Exception {
+            int attribute = (Integer)field(node, "m_Attribute");
+            double[] classDistribution = (double[])field(node, "m_ClassDistribution");
+            int own = -1;
+            if (classDistribution != null) {
+                double[] normalized = classDistribution.clone();
+                Utils.normalize(normalized);
+                own = addDistribution(normalized);
+            }
+            if (attribute == -1) {
+                int offset = own;
+                if (offset == -1) {
+                    offset = (allowUnclassified) ? addDistribution(new double[header.numClasses()]) : fallback;
+                }
+                if (offset == -1) {
+                    throw new IllegalArgumentException("Empty random tree.");
+                }
+                return addLeaf(offset);
+            }
+            Object[] successors = (Object[])field(node, "m_Successors");
+            int index = attributes.size();
+            attributes.add(attribute);
+            nominal.add(header.attribute(attribute).isNominal());
+            thresholds.add((Double)field(node, "m_SplitPoint"));
+            offsets.add(children.size());
+            for (Object ignored : successors) {
+                children.add(-1);
+            }
+            int first = offsets.get(index);
+            for (int s = 0; s < successors.length; s++) {
+                children.set(first + s, addNode(successors[s], (own != -1) ? own : fallback, allowUnclassified));
+            }
+            return index;
+        }
+
+        /**
+         * Add a leaf node.
+         *
+         * @param offset The offset of the leaf's class distribution.
+         *
+         * @return The index of the compiled node.
+         */
+        private int addLeaf(int offset) {
+            int index = attributes.size();
+            attributes.add(-1);
+            nominal.add(false);
+            thresholds.add(Double.NaN);
+            offsets.add(offset);
+            return index;
+        }
+
+        /**
+         * Add a class distribution.
+         *
+         * @param distribution The normalized class distribution.
+         *
+         * @return The offset of the distribution.
+         */
+        private int addDistribution(double[] distribution) {
+            if (distribution.length != header.numClasses()) {
+                throw new IllegalArgumentException("Invalid class distribution length: " + distribution.length);
+            }
+            int offset = distributions.size();
+            for (double probability : distribution) {
+                distributions.add(probability);
+            }
+            return offset;
+        }
+    }
+}
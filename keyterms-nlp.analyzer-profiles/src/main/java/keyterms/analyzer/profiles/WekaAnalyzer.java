@@ -39,11 +39,18 @@ import keyterms.analyzer.CoreAnalyzers;
 import keyterms.analyzer.profiles.model.FeatureData;
 import keyterms.analyzer.text.EnsembleAnalyzer;
 import keyterms.analyzer.text.TextInfo;
+import keyterms.analyzer.text.VotingAnalyzer;
 import keyterms.nlp.iso.Language;
 import keyterms.nlp.iso.Script;
+import keyterms.util.collect.Keyed;
 
 /**
  * A text analyzer which uses multiple random forest models to produce a single analysis.
+ *
+ * <p> If the analyzer has a cascade, a feature settled by one of its tiers is taken from the tier's election and the
+ * corresponding model is not consulted. </p>
+ * <p> The random forest models are read-only during analysis, so analyzer pools create their instances with the
+ * sharing constructor and deserialize a profile's models only once. </p>
  */
 public class WekaAnalyzer
         extends EnsembleAnalyzer
@@ -53,6 +60,11 @@ public class WekaAnalyzer
      */
     private static final long serialVersionUID = -3277600760635794585L;
 
+    /**
+     * The maximum number of votes per analyzer to consider in a cascade election.
+     */
+    private static final int MAX_VOTES = 5;
+
     /**
      * The identifiers for analyzers that must be present in the core analyzer pools for the analysis models to
      * function correctly.
@@ -74,6 +86,11 @@ public class WekaAnalyzer
      */
     private final WekaForest<Script> scriptAnalyzer;
 
+    /**
+     * A flag indicating whether the classification models belong to another analyzer instance.
+     */
+    private final boolean sharedModels;
+
     /**
      * Constructor.
      *
@@ -111,9 +128,32 @@ public class WekaAnalyzer
         this.encodingAnalyzer = encodingAnalyzer;
         this.languageAnalyzer = languageAnalyzer;
         this.scriptAnalyzer = scriptAnalyzer;
+        sharedModels = false;
         checkRequiredAnalyzers();
     }
 
+    /**
+     * Constructor.
+     *
+     * <p> The new analyzer shares the required analyzers and classification models of the specified analyzer.
+     * Disposing of the new analyzer does not dispose of the shared models. </p>
+     *
+     * @param analyzer The analyzer whose classification models are shared.
+     */
+    public WekaAnalyzer(WekaAnalyzer analyzer) {
+        super();
+        if (analyzer == null) {
+            throw new NullPointerException("Shared analyzer is required.");
+        }
+        requiredAnalyzers = analyzer.requiredAnalyzers;
+        // Each analyzer classifies through its own copies of the forests, which share the trees but not the
+        // working buffers.
+        encodingAnalyzer = new WekaForest<>(analyzer.encodingAnalyzer);
+        languageAnalyzer = new WekaForest<>(analyzer.languageAnalyzer);
+        scriptAnalyzer = new WekaForest<>(analyzer.scriptAnalyzer);
+        sharedModels = true;
+    }
+
     /**
      * Get the identifiers for analyzers that must be present in the core analyzer pools for the analysis models to
      * function correctly.
@@ -124,6 +164,33 @@ public class WekaAnalyzer
         return requiredAnalyzers;
     }
 
+    /**
+     * Get the classification model for encoding detection.
+     *
+     * @return The classification model for encoding detection.
+     */
+    WekaForest<String> getEncodingAnalyzer() {
+        return encodingAnalyzer;
+    }
+
+    /**
+     * Get the classification model for language detection.
+     *
+     * @return The classification model for language detection.
+     */
+    WekaForest<Language> getLanguageAnalyzer() {
+        return languageAnalyzer;
+    }
+
+    /**
+     * Get the classification model for script detection.
+     *
+     * @return The classification model for script detection.
+     */
+    WekaForest<Script> getScriptAnalyzer() {
+        return scriptAnalyzer;
+    }
+
     /**
      * Check that the required analyzers are available.
      *
@@ -146,11 +213,30 @@ public class WekaAnalyzer
         return new WekaWorking(input);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void scheduleAnalyzers(Working working) {
+        working.schedule(firstTier(requiredAnalyzers::contains),
+                (analyzer) -> ((analyzer.produces(TextInfo.ENCODING)) ||
+                        (analyzer.produces(TextInfo.LANGUAGE)) ||
+                        (analyzer.produces(TextInfo.SCRIPT))));
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void identifyEncoding(Working working) {
+        if (((WekaWorking)working).originalBinary) {
+            List<Keyed<String, Double>> electionResults = elect(working, requiredAnalyzers::contains,
+                    TextInfo.ENCODING, VotingAnalyzer::normalizeEncoding, MAX_VOTES);
+            if ((electionResults != null) && (!electionResults.isEmpty())) {
+                working.setEncoding(electionResults.get(0).getKey());
+                return;
+            }
+        }
         FeatureData featureData = ((WekaWorking)working).getFeatureData();
         TextModels.fillFeatures(working.getTextInfo(), featureData,
                 encodingAnalyzer.getFeatureModel(),
@@ -171,6 +257,12 @@ public class WekaAnalyzer
      */
     @Override
     protected void identifyLanguage(Working working) {
+        List<Keyed<Language, Double>> electionResults = elect(working, requiredAnalyzers::contains,
+                TextInfo.LANGUAGE, null, MAX_VOTES);
+        if ((electionResults != null) && (!electionResults.isEmpty())) {
+            working.setLanguage(electionResults.get(0).getKey());
+            return;
+        }
         FeatureData featureData = ((WekaWorking)working).getFeatureData();
         TextModels.fillFeatures(working.getTextInfo(), featureData,
                 languageAnalyzer.getFeatureModel(),
@@ -191,6 +283,12 @@ public class WekaAnalyzer
      */
     @Override
     protected void identifyScript(Working working) {
+        List<Keyed<Script, Double>> electionResults = elect(working, requiredAnalyzers::contains,
+                TextInfo.SCRIPT, null, MAX_VOTES);
+        if ((electionResults != null) && (!electionResults.isEmpty())) {
+            working.setScript(electionResults.get(0).getKey());
+            return;
+        }
         FeatureData featureData = ((WekaWorking)working).getFeatureData();
         TextModels.fillFeatures(working.getTextInfo(), featureData,
                 scriptAnalyzer.getFeatureModel(),
@@ -211,6 +309,9 @@ public class WekaAnalyzer
      */
     @Override
     protected void _dispose() {
+        if (sharedModels) {
+            return;
+        }
         encodingAnalyzer.dispose();
         languageAnalyzer.dispose();
         scriptAnalyzer.dispose();
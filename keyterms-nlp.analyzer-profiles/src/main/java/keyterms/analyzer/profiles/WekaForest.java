@@ -29,6 +29,7 @@ package keyterms.analyzer.profiles;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
@@ -52,6 +53,13 @@ import weka.core.SparseInstance;
 
 /**
  * A WEKA based random forest classifier.
+ *
+ * <p> The random forest is compiled into a {@link CompiledForest} when the classifier is created or deserialized.
+ * Inputs are classified with the compiled forest, which produces the same distributions as WEKA, unless the forest
+ * could not be compiled or a split attribute value is missing. </p>
+ * <p> Each classifier reuses its own attribute value and class distribution buffers, so a classifier handles one
+ * input at a time. Analyzers which share a forest across threads classify through copies made with
+ * {@link #WekaForest(WekaForest)}, which share the forest but not the buffers. </p>
  */
 public class WekaForest<C>
         extends Analyzer {
@@ -113,6 +121,21 @@ public class WekaForest<C>
      */
     private final AnalysisFeature<C> outputFeature;
 
+    /**
+     * The flat array form of the random forest ({@code null} if the forest could not be compiled).
+     */
+    private transient CompiledForest compiledForest;
+
+    /**
+     * The attribute values of the input being classified (allocated on first use).
+     */
+    private transient double[] values;
+
+    /**
+     * The class distribution of the input being classified (allocated on first use).
+     */
+    private transient double[] distribution;
+
     /**
      * Constructor.
      *
@@ -157,6 +180,36 @@ public class WekaForest<C>
         this.wekaModel = wekaModel;
         this.classifier = classifier;
         this.outputFeature = outputFeature;
+        compile();
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p> The new classifier shares the models and forest of the specified classifier, but has its own working
+     * buffers. </p>
+     *
+     * @param forest The classifier whose models and forest are shared.
+     */
+    WekaForest(WekaForest<C> forest) {
+        super(INPUT_CLASSES, Bags.staticSet(forest.outputFeature), PRODUCES_RANKINGS, PRODUCES_SCORES);
+        featureModel = forest.featureModel;
+        wekaModel = forest.wekaModel;
+        classifier = forest.classifier;
+        outputFeature = forest.outputFeature;
+        compiledForest = forest.compiledForest;
+    }
+
+    /**
+     * Compile the random forest into its flat array form.
+     */
+    private void compile() {
+        try {
+            compiledForest = CompiledForest.compile(classifier, wekaModel);
+        } catch (Exception error) {
+            getLogger().warn("Could not compile random forest; WEKA will be used for classification.", error);
+            compiledForest = null;
+        }
     }
 
     /**
@@ -186,35 +239,50 @@ public class WekaForest<C>
         return outputFeature;
     }
 
+    /**
+     * Get the random forest classifier.
+     *
+     * @return The random forest classifier.
+     */
+    RandomForest getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Get the flat array form of the random forest.
+     *
+     * @return The compiled random forest ({@code null} if the forest could not be compiled).
+     */
+    CompiledForest getCompiledForest() {
+        return compiledForest;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     @SuppressWarnings("unchecked")
-    protected void _analyze(Object input, Consumer<Analysis> collector) {
+    protected synchronized void _analyze(Object input, Consumer<Analysis> collector) {
         FeatureData inputData = (FeatureData)input;
-        Instance toClassify = new SparseInstance(wekaModel.numAttributes());
-        toClassify.setDataset(wekaModel);
+        if (values == null) {
+            values = new double[wekaModel.numAttributes()];
+            distribution = new double[wekaModel.numClasses()];
+        }
+        Arrays.fill(values, 0);
         try {
             inputData.getFeatures().forEach((feature, value) -> {
                 Attribute attribute = wekaModel.attribute(feature.name());
                 if (attribute != null) {
                     if (attribute.isNumeric()) {
-                        toClassify.setValue(attribute, ((Number)value).doubleValue());
+                        values[attribute.index()] = ((Number)value).doubleValue();
                     } else {
-                        String textValue = null;
                         int valueIndex = -1;
                         if (value != null) {
                             ModelFeature<Object> omf = (ModelFeature<Object>)feature;
-                            textValue = omf.asText(value);
-                            valueIndex = attribute.indexOfValue(textValue);
+                            valueIndex = attribute.indexOfValue(omf.asText(value));
                         }
                         if (valueIndex != -1) {
-                            try {
-                                toClassify.setValue(attribute, textValue);
-                            } catch (Exception illegal) {
-                                getLogger().debug("Bad value for {} = {}", attribute.name(), value);
-                            }
+                            values[attribute.index()] = valueIndex;
                         } else {
                             getLogger().debug("Novel value for {} = {}", attribute.name(), value);
                         }
@@ -223,7 +291,13 @@ public class WekaForest<C>
                     getLogger().warn("Unknown model feature: {}", feature);
                 }
             });
-            double[] distribution = classifier.distributionForInstance(toClassify);
+            double[] distribution = this.distribution;
+            if ((compiledForest == null) || (!compiledForest.distribution(values, distribution))) {
+                // Unset sparse values are zero, as they are in the value array.
+                Instance toClassify = new SparseInstance(1.0, values);
+                toClassify.setDataset(wekaModel);
+                distribution = classifier.distributionForInstance(toClassify);
+            }
             List<Keyed<Integer, Double>> sorted = new ArrayList<>();
             for (int d = 0; d < distribution.length; d++) {
                 if (distribution[d] > 0) {
@@ -277,6 +351,7 @@ public class WekaForest<C>
      */
     private Object readResolve() {
         wekaModel.clear();
+        compile();
         return this;
     }
 }
\ No newline at end of file
@@ -31,13 +31,15 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import keyterms.analyzer.AnalysisCache;
 import keyterms.analyzer.Analyzer;
 import keyterms.analyzer.AnalyzerFactory;
 import keyterms.analyzer.AnalyzerId;
@@ -84,7 +86,7 @@ public class WekaProfiles {
     /**
      * The analyzer thread pools keyed by the factory identifier.
      */
-    private final Map<WekaProfile, WekaPool> analyzerPools = new HashMap<>();
+    private final Map<WekaProfile, WekaPool> analyzerPools = new ConcurrentHashMap<>();
 
     /**
      * Constructor.
@@ -135,21 +137,39 @@ public class WekaProfiles {
                                             });
                                             Path analyzerFile = profileInfo.getParent().resolve("profile_analyzer.ser");
                                             String profileId = "profile." + profile.getName();
-                                            analyzerPools.put(profile, new WekaPool(new AnalyzerFactory(
+                                            // The models are deserialized once and shared by every pool instance.
+                                            Lazy<WekaAnalyzer> sharedAnalyzer = new Lazy<>(() -> {
+                                                try {
+                                                    return Serialization.fromBytes(WekaAnalyzer.class,
+                                                            IO.readBytes(analyzerFile));
+                                                } catch (Exception error) {
+                                                    getLogger().error("Could not read profile analyzer: {}",
+                                                            analyzerFile, error);
+                                                    return null;
+                                                }
+                                            });
+                                            WekaPool pool = new WekaPool(new AnalyzerFactory(
                                                     new AnalyzerId(profileId),
                                                     WekaAnalyzer.INPUT_CLASSES,
                                                     WekaAnalyzer.OUTPUT_FEATURES,
                                                     WekaAnalyzer.PRODUCES_RANKINGS,
                                                     WekaAnalyzer.PRODUCES_SCORES,
                                                     () -> {
-                                                        try {
-                                                            return Serialization.fromBytes(WekaAnalyzer.class,
-                                                                    IO.readBytes(analyzerFile));
-                                                        } catch (Exception error) {
+                                                        WekaAnalyzer shared = sharedAnalyzer.value();
+                                                        if (shared == null) {
                                                             throw new IllegalStateException(
-                                                                    "Could not instantiate profile analyzer.", error);
+                                                                    "Could not instantiate profile analyzer.");
                                                         }
-                                                    })));
+                                                        return new WekaAnalyzer(shared);
+                                                    }));
+                                            analyzerPools.put(profile, pool);
+                                            pool.whenReady().exceptionally((error) -> {
+                                                getLogger().error("Could not load profile analyzer: {}",
+                                                        profileId, error);
+                                                analyzerPools.remove(profile, pool);
+                                                pool.dispose();
+                                                return null;
+                                            });
                                             getLogger().info("Loaded profile analyzer: {}", profileId);
                                         }
                                     } catch (Exception error) {
@@ -196,6 +216,26 @@ public class WekaProfiles {
         return analyzerPools.keySet();
     }
 
+    /**
+     * Determine if every profile analyzer thread pool has finished warming up.
+     *
+     * @return A flag indicating whether every profile analyzer thread pool has finished warming up.
+     */
+    public boolean isReady() {
+        return whenReady().isDone();
+    }
+
+    /**
+     * Get a future which completes once every profile analyzer thread pool loaded so far has finished warming up.
+     *
+     * @return A future which completes once every profile analyzer thread pool has finished warming up.
+     */
+    public CompletableFuture<Void> whenReady() {
+        return CompletableFuture.allOf(analyzerPools.values().stream()
+                .map((pool) -> pool.whenReady().exceptionally((error) -> null))
+                .toArray(CompletableFuture<?>[]::new));
+    }
+
     /**
      * Get the analyzer of the specified name.
      *
@@ -213,6 +253,15 @@ public class WekaProfiles {
         return analyzer;
     }
 
+    /**
+     * Set the cache of analysis results shared by all of the profile analyzer thread pools.
+     *
+     * @param cache The cache of analysis results to use ({@code null} to disable caching).
+     */
+    public void setCache(AnalysisCache cache) {
+        analyzerPools.values().forEach((pool) -> pool.setCache(cache));
+    }
+
     /**
      * Dispose of the analyzer pool resources.
      */
@@ -0,0 +1,205 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer.profiles;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import keyterms.analyzers.ngram.NgramAnalyzer;
+import keyterms.analyzers.ngram.NgramModel;
+import keyterms.analyzers.ngram.NgramModelBuilder;
+import keyterms.nlp.iso.WrittenLanguage;
+import keyterms.util.Errors;
+import keyterms.util.config.Args;
+import keyterms.util.io.Encoding;
+import keyterms.util.io.IO;
+import keyterms.util.io.Serialization;
+import keyterms.util.text.Strings;
+
+/**
+ * A utility for building the compact n-gram language identification models used by the {@code NgramAnalyzer}.
+ *
+ * <p> The training and testing index files are the same as those used by the {@link Trainer}. The model is written
+ * into an archive in {@code build/artifacts/models} which may be placed on the class path of the analyzer. </p>
+ *
+ * <p> The model bundled with the analyzer is trained from the UDHR index files written by
+ * {@code PrepareUdhrData.prepareNgramData} with the default order and bucket count. </p>
+ *
+ * <p>Usage example:
+ * <ul>
+ * <li>
+ * java keyterms.analyzer.profiles.NgramTrainer name=udhr_ngram train=.local/data/udhr_ngram_train.idx
+ * test=.local/data/udhr_ngram_test.idx order=3 buckets=16384
+ * </li>
+ * </ul>
+ */
+public class NgramTrainer {
+    /**
+     * The input parameter containing the path to the training index file.
+     */
+    private static final String TRAIN_FILE = "train";
+
+    /**
+     * The input parameter containing the path to the testing index file.
+     */
+    private static final String TEST_FILE = "test";
+
+    /**
+     * The input parameter containing the maximum n-gram length.
+     */
+    private static final String ORDER = "order";
+
+    /**
+     * The input parameter containing the number of hash buckets.
+     */
+    private static final String BUCKETS = "buckets";
+
+    /**
+     * Command line entry point.
+     *
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        try {
+            Args clArgs = new Args(args);
+            String name = Strings.toLowerCase(Strings.trim(clArgs.getText(Trainer.PROFILE_NAME).orElse(null)));
+            if (Strings.isBlank(name)) {
+                Trainer.exit("No model name specified.", Trainer.ExitCode.NO_PROFILE);
+            }
+            Path inputFile = IO.normalize(clArgs.getText(TRAIN_FILE).orElse(null));
+            if (!IO.exists(inputFile)) {
+                Trainer.exit("Could not find training input file: " + inputFile, Trainer.ExitCode.NO_TRAINING);
+            }
+            NgramModelBuilder builder = new NgramModelBuilder(
+                    clArgs.getInteger(ORDER).orElse(NgramModelBuilder.DEFAULT_ORDER),
+                    clArgs.getInteger(BUCKETS).orElse(NgramModelBuilder.DEFAULT_BUCKETS));
+            NgramModel model = train(builder, InputParser.loadInputRecords(inputFile));
+            createArtifact(name, model);
+            String testFileName = clArgs.getText(TEST_FILE).orElse(null);
+            if (!Strings.isBlank(testFileName)) {
+                Path testFile = IO.normalize(testFileName);
+                if (IO.exists(testFile)) {
+                    test(model, InputParser.loadInputRecords(testFile));
+                } else {
+                    getLogger().warn("Could not find testing input file: {}", testFile);
+                }
+            }
+        } catch (Exception error) {
+            Trainer.exit("Fatal error: " + Errors.getSimpleErrorMessage(error) +
+                            "\n" + Errors.stackTraceOf(error),
+                    Trainer.ExitCode.FATAL_ERROR);
+        }
+    }
+
+    /**
+     * Get the logging topic for this class.
+     *
+     * @return The logging topic for this class.
+     */
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(NgramTrainer.class.getSimpleName());
+    }
+
+    /**
+     * Train a model.
+     *
+     * <p> Records whose decoded text has already been seen (e.g. the same text in several encodings) are only used
+     * once. </p>
+     *
+     * @param builder The model builder.
+     * @param records The training records.
+     *
+     * @return The trained model.
+     */
+    private static NgramModel train(NgramModelBuilder builder, List<InputRecord> records) {
+        getLogger().info("Training n-gram model.");
+        Set<String> seen = new HashSet<>();
+        for (InputRecord record : records) {
+            String text = Encoding.decode(record.data, Encoding.getCharset(record.encoding));
+            if (seen.add(text)) {
+                builder.add(new WrittenLanguage(record.language, record.script), text);
+            }
+        }
+        NgramModel model = builder.build();
+        getLogger().info("Trained {} from {} texts.", model, seen.size());
+        return model;
+    }
+
+    /**
+     * Create the model artifact.
+     *
+     * @param name The name of the model.
+     * @param model The trained model.
+     */
+    private static void createArtifact(String name, NgramModel model)
+            throws Exception {
+        Path outputDir = IO.normalize("build/artifacts/models");
+        IO.createDirectory(outputDir);
+        Path archive = outputDir.resolve(name + ".jar");
+        getLogger().info("Creating model artifact: {}", archive);
+        if (IO.isValidFile(archive)) {
+            getLogger().info("Removing existing artifact.");
+            IO.delete(archive);
+        }
+        IO.inArchive(archive, true, (root) -> {
+            IO.createDirectory(root.resolve("META-INF"));
+            IO.writeText(root.resolve("META-INF/Manifest.MF"), "Manifest-Version: 1.0", Encoding.UTF8);
+            IO.writeBytes(root.resolve(NgramAnalyzer.MODEL_RESOURCE), Serialization.toBytes(model));
+        });
+    }
+
+    /**
+     * Report the accuracy of a model's language and script identification.
+     *
+     * @param model The trained model.
+     * @param records The testing records.
+     */
+    private static void test(NgramModel model, List<InputRecord> records) {
+        float[] scores = new float[model.getClassCount()];
+        int languageHits = 0;
+        int scriptHits = 0;
+        for (InputRecord record : records) {
+            String text = Encoding.decode(record.data, Encoding.getCharset(record.encoding));
+            model.score(text, scores);
+            int best = 0;
+            for (int c = 1; c < scores.length; c++) {
+                if (scores[c] > scores[best]) {
+                    best = c;
+                }
+            }
+            languageHits += (record.language.equals(model.getLanguage(best))) ? 1 : 0;
+            scriptHits += (record.script.equals(model.getScript(best))) ? 1 : 0;
+        }
+        getLogger().info("Language accuracy: {} / {}", languageHits, records.size());
+        getLogger().info("Script accuracy: {} / {}", scriptHits, records.size());
+    }
+}
@@ -27,6 +27,7 @@
 package keyterms.analyzer.profiles;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -155,9 +156,42 @@ public class WekaForestBuilder<C> {
         timing.finish();
         WekaForest<C> classifier = new WekaForest<>(featureModel, dataSet, forest, outputFeature);
         getLogger().info("Created WEKA random forest classifier in {}.", timing.summary(2));
+        checkCompiledForest(classifier);
         return classifier;
     }
 
+    /**
+     * Check that the compiled form of a newly trained classifier reproduces the WEKA class distributions for the
+     * training data.
+     *
+     * @param classifier The classifier.
+     *
+     * @throws Exception any exception
+     */
+    private void checkCompiledForest(WekaForest<C> classifier)
+            throws Exception {
+        CompiledForest compiledForest = classifier.getCompiledForest();
+        if (compiledForest == null) {
+            getLogger().warn("Random forest could not be compiled.");
+            return;
+        }
+        Instances dataSet = classifier.getWekaModel();
+        double[] distribution = new double[dataSet.numClasses()];
+        int mismatches = 0;
+        for (Instance instance : dataSet) {
+            if ((!compiledForest.distribution(instance.toDoubleArray(), distribution)) ||
+                    (!Arrays.equals(distribution, classifier.getClassifier().distributionForInstance(instance)))) {
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            getLogger().error("Compiled random forest differs from WEKA for {} of {} training records.",
+                    mismatches, dataSet.size());
+        } else {
+            getLogger().info("Compiled {} matches WEKA for all {} training records.", compiledForest, dataSet.size());
+        }
+    }
+
     /**
      * Get the WEKA attribute equivalent to the specified feature.
      *
@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -76,6 +77,17 @@ public class PrepareUdhrData {
 
     private static final Pattern SECTION_HEADER = Pattern.compile("^([^\\s]+\\s+)?\\d+\\.?\\s*$");
 
+    // The UDHR texts of individual languages which are identified by their macro-language.
+    private static final Map<String, Language> MACRO_LANGUAGES = Bags.staticMap(
+            Keyed.of("arb", Language.ARABIC),
+            Keyed.of("cmn", Language.CHINESE),
+            Keyed.of("ekk", Language.ESTONIAN),
+            Keyed.of("lvs", Language.LATVIAN)
+    );
+
+    // The number of consecutive paragraphs assigned to the same side of the n-gram training/testing split.
+    private static final int NGRAM_SPLIT = 4;
+
     private static final Lazy<List<Keyed<Language, String>>> UDHR_DATA = new Lazy<>(() -> {
         List<Keyed<Language, String>> udhrTexts = new ArrayList<>();
         Path udhrZip = null;
@@ -158,6 +170,75 @@ public class PrepareUdhrData {
         prepareUdhrData("test");
     }
 
+    // Prepares the n-gram model data: whole paragraphs of each text alternate between training and testing.
+    @Test
+    public void prepareNgramData() {
+        Set<Language> languages = getNgramLanguages();
+        List<InputRecord> trainingData = new ArrayList<>();
+        List<InputRecord> testData = new ArrayList<>();
+        Path out = DATA_DIR.resolve("udhr_ngram");
+        try {
+            IO.createDirectory(out);
+            Path udhrZip = IO.find((p) -> "udhr_txt.zip".equals(IO.getName(p)));
+            assertNotNull(udhrZip);
+            IO.inArchive(udhrZip, (archiveRoot) -> {
+                PathFinder pathFinder = new PathFinder((p) -> "index.xml".equals(IO.getName(p)));
+                IO.walk(archiveRoot, pathFinder);
+                Document indexDoc = DocumentHelper.parseText(IO.readText(pathFinder.getPath(), Encoding.UTF8));
+                List<Element> tags = indexDoc.getRootElement().elements("udhr");
+                for (Element tag : tags) {
+                    String isoCode = tag.attributeValue("iso639-3");
+                    Language language = MACRO_LANGUAGES.getOrDefault(isoCode, Language.byCode(isoCode));
+                    Script script = Script.byCode(tag.attributeValue("iso15924"));
+                    if ((language == null) || (script == null) || (!languages.contains(language))) {
+                        continue;
+                    }
+                    String fid = tag.attributeValue("f");
+                    pathFinder = new PathFinder((p) -> ("udhr_" + fid + ".txt").equals(IO.getName(p)));
+                    IO.walk(archiveRoot, pathFinder);
+                    if (pathFinder.getPath() == null) {
+                        getLogger().trace("Could not load UDHR text for {}", language);
+                        continue;
+                    }
+                    String text = IO.readText(pathFinder.getPath(), Encoding.UTF8);
+                    List<String> paragraphs = new LineSplitter().split(text.substring(text.indexOf("---") + 3))
+                            .stream()
+                            .filter((line) -> !Strings.isBlank(line))
+                            .map(Strings::trim)
+                            .collect(Collectors.toList());
+                    StringBuilder[] halves = { new StringBuilder(), new StringBuilder() };
+                    for (int p = 0; p < paragraphs.size(); p++) {
+                        halves[(p / NGRAM_SPLIT) % 2].append(paragraphs.get(p)).append("\n");
+                    }
+                    for (int h = 0; h < halves.length; h++) {
+                        Path file = out.resolve(fid + ((h == 0) ? "_train" : "_test") + ".txt");
+                        IO.writeText(file, halves[h], Encoding.UTF8);
+                        InputRecord record = new InputRecord();
+                        record.inputFile = DATA_DIR.relativize(file).toString();
+                        record.encoding = "utf-8";
+                        record.language = language;
+                        record.script = script;
+                        ((h == 0) ? trainingData : testData).add(record);
+                    }
+                }
+            });
+            writeIndex(DATA_DIR.resolve("udhr_ngram_train.idx"), trainingData);
+            writeIndex(DATA_DIR.resolve("udhr_ngram_test.idx"), testData);
+        } catch (Exception error) {
+            getLogger().error("Could not prepare n-gram data.", error);
+        }
+        getLogger().info("Prepared {} n-gram training texts.", trainingData.size());
+    }
+
+    private static Set<Language> getNgramLanguages() {
+        Set<Language> languages = Bags.hashSet(
+                Language.CHINESE, Language.HEBREW, Language.JAPANESE, Language.KOREAN, Language.UKRANIAN,
+                Language.byCode("hin"), Language.byCode("tha"));
+        languages.addAll(Language.UN_LANGUAGES);
+        languages.addAll(Language.EU_LANGUAGES);
+        return languages;
+    }
+
     private void prepareUdhrData(String label) {
         List<Keyed<Language, String>> udhrData = UDHR_DATA.value();
         assertNotNull(udhrData);
@@ -228,22 +309,26 @@ public class PrepareUdhrData {
             }
             getLogger().info("Processed: {} / {} languages.", ++idx, chunks.size());
         }
-        Path index = DATA_DIR.resolve("udhr_" + label + ".idx");
-        getLogger().info("Writing training index at {}", index);
-        StringBuilder out = new StringBuilder();
         try {
-            out.append("File,Encoding,Language,Script\n");
-            for (InputRecord record : trainingData) {
-                String row = record.inputFile.replaceAll("\\\\", "/") + "," + record.encoding + ","
-                        + record.language.getCode() + "," + record.script.getCode() + "\n";
-                out.append(row);
-            }
-            IO.writeText(index, out, Encoding.UTF8);
+            writeIndex(DATA_DIR.resolve("udhr_" + label + ".idx"), trainingData);
         } catch (Exception error) {
             getLogger().error("Could not create training index.", error);
         }
     }
 
+    private static void writeIndex(Path index, List<InputRecord> records)
+            throws Exception {
+        getLogger().info("Writing training index at {}", index);
+        StringBuilder out = new StringBuilder();
+        out.append("File,Encoding,Language,Script\n");
+        for (InputRecord record : records) {
+            String row = record.inputFile.replaceAll("\\\\", "/") + "," + record.encoding + ","
+                    + record.language.getCode() + "," + record.script.getCode() + "\n";
+            out.append(row);
+        }
+        IO.writeText(index, out, Encoding.UTF8);
+    }
+
     private static class UdhrChunker
             implements TextSplitter {
 
@@ -0,0 +1,134 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzer.profiles;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import keyterms.analyzer.AnalyzerFactory;
+import keyterms.analyzer.AnalyzerId;
+import keyterms.testing.TestFiles;
+import keyterms.util.io.IO;
+import keyterms.util.io.Serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class WekaAnalyzer_UT {
+
+    private static WekaAnalyzer readProfileAnalyzer()
+            throws Exception {
+        Path profileJar = TestFiles.locateFile(File.separator + "udhr_test.jar");
+        assertNotNull(profileJar);
+        List<WekaAnalyzer> analyzer = new ArrayList<>();
+        IO.inArchive(profileJar, (root) -> analyzer.add(Serialization.fromBytes(WekaAnalyzer.class,
+                IO.readBytes(root.resolve("profile_analyzer.ser")))));
+        assertEquals(1, analyzer.size());
+        return analyzer.get(0);
+    }
+
+    private static void assertShared(WekaAnalyzer owner, WekaAnalyzer analyzer) {
+        assertSame(owner.getRequiredAnalyzers(), analyzer.getRequiredAnalyzers());
+        // Each analyzer has its own forests, but the compiled trees are shared.
+        assertNotSame(owner.getEncodingAnalyzer(), analyzer.getEncodingAnalyzer());
+        assertSame(owner.getEncodingAnalyzer().getCompiledForest(),
+                analyzer.getEncodingAnalyzer().getCompiledForest());
+        assertSame(owner.getLanguageAnalyzer().getCompiledForest(),
+                analyzer.getLanguageAnalyzer().getCompiledForest());
+        assertSame(owner.getScriptAnalyzer().getCompiledForest(),
+                analyzer.getScriptAnalyzer().getCompiledForest());
+    }
+
+    private static void assertModelsAvailable(WekaAnalyzer analyzer, boolean available) {
+        assertEquals(available, analyzer.getEncodingAnalyzer().isAvailable());
+        assertEquals(available, analyzer.getLanguageAnalyzer().isAvailable());
+        assertEquals(available, analyzer.getScriptAnalyzer().isAvailable());
+    }
+
+    @Test
+    public void sharedModels()
+            throws Exception {
+        WekaAnalyzer owner = readProfileAnalyzer();
+        WekaAnalyzer first = new WekaAnalyzer(owner);
+        WekaAnalyzer second = new WekaAnalyzer(owner);
+        assertShared(owner, first);
+        assertShared(owner, second);
+        // Disposing of a sharing analyzer leaves the shared models in place.
+        first.dispose();
+        assertFalse(first.isAvailable());
+        assertModelsAvailable(owner, true);
+        assertModelsAvailable(second, true);
+        second.dispose();
+        assertModelsAvailable(owner, true);
+        // The owner disposes of its own models.
+        owner.dispose();
+        assertModelsAvailable(owner, false);
+    }
+
+    @Test
+    public void sharedPoolModels()
+            throws Exception {
+        WekaAnalyzer owner = readProfileAnalyzer();
+        List<WekaAnalyzer> created = new ArrayList<>();
+        WekaPool pool = new WekaPool(new AnalyzerFactory(
+                new AnalyzerId("profile.test"),
+                WekaAnalyzer.INPUT_CLASSES,
+                WekaAnalyzer.OUTPUT_FEATURES,
+                WekaAnalyzer.PRODUCES_RANKINGS,
+                WekaAnalyzer.PRODUCES_SCORES,
+                () -> {
+                    WekaAnalyzer analyzer = new WekaAnalyzer(owner);
+                    synchronized (created) {
+                        created.add(analyzer);
+                    }
+                    return analyzer;
+                }));
+        try {
+            pool.whenReady().join();
+            assertSame(owner.getRequiredAnalyzers(), pool.getRequiredAnalyzers());
+        } finally {
+            pool.dispose();
+        }
+        synchronized (created) {
+            assertFalse(created.isEmpty());
+            created.forEach((analyzer) -> {
+                assertShared(owner, analyzer);
+                assertFalse(analyzer.isAvailable());
+            });
+        }
+        // Disposing of the pool does not dispose of the models it shared.
+        assertModelsAvailable(owner, true);
+        owner.dispose();
+    }
+}
@@ -26,7 +26,14 @@
 
 package keyterms.analyzer.profiles;
 
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.junit.Assert;
@@ -36,14 +43,26 @@ import keyterms.analyzer.Analysis;
 import keyterms.analyzer.AnalysisFeature;
 import keyterms.analyzer.profiles.model.EnumeratedFeature;
 import keyterms.analyzer.profiles.model.FeatureModel;
+import keyterms.analyzer.profiles.model.IntegerFeature;
 import keyterms.analyzer.profiles.model.ModelFeature;
 import keyterms.analyzer.profiles.model.NominalFeature;
+import keyterms.testing.TestFiles;
 import keyterms.testing.Tests;
+import keyterms.util.io.IO;
+import keyterms.util.io.Serialization;
 import keyterms.util.text.parser.Parsers;
 import keyterms.util.text.splitter.LineSplitter;
 
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class WekaForest_UT {
@@ -64,6 +83,22 @@ public class WekaForest_UT {
                     "overcast,hot,normal,FALSE,yes\n" +
                     "rainy,mild,high,TRUE,no\n";
 
+    static final String NUMERIC_WEATHER_DATA =
+            "sunny,85,85,FALSE,no\n" +
+                    "sunny,80,90,TRUE,no\n" +
+                    "overcast,83,86,FALSE,yes\n" +
+                    "rainy,70,96,FALSE,yes\n" +
+                    "rainy,68,80,FALSE,yes\n" +
+                    "rainy,65,70,TRUE,no\n" +
+                    "overcast,64,65,TRUE,yes\n" +
+                    "sunny,72,95,FALSE,no\n" +
+                    "sunny,69,70,FALSE,yes\n" +
+                    "rainy,75,80,FALSE,yes\n" +
+                    "sunny,75,70,TRUE,yes\n" +
+                    "overcast,72,90,TRUE,yes\n" +
+                    "overcast,81,75,FALSE,yes\n" +
+                    "rainy,71,91,TRUE,no\n";
+
     @Test
     @SuppressWarnings("unchecked")
     public void weatherSample()
@@ -111,6 +146,129 @@ public class WekaForest_UT {
         assertEquals(forest.getOutputFeature(), copy.getOutputFeature());
         assertTrue(copy.isAvailable());
         testForest(rawRecords, copy);
+        // Classifiers sharing a forest have their own working buffers.
+        WekaForest<Boolean> shared = new WekaForest<>(forest);
+        testForest(rawRecords, shared);
+        testForest(rawRecords, forest);
+        assertSame(forest.getCompiledForest(), shared.getCompiledForest());
+    }
+
+    @Test
+    public void compiledParity()
+            throws Exception {
+        testCompiledParity(buildForest(WEATHER_DATA, new FeatureModel<>(playFeature())
+                .addInputFeature(new NominalFeature("outlook"))
+                .addInputFeature(new NominalFeature("temperature"))
+                .addInputFeature(new NominalFeature("humidity"))
+                .addInputFeature(new NominalFeature("windy"))));
+        testCompiledParity(buildForest(NUMERIC_WEATHER_DATA, new FeatureModel<>(playFeature())
+                .addInputFeature(new NominalFeature("outlook"))
+                .addInputFeature(new IntegerFeature("temperature"))
+                .addInputFeature(new IntegerFeature("humidity"))
+                .addInputFeature(new NominalFeature("windy"))));
+    }
+
+    @Test
+    public void udhrProfileParity()
+            throws Exception {
+        Path profileJar = TestFiles.locateFile(File.separator + "udhr_test.jar");
+        assertNotNull(profileJar);
+        IO.inArchive(profileJar, (root) -> {
+            WekaAnalyzer analyzer = Serialization.fromBytes(WekaAnalyzer.class,
+                    IO.readBytes(root.resolve("profile_analyzer.ser")));
+            testProfileParity(analyzer.getEncodingAnalyzer(), root.resolve("arff/encoding.arff"));
+            testProfileParity(analyzer.getLanguageAnalyzer(), root.resolve("arff/language.arff"));
+            testProfileParity(analyzer.getScriptAnalyzer(), root.resolve("arff/script.arff"));
+        });
+    }
+
+    private void testProfileParity(WekaForest<?> forest, Path arff)
+            throws Exception {
+        CompiledForest compiledForest = forest.getCompiledForest();
+        assertNotNull(compiledForest);
+        Instances dataSet;
+        try (Reader reader = Files.newBufferedReader(arff, StandardCharsets.UTF_8)) {
+            dataSet = new Instances(reader);
+        }
+        dataSet.setClassIndex(forest.getWekaModel().classIndex());
+        assertNull(forest.getWekaModel().equalHeadersMsg(dataSet));
+        assertFalse(dataSet.isEmpty());
+        double[] distribution = new double[dataSet.numClasses()];
+        for (Instance instance : dataSet) {
+            double[] expected = forest.getClassifier().distributionForInstance(instance);
+            if (compiledForest.distribution(instance.toDoubleArray(), distribution)) {
+                assertArrayEquals(expected, distribution, 0.0);
+            } else {
+                assertTrue(instance.hasMissingValue());
+            }
+        }
+    }
+
+    private ModelFeature<Boolean> playFeature() {
+        return new EnumeratedFeature<>("play", Boolean.class,
+                (text) -> Parsers.BOOLEANS.parse(text, null),
+                (value) -> {
+                    String asText = "?";
+                    if (value != null) {
+                        asText = (value) ? "yes" : "no";
+                    }
+                    return asText;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private WekaForest<Boolean> buildForest(String data, FeatureModel<Boolean> featureModel)
+            throws Exception {
+        ModelFeature<Boolean> outputFeature = featureModel.getOutputFeature();
+        WekaForestBuilder<Boolean> builder = new WekaForestBuilder<>(featureModel,
+                new AnalysisFeature<>("play", Boolean.class));
+        for (String line : new LineSplitter().split(data)) {
+            String[] rawRecord = line.split(",");
+            Datum<Boolean> datum = new Datum<>(outputFeature, outputFeature.parse(rawRecord[rawRecord.length - 1]));
+            for (int c = 0; c < (rawRecord.length - 1); c++) {
+                ModelFeature<Object> feature = (ModelFeature<Object>)featureModel.getInputFeatures().get(c);
+                datum.setFeature(feature, feature.parse(rawRecord[c]));
+            }
+            builder.addTrainingData(datum);
+        }
+        return builder.build();
+    }
+
+    private void testCompiledParity(WekaForest<Boolean> forest)
+            throws Exception {
+        CompiledForest compiledForest = forest.getCompiledForest();
+        assertNotNull(compiledForest);
+        assertEquals(forest.getClassifier().getNumIterations(), compiledForest.getTreeCount());
+        Instances dataSet = forest.getWekaModel();
+        double[] distribution = new double[dataSet.numClasses()];
+        for (Instance instance : dataSet) {
+            assertTrue(compiledForest.distribution(instance.toDoubleArray(), distribution));
+            assertArrayEquals(forest.getClassifier().distributionForInstance(instance), distribution, 0.0);
+        }
+        // Random attribute values reach branches which the training data may not.
+        Random random = new Random(42);
+        for (int r = 0; r < 1000; r++) {
+            Instance instance = (Instance)dataSet.get(r % dataSet.size()).copy();
+            for (int a = 0; a < dataSet.numAttributes(); a++) {
+                Attribute attribute = dataSet.attribute(a);
+                if (a != dataSet.classIndex()) {
+                    instance.setValue(a, (attribute.isNominal())
+                            ? random.nextInt(attribute.numValues())
+                            : random.nextInt(50) + 50);
+                }
+            }
+            assertTrue(compiledForest.distribution(instance.toDoubleArray(), distribution));
+            assertArrayEquals(forest.getClassifier().distributionForInstance(instance), distribution, 0.0);
+        }
+        // Missing split values are left to WEKA.
+        if (compiledForest.getNodeCount() > compiledForest.getTreeCount()) {
+            double[] missing = new double[dataSet.numAttributes()];
+            Arrays.fill(missing, Double.NaN);
+            assertFalse(compiledForest.distribution(missing, distribution));
+        }
+        WekaForest<Boolean> copy = Tests.serialCopy(forest);
+        assertNotNull(copy.getCompiledForest());
+        assertEquals(compiledForest.getNodeCount(), copy.getCompiledForest().getNodeCount());
     }
 
     @SuppressWarnings("unchecked")
@@ -26,8 +26,11 @@
 
 package keyterms.analyzers.icu;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import com.ibm.icu.text.CharsetDetector;
 import com.ibm.icu.text.CharsetMatch;
@@ -35,10 +38,12 @@ import com.ibm.icu.text.CharsetMatch;
 import keyterms.analyzer.Analysis;
 import keyterms.analyzer.AnalysisFeature;
 import keyterms.analyzer.Analyzer;
+import keyterms.analyzer.SamplingPolicy;
 import keyterms.analyzer.text.TextInfo;
 import keyterms.util.Errors;
 import keyterms.util.collect.Bags;
 import keyterms.util.io.Encoding;
+import keyterms.util.text.Strings;
 
 /**
  * A character encoding detector which uses the ICU4J character encoding detector.
@@ -74,6 +79,30 @@ public class IcuAnalyzer
      */
     static final boolean PRODUCES_SCORES = true;
 
+    /**
+     * The system property listing the names of the candidate character sets (all detectable character sets if not
+     * set).
+     */
+    public static final String CHARSETS_PROPERTY = "analyzer.ICU.charsets";
+
+    /**
+     * Get the candidate character sets specified by the {@code analyzer.ICU.charsets} system property.
+     *
+     * @return The configured candidate character set names (empty if all detectable character sets are candidates).
+     */
+    private static Set<String> getConfiguredCharsets() {
+        Set<String> charsets = new HashSet<>();
+        String spec = Strings.trim(System.getProperty(CHARSETS_PROPERTY));
+        if (!Strings.isBlank(spec)) {
+            for (String name : spec.split(",")) {
+                if (!Strings.isBlank(name)) {
+                    charsets.add(name.trim());
+                }
+            }
+        }
+        return charsets;
+    }
+
     /**
      * The ICU4J character set detector.
      */
@@ -81,9 +110,41 @@ public class IcuAnalyzer
 
     /**
      * Constructor.
+     *
+     * <p> The candidate character sets are taken from the {@code analyzer.ICU.charsets} system property. </p>
      */
     public IcuAnalyzer() {
+        this(getConfiguredCharsets());
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p> Only the recognizers for the candidate character sets are run, so restricting the candidates to those which
+     * will be accepted (e.g. excluding the EBCDIC variants) reduces the cost of detection. </p>
+     *
+     * @param charsets The names of the candidate character sets (all detectable character sets if {@code null} or
+     * empty).
+     */
+    public IcuAnalyzer(Set<String> charsets) {
         super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
+        if ((charsets != null) && (!charsets.isEmpty())) {
+            Set<String> candidates = charsets.stream()
+                    .map(Encoding::getLenientName)
+                    .collect(Collectors.toSet());
+            Set<String> detectable = new HashSet<>();
+            for (String name : CharsetDetector.getAllDetectableCharsets()) {
+                boolean enabled = candidates.contains(Encoding.getLenientName(name));
+                detector.setDetectableCharset(name, enabled);
+                if (enabled) {
+                    detectable.add(Encoding.getLenientName(name));
+                }
+            }
+            candidates.removeAll(detectable);
+            if (!candidates.isEmpty()) {
+                throw new IllegalArgumentException("Undetectable character sets: " + candidates);
+            }
+        }
     }
 
     /**
@@ -102,9 +163,8 @@ public class IcuAnalyzer
                         textInfo.setSize(inputData.length);
                         textInfo.setEncoding(match.getName());
                         try {
-                            String decoded = Encoding.decode(inputData,
-                                    Encoding.getCharset(textInfo.getEncoding()));
-                            textInfo.setLength(decoded.length());
+                            textInfo.setLength(Encoding.decodedLength(inputData,
+                                    Encoding.getCharset(textInfo.getEncoding())));
                         } catch (Exception error) {
                             textInfo.setLength(-1);
                         }
@@ -118,6 +178,14 @@ public class IcuAnalyzer
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        TextInfo.describeSampled(sample, results);
+    }
+
     /**
      * {@inheritDoc}
      */
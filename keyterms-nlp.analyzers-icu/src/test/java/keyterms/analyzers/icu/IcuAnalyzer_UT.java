@@ -43,6 +43,7 @@ import keyterms.util.io.Encoding;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class IcuAnalyzer_UT {
 
@@ -97,4 +98,21 @@ public class IcuAnalyzer_UT {
                 });
         assertEquals(0, failures.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void candidateCharsets() {
+        IcuAnalyzer restricted = new IcuAnalyzer(Bags.staticSet("UTF-8", "ISO-8859-1"));
+        try {
+            byte[] data = Encoding.encode(TestData.LOREM_IPSUM, Encoding.UTF8);
+            List<Analysis> results = restricted.analyze(data);
+            assertNotNull(results);
+            assertNotEquals(0, results.size());
+            for (Analysis result : results) {
+                String encoding = TextInfo.of(result).getEncoding();
+                assertTrue(encoding, "utf-8".equalsIgnoreCase(encoding) || "iso-8859-1".equalsIgnoreCase(encoding));
+            }
+        } finally {
+            restricted.dispose();
+        }
+    }
+}
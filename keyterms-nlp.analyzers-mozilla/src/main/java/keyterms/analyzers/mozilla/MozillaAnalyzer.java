@@ -26,17 +26,22 @@
 
 package keyterms.analyzers.mozilla;
 
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
 import org.mozilla.universalchardet.UniversalDetector;
+import org.slf4j.LoggerFactory;
 
 import keyterms.analyzer.Analysis;
 import keyterms.analyzer.AnalysisFeature;
 import keyterms.analyzer.Analyzer;
+import keyterms.analyzer.SamplingPolicy;
 import keyterms.analyzer.text.TextInfo;
 import keyterms.util.collect.Bags;
 import keyterms.util.io.Encoding;
+import keyterms.util.text.Strings;
+import keyterms.util.text.parser.Parsers;
 
 /**
  * A character encoding detector for the Java port of the Mozilla universal character detection library.
@@ -72,16 +77,141 @@ public class MozillaAnalyzer
      */
     static final boolean PRODUCES_SCORES = false;
 
+    /**
+     * The system property specifying the number of bytes fed to the detector at a time.
+     */
+    public static final String BLOCK_SIZE_PROPERTY = "analyzer.MOZ.block.size";
+
+    /**
+     * The system property specifying the maximum number of bytes fed to the detector.
+     */
+    public static final String BYTE_BUDGET_PROPERTY = "analyzer.MOZ.byte.budget";
+
+    /**
+     * The system property specifying whether the decoded length of the input is reported.
+     */
+    public static final String LENGTH_PROPERTY = "analyzer.MOZ.length";
+
+    /**
+     * The default number of bytes fed to the detector at a time.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 4 * 1024;
+
+    /**
+     * The default maximum number of bytes fed to the detector.
+     */
+    public static final int DEFAULT_BYTE_BUDGET = 1024 * 1024;
+
+    /**
+     * Get the value of a positive integer system property.
+     *
+     * <p> Settings which are not positive integers are logged and ignored. </p>
+     *
+     * @param property The name of the system property.
+     * @param defaultValue The value to use if the property is not set or is invalid.
+     *
+     * @return The value of the system property.
+     */
+    static int getConfiguredInt(String property, int defaultValue) {
+        String spec = Strings.trim(System.getProperty(property));
+        if (!Strings.isBlank(spec)) {
+            try {
+                int value = Parsers.parseInteger(spec);
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException error) {
+                // Reported below.
+            }
+            ignore(property, spec);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Get the value of the {@code analyzer.MOZ.length} system property.
+     *
+     * <p> Settings which are not boolean values are logged and ignored. </p>
+     *
+     * @return A flag indicating whether the decoded length of the input is reported.
+     */
+    static boolean getConfiguredReportLength() {
+        String spec = Strings.trim(System.getProperty(LENGTH_PROPERTY));
+        if (!Strings.isBlank(spec)) {
+            try {
+                return Parsers.parseBoolean(spec);
+            } catch (IllegalArgumentException error) {
+                ignore(LENGTH_PROPERTY, spec);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Report an invalid analyzer setting.
+     *
+     * @param property The name of the system property.
+     * @param value The invalid value.
+     */
+    private static void ignore(String property, String value) {
+        LoggerFactory.getLogger(MozillaAnalyzer.class).warn("Ignoring invalid {} setting: {}", property, value);
+    }
+
     /**
      * The underlying character encoding detector.
      */
     private final UniversalDetector detector = new UniversalDetector(null);
 
+    /**
+     * The number of bytes fed to the detector at a time.
+     */
+    private final int blockSize;
+
+    /**
+     * The maximum number of bytes fed to the detector.
+     */
+    private final int byteBudget;
+
+    /**
+     * A flag indicating whether the decoded length of the input is reported.
+     */
+    private final boolean reportLength;
+
     /**
      * Constructor.
+     *
+     * <p> The block size, byte budget and length reporting are taken from the {@code analyzer.MOZ.block.size},
+     * {@code analyzer.MOZ.byte.budget} and {@code analyzer.MOZ.length} system properties. Invalid settings are logged
+     * and the defaults used. </p>
      */
     public MozillaAnalyzer() {
+        this(getConfiguredInt(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE),
+                getConfiguredInt(BYTE_BUDGET_PROPERTY, DEFAULT_BYTE_BUDGET),
+                getConfiguredReportLength());
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p> The input is fed to the detector one block at a time until the detector reaches a decision or the byte
+     * budget is spent, so the cost of detection does not grow with the size of the input. The decoded length of the
+     * input, which requires a pass over all of the input, is only reported if requested. </p>
+     *
+     * @param blockSize The number of bytes fed to the detector at a time.
+     * @param byteBudget The maximum number of bytes fed to the detector.
+     * @param reportLength A flag indicating whether the decoded length of the input is reported.
+     */
+    public MozillaAnalyzer(int blockSize, int byteBudget, boolean reportLength) {
         super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        if (byteBudget < 1) {
+            throw new IllegalArgumentException("Invalid byte budget: " + byteBudget);
+        }
+        this.blockSize = blockSize;
+        this.byteBudget = byteBudget;
+        this.reportLength = reportLength;
     }
 
     /**
@@ -93,17 +223,21 @@ public class MozillaAnalyzer
         if (inputData.length > 0) {
             try {
                 detector.reset();
-                detector.handleData(inputData, 0, inputData.length);
+                int end = Math.min(inputData.length, byteBudget);
+                for (int offset = 0; (offset < end) && (!detector.isDone()); offset += blockSize) {
+                    detector.handleData(inputData, offset, Math.min(blockSize, end - offset));
+                }
                 detector.dataEnd();
                 TextInfo textInfo = new TextInfo();
                 textInfo.setSize(inputData.length);
                 textInfo.setEncoding(detector.getDetectedCharset());
-                try {
-                    String decoded = Encoding.decode(inputData,
-                            Encoding.getCharset(textInfo.getEncoding()));
-                    textInfo.setLength(decoded.length());
-                } catch (Exception error) {
-                    textInfo.setLength(-1);
+                if (reportLength) {
+                    try {
+                        textInfo.setLength(Encoding.decodedLength(inputData,
+                                Encoding.getCharset(textInfo.getEncoding())));
+                    } catch (Exception error) {
+                        textInfo.setLength(-1);
+                    }
                 }
                 collector.accept(textInfo);
             } finally {
@@ -112,6 +246,14 @@ public class MozillaAnalyzer
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        TextInfo.describeSampled(sample, results);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -43,8 +43,11 @@ import keyterms.util.collect.Bags;
 import keyterms.util.io.Encoding;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class MozillaAnalyzer_UT {
 
@@ -105,4 +108,54 @@ public class MozillaAnalyzer_UT {
                 });
         assertEquals(Collections.emptyList(), failures);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void earlyStop() {
+        MozillaAnalyzer limited = new MozillaAnalyzer(512, 4096, false);
+        try {
+            StringBuilder text = new StringBuilder();
+            while (text.length() < 100_000) {
+                TestData.LANGUAGE_PHRASES.values().forEach(text::append);
+            }
+            byte[] data = Encoding.encode(text, Encoding.UTF8);
+            List<Analysis> results = limited.analyze(data);
+            assertNotNull(results);
+            assertNotEquals(0, results.size());
+            TextInfo best = TextInfo.of(results.get(0));
+            assertEquals("utf-8", best.getEncoding());
+            assertEquals(data.length, (int)best.getSize());
+            assertNull(best.getLength());
+        } finally {
+            limited.dispose();
+        }
+    }
+
+    @Test
+    public void settings() {
+        try {
+            System.setProperty(MozillaAnalyzer.BLOCK_SIZE_PROPERTY, "512");
+            assertEquals(512, MozillaAnalyzer.getConfiguredInt(MozillaAnalyzer.BLOCK_SIZE_PROPERTY,
+                    MozillaAnalyzer.DEFAULT_BLOCK_SIZE));
+            // Invalid settings are ignored rather than breaking the default constructor.
+            for (String invalid : new String[] { "4k", "0", "-1" }) {
+                System.setProperty(MozillaAnalyzer.BLOCK_SIZE_PROPERTY, invalid);
+                System.setProperty(MozillaAnalyzer.BYTE_BUDGET_PROPERTY, invalid);
+                assertEquals(invalid, MozillaAnalyzer.DEFAULT_BLOCK_SIZE,
+                        MozillaAnalyzer.getConfiguredInt(MozillaAnalyzer.BLOCK_SIZE_PROPERTY,
+                                MozillaAnalyzer.DEFAULT_BLOCK_SIZE));
+                assertEquals(invalid, MozillaAnalyzer.DEFAULT_BYTE_BUDGET,
+                        MozillaAnalyzer.getConfiguredInt(MozillaAnalyzer.BYTE_BUDGET_PROPERTY,
+                                MozillaAnalyzer.DEFAULT_BYTE_BUDGET));
+            }
+            System.setProperty(MozillaAnalyzer.LENGTH_PROPERTY, "maybe");
+            assertTrue(MozillaAnalyzer.getConfiguredReportLength());
+            System.setProperty(MozillaAnalyzer.LENGTH_PROPERTY, "false");
+            assertFalse(MozillaAnalyzer.getConfiguredReportLength());
+            new MozillaAnalyzer().dispose();
+        } finally {
+            System.clearProperty(MozillaAnalyzer.BLOCK_SIZE_PROPERTY);
+            System.clearProperty(MozillaAnalyzer.BYTE_BUDGET_PROPERTY);
+            System.clearProperty(MozillaAnalyzer.LENGTH_PROPERTY);
+        }
+    }
+}
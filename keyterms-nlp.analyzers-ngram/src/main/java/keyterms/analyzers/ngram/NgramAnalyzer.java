@@ -0,0 +1,228 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzers.ngram;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.LoggerFactory;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisFeature;
+import keyterms.analyzer.Analyzer;
+import keyterms.analyzer.text.TextInfo;
+import keyterms.nlp.iso.Language;
+import keyterms.nlp.iso.Script;
+import keyterms.util.collect.Bags;
+import keyterms.util.io.IO;
+import keyterms.util.io.Serialization;
+import keyterms.util.lang.Lazy;
+import keyterms.util.text.Strings;
+
+/**
+ * A low latency, low memory language identifier based on a compact hashed character n-gram model.
+ *
+ * <p> The analyzer is pure Java. Models are trained from labeled texts with the {@link NgramModelBuilder} (see the
+ * {@code NgramTrainer} in the training and evaluation tools). </p>
+ * <p> The analyzer is bundled with a model of 33 languages trained by the {@code NgramTrainer} from half of the
+ * paragraphs of the UDHR texts in {@code data/udhr_txt.zip} (see {@code PrepareUdhrData.prepareNgramData}). </p>
+ */
+public class NgramAnalyzer
+        extends Analyzer {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = 3915873207318046218L;
+
+    /**
+     * The types of input accepted by the analyzer.
+     */
+    static final Set<Class<?>> INPUT_CLASSES = Bags.staticSet(
+            CharSequence.class
+    );
+
+    /**
+     * The analysis features that the analyzer can produce.
+     */
+    static final Set<AnalysisFeature<?>> OUTPUT_FEATURES = Bags.staticSet(
+            TextInfo.LANGUAGE, TextInfo.SCRIPT
+    );
+
+    /**
+     * A flag indicating whether the analyzer produces multiple analyses.
+     */
+    static final boolean PRODUCES_RANKINGS = true;
+
+    /**
+     * A flag indicating whether the analyzer produces meaningful scores.
+     */
+    static final boolean PRODUCES_SCORES = true;
+
+    /**
+     * The system property specifying the path to the model file.
+     */
+    public static final String MODEL_PROPERTY = "analyzer.NGRAM.model";
+
+    /**
+     * The name of the class path resource containing the model if no model file is specified.
+     */
+    public static final String MODEL_RESOURCE = "ngram.model";
+
+    /**
+     * The maximum number of analyses produced.
+     */
+    private static final int MAX_RESULTS = 5;
+
+    /**
+     * The model shared by all instances of the analyzer.
+     */
+    private static final Lazy<NgramModel> MODEL = new Lazy<>(() -> {
+        NgramModel model = null;
+        try {
+            String modelFile = Strings.trim(System.getProperty(MODEL_PROPERTY));
+            if (!Strings.isBlank(modelFile)) {
+                Path modelPath = IO.normalize(modelFile);
+                model = Serialization.fromFile(NgramModel.class, modelPath);
+            } else {
+                try (InputStream stream = NgramAnalyzer.class.getClassLoader().getResourceAsStream(MODEL_RESOURCE)) {
+                    if (stream != null) {
+                        model = Serialization.fromStream(NgramModel.class, stream);
+                    }
+                }
+            }
+        } catch (Exception error) {
+            LoggerFactory.getLogger(NgramAnalyzer.class).error("Error loading n-gram model.", error);
+        }
+        return model;
+    });
+
+    /**
+     * Get the model shared by all instances of the analyzer.
+     *
+     * <p> The model is read from the file specified by the {@code analyzer.NGRAM.model} system property, or from the
+     * {@code ngram.model} class path resource (by default the bundled UDHR model). </p>
+     *
+     * @return The shared model ({@code null} if no model is available).
+     */
+    public static NgramModel getDefaultModel() {
+        return MODEL.value();
+    }
+
+    /**
+     * The n-gram model.
+     */
+    private final NgramModel model;
+
+    /**
+     * The languages of the model classes.
+     */
+    private final Language[] languages;
+
+    /**
+     * The scripts of the model classes.
+     */
+    private final Script[] scripts;
+
+    /**
+     * The scratch buffer for the class scores.
+     */
+    private final float[] scores;
+
+    /**
+     * Constructor.
+     */
+    public NgramAnalyzer() {
+        this(getDefaultModel());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param model The n-gram model.
+     */
+    public NgramAnalyzer(NgramModel model) {
+        super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
+        if (model == null) {
+            throw new IllegalStateException("No n-gram model available.");
+        }
+        this.model = model;
+        int classes = model.getClassCount();
+        languages = new Language[classes];
+        scripts = new Script[classes];
+        for (int c = 0; c < classes; c++) {
+            languages[c] = model.getLanguage(c);
+            scripts[c] = model.getScript(c);
+        }
+        scores = new float[classes];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _analyze(Object input, Consumer<Analysis> collector) {
+        CharSequence text = (CharSequence)input;
+        if ((!Strings.isBlank(text)) && (model.score(text, scores) > 0)) {
+            float max = Float.NEGATIVE_INFINITY;
+            for (float score : scores) {
+                max = Math.max(max, score);
+            }
+            double total = 0;
+            for (float score : scores) {
+                total += Math.exp(score - max);
+            }
+            for (int r = 0; r < Math.min(MAX_RESULTS, scores.length); r++) {
+                int best = 0;
+                for (int c = 1; c < scores.length; c++) {
+                    if (scores[c] > scores[best]) {
+                        best = c;
+                    }
+                }
+                double probability = Math.exp(scores[best] - max) / total;
+                if (probability <= 0) {
+                    break;
+                }
+                TextInfo textInfo = new TextInfo();
+                textInfo.setLanguage(languages[best]);
+                textInfo.setScript(scripts[best]);
+                textInfo.setScore(probability);
+                collector.accept(textInfo);
+                scores[best] = Float.NEGATIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _dispose() {
+        // Intentional NoOp
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzers.ngram;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import keyterms.nlp.iso.Language;
+import keyterms.nlp.iso.Script;
+
+/**
+ * A compact character n-gram language identification model.
+ *
+ * <p> The n-grams of one up to {@link #getOrder()} characters are hashed into a fixed number of buckets, and the
+ * model holds the smoothed log probability of each bucket for each written language in a single bucket-major
+ * {@code float[]}. Texts are scored in a single pass which performs no allocation. </p>
+ * <p> Letters are folded to lower case and every run of other characters is treated as a single word boundary. </p>
+ * <p> Models are immutable and may be shared between threads. </p>
+ */
+public class NgramModel
+        implements Serializable {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = -3390163453328807245L;
+
+    /**
+     * The maximum supported n-gram length.
+     */
+    public static final int MAX_ORDER = 4;
+
+    /**
+     * The FNV-1a hash offset basis.
+     */
+    private static final int FNV_OFFSET = 0x811C9DC5;
+
+    /**
+     * The FNV-1a hash prime.
+     */
+    private static final int FNV_PRIME = 0x01000193;
+
+    /**
+     * The character which marks word boundaries.
+     */
+    private static final char BOUNDARY = ' ';
+
+    /**
+     * Normalize a character for n-gram extraction.
+     *
+     * @param c The character.
+     *
+     * @return The lower case equivalent of letters and combining marks, otherwise the word boundary character.
+     */
+    private static char normalize(char c) {
+        if ((Character.isLetter(c)) || (Character.isSurrogate(c))) {
+            return Character.toLowerCase(c);
+        }
+        int type = Character.getType(c);
+        return ((type == Character.NON_SPACING_MARK) || (type == Character.COMBINING_SPACING_MARK)) ? c : BOUNDARY;
+    }
+
+    /**
+     * Scan the hashed n-grams of a text.
+     *
+     * <p> Each n-gram either increments its bucket in the counts (when training) or adds the weights of its bucket to
+     * the class scores (when scoring). The text is treated as if it were surrounded by word boundaries. </p>
+     *
+     * @param text The text.
+     * @param order The maximum n-gram length.
+     * @param mask The bucket mask (the number of buckets less one).
+     * @param counts The bucket counts to increment ({@code null} when scoring).
+     * @param weights The bucket-major class weights ({@code null} when training).
+     * @param scores The class scores to accumulate ({@code null} when training).
+     *
+     * @return The number of n-grams scanned.
+     */
+    static int scan(CharSequence text, int order, int mask, int[] counts, float[] weights, float[] scores) {
+        int classes = (scores != null) ? weights.length / (mask + 1) : 0;
+        int ngrams = 0;
+        // The preceding characters, the most recent in the low order bits.
+        long history = BOUNDARY;
+        int available = 1;
+        char previous = BOUNDARY;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = (i < length) ? normalize(text.charAt(i)) : BOUNDARY;
+            if ((c == BOUNDARY) && (previous == BOUNDARY)) {
+                continue;
+            }
+            for (int n = 1; n <= order; n++) {
+                if (n - 1 > available) {
+                    break;
+                }
+                int hash = FNV_OFFSET ^ n;
+                for (int k = n - 1; k > 0; k--) {
+                    hash = (hash ^ (int)((history >>> (16 * (k - 1))) & 0xFFFF)) * FNV_PRIME;
+                }
+                hash = (hash ^ c) * FNV_PRIME;
+                int bucket = (hash ^ (hash >>> 15)) & mask;
+                if (counts != null) {
+                    counts[bucket]++;
+                } else {
+                    int base = bucket * classes;
+                    for (int w = 0; w < classes; w++) {
+                        scores[w] += weights[base + w];
+                    }
+                }
+                ngrams++;
+            }
+            history = (history << 16) | c;
+            available = Math.min(available + 1, order - 1);
+            previous = c;
+        }
+        return ngrams;
+    }
+
+    /**
+     * The maximum n-gram length.
+     */
+    private final int order;
+
+    /**
+     * The bucket mask (the number of buckets less one).
+     */
+    private final int mask;
+
+    /**
+     * The language codes of the classes.
+     */
+    private final String[] languageCodes;
+
+    /**
+     * The script codes of the classes.
+     */
+    private final String[] scriptCodes;
+
+    /**
+     * The log probability of each bucket for each class, indexed by {@code bucket * classCount + class}.
+     */
+    private final float[] weights;
+
+    /**
+     * Constructor.
+     *
+     * @param order The maximum n-gram length.
+     * @param buckets The number of hash buckets (a power of two).
+     * @param languageCodes The language codes of the classes.
+     * @param scriptCodes The script codes of the classes.
+     * @param weights The log probability of each bucket for each class, indexed by {@code bucket * classCount + class}.
+     */
+    NgramModel(int order, int buckets, String[] languageCodes, String[] scriptCodes, float[] weights) {
+        super();
+        if ((order < 1) || (order > MAX_ORDER)) {
+            throw new IllegalArgumentException("Invalid n-gram order: " + order);
+        }
+        if ((buckets < 2) || (Integer.bitCount(buckets) != 1)) {
+            throw new IllegalArgumentException("Invalid bucket count: " + buckets);
+        }
+        if ((languageCodes.length == 0) || (languageCodes.length != scriptCodes.length) ||
+                (weights.length != buckets * languageCodes.length)) {
+            throw new IllegalArgumentException("Inconsistent model dimensions.");
+        }
+        this.order = order;
+        this.mask = buckets - 1;
+        this.languageCodes = languageCodes.clone();
+        this.scriptCodes = scriptCodes.clone();
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Get the maximum n-gram length.
+     *
+     * @return The maximum n-gram length.
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the number of hash buckets.
+     *
+     * @return The number of hash buckets.
+     */
+    public int getBucketCount() {
+        return mask + 1;
+    }
+
+    /**
+     * Get the number of classes (written languages) recognized by the model.
+     *
+     * @return The number of classes.
+     */
+    public int getClassCount() {
+        return languageCodes.length;
+    }
+
+    /**
+     * Get the language of the specified class.
+     *
+     * @param classIndex The class index.
+     *
+     * @return The language of the class.
+     */
+    public Language getLanguage(int classIndex) {
+        return Language.byCode(languageCodes[classIndex]);
+    }
+
+    /**
+     * Get the script of the specified class.
+     *
+     * @param classIndex The class index.
+     *
+     * @return The script of the class.
+     */
+    public Script getScript(int classIndex) {
+        return Script.byCode(scriptCodes[classIndex]);
+    }
+
+    /**
+     * Score a text against every class of the model.
+     *
+     * <p> The scores are the summed log probabilities of the text's n-grams for each class. </p>
+     *
+     * @param text The text.
+     * @param scores The buffer which receives the class scores (at least {@link #getClassCount()} long).
+     *
+     * @return The number of n-grams scored.
+     */
+    public int score(CharSequence text, float[] scores) {
+        Arrays.fill(scores, 0, languageCodes.length, 0.0f);
+        return scan(text, order, mask, null, weights, scores);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + languageCodes.length + " classes, " + (mask + 1) + " buckets, " +
+                "order " + order + "]";
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzers.ngram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import keyterms.nlp.iso.WrittenLanguage;
+
+/**
+ * A utility for training n-gram language identification models from labeled texts.
+ */
+public class NgramModelBuilder {
+    /**
+     * The default maximum n-gram length.
+     */
+    public static final int DEFAULT_ORDER = 3;
+
+    /**
+     * The default number of hash buckets.
+     */
+    public static final int DEFAULT_BUCKETS = 1 << 14;
+
+    /**
+     * The additive smoothing applied to the bucket counts.
+     */
+    private static final double SMOOTHING = 0.1;
+
+    /**
+     * The maximum n-gram length.
+     */
+    private final int order;
+
+    /**
+     * The number of hash buckets.
+     */
+    private final int buckets;
+
+    /**
+     * The bucket counts of each written language.
+     */
+    private final Map<WrittenLanguage, int[]> counts = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     */
+    public NgramModelBuilder() {
+        this(DEFAULT_ORDER, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param order The maximum n-gram length.
+     * @param buckets The number of hash buckets (a power of two).
+     */
+    public NgramModelBuilder(int order, int buckets) {
+        super();
+        if ((order < 1) || (order > NgramModel.MAX_ORDER)) {
+            throw new IllegalArgumentException("Invalid n-gram order: " + order);
+        }
+        if ((buckets < 2) || (Integer.bitCount(buckets) != 1)) {
+            throw new IllegalArgumentException("Invalid bucket count: " + buckets);
+        }
+        this.order = order;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Add a training text.
+     *
+     * @param written The written language of the text.
+     * @param text The text.
+     */
+    public void add(WrittenLanguage written, CharSequence text) {
+        if ((written == null) || (written.getLanguage() == null) || (written.getScript() == null)) {
+            throw new IllegalArgumentException("Language and script are required: " + written);
+        }
+        int[] bucketCounts = counts.computeIfAbsent(written, (w) -> new int[buckets]);
+        NgramModel.scan(text, order, buckets - 1, bucketCounts, null, null);
+    }
+
+    /**
+     * Build the model from the training texts added so far.
+     *
+     * @return The trained model.
+     */
+    public NgramModel build() {
+        if (counts.isEmpty()) {
+            throw new IllegalStateException("No training texts.");
+        }
+        int classes = counts.size();
+        String[] languageCodes = new String[classes];
+        String[] scriptCodes = new String[classes];
+        float[] weights = new float[buckets * classes];
+        int c = 0;
+        for (Map.Entry<WrittenLanguage, int[]> entry : counts.entrySet()) {
+            languageCodes[c] = entry.getKey().getLanguage().getCode();
+            scriptCodes[c] = entry.getKey().getScript().getCode();
+            int[] bucketCounts = entry.getValue();
+            long total = 0;
+            for (int count : bucketCounts) {
+                total += count;
+            }
+            double denominator = total + SMOOTHING * buckets;
+            for (int b = 0; b < buckets; b++) {
+                weights[b * classes + c] = (float)Math.log((bucketCounts[b] + SMOOTHING) / denominator);
+            }
+            c++;
+        }
+        return new NgramModel(order, buckets, languageCodes, scriptCodes, weights);
+    }
+}
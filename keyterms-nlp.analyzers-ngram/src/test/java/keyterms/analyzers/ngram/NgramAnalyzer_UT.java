@@ -0,0 +1,191 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzers.ngram;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.text.TextInfo;
+import keyterms.nlp.iso.Language;
+import keyterms.nlp.iso.Script;
+import keyterms.nlp.iso.WrittenLanguage;
+import keyterms.testing.TestData;
+import keyterms.testing.TestFiles;
+import keyterms.util.collect.Keyed;
+import keyterms.util.io.Encoding;
+import keyterms.util.io.IO;
+import keyterms.util.io.Serialization;
+import keyterms.util.text.Strings;
+import keyterms.util.text.splitter.LineSplitter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class NgramAnalyzer_UT {
+
+    // The UDHR texts used to train the model for each of the test phrases.
+    private static final Map<String, String> UDHR_FILES = new HashMap<>();
+
+    static {
+        UDHR_FILES.put("ara-arab", "udhr_arb.txt");
+        UDHR_FILES.put("zho-hant", "udhr_cmn_hant.txt");
+        UDHR_FILES.put("eng-latn", "udhr_eng.txt");
+        UDHR_FILES.put("fra-latn", "udhr_fra.txt");
+        UDHR_FILES.put("deu-latn", "udhr_deu_1996.txt");
+        UDHR_FILES.put("heb-hebr", "udhr_heb.txt");
+        UDHR_FILES.put("hin-deva", "udhr_hin.txt");
+        UDHR_FILES.put("ita-latn", "udhr_ita.txt");
+        UDHR_FILES.put("jpn-kana", "udhr_jpn.txt");
+        UDHR_FILES.put("rus-cyrl", "udhr_rus.txt");
+        UDHR_FILES.put("spa-latn", "udhr_spa.txt");
+        UDHR_FILES.put("tha-thai", "udhr_tha.txt");
+    }
+
+    // The number of consecutive UDHR paragraphs assigned to the same side of the training/testing split.
+    private static final int SPLIT = 4;
+
+    // Held out UDHR paragraphs shorter than this are not scored.
+    private static final int MIN_HELD_OUT_LENGTH = 20;
+
+    private static final List<Keyed<WrittenLanguage, String>> heldOut = new ArrayList<>();
+
+    private static NgramModel model;
+
+    private static NgramAnalyzer analyzer;
+
+    // The model is trained on alternate blocks of UDHR paragraphs and tested on the others and the test phrases.
+    @BeforeClass
+    public static void setupAnalyzer()
+            throws Exception {
+        NgramModelBuilder builder = new NgramModelBuilder();
+        Path udhrZip = TestFiles.locateFile("udhr_txt.zip");
+        assertNotNull(udhrZip);
+        IO.inArchive(udhrZip, (archiveRoot) -> {
+            for (Map.Entry<String, String> entry : UDHR_FILES.entrySet()) {
+                WrittenLanguage written = getWrittenLanguage(entry.getKey());
+                String text = IO.readText(archiveRoot.resolve(entry.getValue()), Encoding.UTF8);
+                List<String> paragraphs = new LineSplitter().split(text.substring(text.indexOf("---") + 3));
+                int p = 0;
+                for (String paragraph : paragraphs) {
+                    if (!Strings.isBlank(paragraph)) {
+                        if (((p++ / SPLIT) % 2) == 0) {
+                            builder.add(written, paragraph);
+                        } else {
+                            heldOut.add(new Keyed<>(written, Strings.trim(paragraph)));
+                        }
+                    }
+                }
+            }
+        });
+        model = builder.build();
+        analyzer = new NgramAnalyzer(model);
+    }
+
+    @AfterClass
+    public static void disposeAnalyzer() {
+        analyzer.dispose();
+    }
+
+    private static WrittenLanguage getWrittenLanguage(String key) {
+        return new WrittenLanguage(Language.byCode(key.substring(0, 3)), Script.byCode(key.substring(4)));
+    }
+
+    @Test
+    public void analysis() {
+        int correct = 0;
+        for (Map.Entry<String, String> entry : TestData.LANGUAGE_PHRASES.entrySet()) {
+            String phrase = entry.getValue();
+            List<Analysis> results = analyzer.analyze(phrase);
+            assertNotNull(phrase, results);
+            assertNotEquals(phrase, 0, results.size());
+            WrittenLanguage expected = getWrittenLanguage(entry.getKey());
+            assertEquals(phrase, expected.getScript(), TextInfo.of(results.get(0)).getScript());
+            assertTrue(phrase, results.stream()
+                    .anyMatch((result) -> expected.getLanguage().equals(result.get(TextInfo.LANGUAGE))));
+            correct += (expected.getLanguage().equals(TextInfo.of(results.get(0)).getLanguage())) ? 1 : 0;
+        }
+        assertTrue(correct + " / " + TestData.LANGUAGE_PHRASES.size(),
+                correct >= 0.9 * TestData.LANGUAGE_PHRASES.size());
+        assertEquals(0, analyzer.analyze("1234 !!").size());
+    }
+
+    @Test
+    public void heldOutAccuracy() {
+        int scored = 0;
+        int correct = 0;
+        for (Keyed<WrittenLanguage, String> paragraph : heldOut) {
+            if (paragraph.getValue().length() >= MIN_HELD_OUT_LENGTH) {
+                List<Analysis> results = analyzer.analyze(paragraph.getValue());
+                scored++;
+                if ((!results.isEmpty()) &&
+                        (paragraph.getKey().getLanguage().equals(TextInfo.of(results.get(0)).getLanguage()))) {
+                    correct++;
+                }
+            }
+        }
+        assertNotEquals(0, scored);
+        assertTrue(correct + " / " + scored, correct >= 0.95 * scored);
+    }
+
+    @Test
+    public void bundledModel() {
+        NgramModel bundled = NgramAnalyzer.getDefaultModel();
+        assertNotNull(bundled);
+        NgramAnalyzer bundledAnalyzer = new NgramAnalyzer(bundled);
+        try {
+            TestData.LANGUAGE_PHRASES.forEach((key, phrase) -> {
+                List<Analysis> results = bundledAnalyzer.analyze(phrase);
+                assertNotEquals(phrase, 0, results.size());
+                assertEquals(phrase, getWrittenLanguage(key).getLanguage(), TextInfo.of(results.get(0)).getLanguage());
+            });
+        } finally {
+            bundledAnalyzer.dispose();
+        }
+    }
+
+    @Test
+    public void serialization()
+            throws Exception {
+        NgramModel copy = Serialization.serialCopy(NgramModel.class, model);
+        float[] expected = new float[model.getClassCount()];
+        float[] actual = new float[copy.getClassCount()];
+        model.score(TestData.LOREM_IPSUM, expected);
+        copy.score(TestData.LOREM_IPSUM, actual);
+        assertArrayEquals(expected, actual, 0.0f);
+    }
+}
@@ -26,28 +26,38 @@
 
 package keyterms.analyzers.optimaize;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import com.optimaize.langdetect.DetectedLanguage;
 import com.optimaize.langdetect.LanguageDetector;
 import com.optimaize.langdetect.LanguageDetectorBuilder;
+import com.optimaize.langdetect.i18n.LdLocale;
 import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.BuiltInLanguages;
 import com.optimaize.langdetect.profiles.LanguageProfileReader;
 import com.optimaize.langdetect.text.CommonTextObjectFactories;
 import com.optimaize.langdetect.text.TextObject;
 import com.optimaize.langdetect.text.TextObjectFactory;
+import org.slf4j.LoggerFactory;
 
 import keyterms.analyzer.Analysis;
 import keyterms.analyzer.AnalysisFeature;
 import keyterms.analyzer.Analyzer;
 import keyterms.analyzer.text.TextInfo;
+import keyterms.nlp.iso.Language;
 import keyterms.nlp.iso.WrittenLanguage;
 import keyterms.util.collect.Bags;
 import keyterms.util.lang.Lazy;
 import keyterms.util.text.Strings;
+import keyterms.util.text.parser.Parsers;
 
 /**
  * A language identifier based on the Optimaize libraries.
@@ -84,36 +94,167 @@ public class OptimaizeAnalyzer
     static final boolean PRODUCES_SCORES = true;
 
     /**
-     * Only one instance of the text object factory should be created.
+     * The system property listing the codes of the languages to identify (all built-in languages if not set).
      */
-    private static final Lazy<TextObjectFactory> TEXT_OBJECT_FACTORY =
+    public static final String LANGUAGES_PROPERTY = "analyzer.OPT.languages";
+
+    /**
+     * The system property specifying the maximum length of texts analyzed with the short text algorithm.
+     */
+    public static final String SHORT_TEXT_PROPERTY = "analyzer.OPT.short.text";
+
+    /**
+     * The default maximum length of texts analyzed with the short text algorithm.
+     */
+    public static final int DEFAULT_SHORT_TEXT_LENGTH = 50;
+
+    /**
+     * Only one instance of the long text object factory should be created.
+     */
+    private static final Lazy<TextObjectFactory> LONG_TEXT_OBJECT_FACTORY =
             new Lazy<>(CommonTextObjectFactories::forDetectingOnLargeText);
 
     /**
-     * The text object factory for the detector.
+     * Only one instance of the short text object factory should be created.
+     */
+    private static final Lazy<TextObjectFactory> SHORT_TEXT_OBJECT_FACTORY =
+            new Lazy<>(CommonTextObjectFactories::forDetectingShortCleanText);
+
+    /**
+     * The language detectors shared by all instances of the analyzer, keyed by their profiles and short text length.
+     *
+     * <p> The profiles and the n-gram frequency data derived from them are read once per JVM for each configuration.
+     * The detectors are immutable, so the instances in an analyzer pool only hold per-call state. </p>
+     */
+    private static final Map<List<Object>, LanguageDetector> DETECTORS = new ConcurrentHashMap<>();
+
+    /**
+     * Get the languages specified by the {@code analyzer.OPT.languages} system property.
+     *
+     * @return The configured languages (empty if all built-in languages should be identified).
+     */
+    private static Set<Language> getConfiguredLanguages() {
+        Set<Language> languages = new HashSet<>();
+        String spec = Strings.trim(System.getProperty(LANGUAGES_PROPERTY));
+        if (!Strings.isBlank(spec)) {
+            for (String code : spec.split(",")) {
+                if (!Strings.isBlank(code)) {
+                    Language language = Language.byCode(code.trim());
+                    if (language == null) {
+                        throw new IllegalArgumentException("Unknown language: " + code);
+                    }
+                    languages.add(language);
+                }
+            }
+        }
+        return languages;
+    }
+
+    /**
+     * Get the maximum text length specified by the {@code analyzer.OPT.short.text} system property.
+     *
+     * <p> Settings which are not non-negative integers are logged and ignored. </p>
+     *
+     * @return The configured maximum length of texts analyzed with the short text algorithm.
      */
-    private final TextObjectFactory textObjectFactory;
+    static int getConfiguredShortTextLength() {
+        String spec = Strings.trim(System.getProperty(SHORT_TEXT_PROPERTY));
+        if (!Strings.isBlank(spec)) {
+            try {
+                int shortTextLength = Parsers.parseInteger(spec);
+                if (shortTextLength >= 0) {
+                    return shortTextLength;
+                }
+            } catch (NumberFormatException error) {
+                // Reported below.
+            }
+            LoggerFactory.getLogger(OptimaizeAnalyzer.class)
+                    .warn("Ignoring invalid {} setting: {}", SHORT_TEXT_PROPERTY, spec);
+        }
+        return DEFAULT_SHORT_TEXT_LENGTH;
+    }
 
     /**
-     * d The language detector.
+     * Get the written language equivalent to an Optimaize locale.
+     *
+     * @param locale The Optimaize locale.
+     *
+     * @return The equivalent written language.
+     */
+    private static WrittenLanguage toWrittenLanguage(LdLocale locale) {
+        return WrittenLanguage.valueOf(locale.getLanguage(), locale.getScript().orNull()).withPreferredScript();
+    }
+
+    /**
+     * Get the shared language detector for the specified configuration.
+     *
+     * @param languages The languages to identify (all built-in languages if {@code null} or empty).
+     * @param shortTextLength The maximum length of texts analyzed with the short text algorithm.
+     *
+     * @return The language detector.
+     *
+     * @throws IllegalStateException if the language profiles could not be loaded (nothing is cached, so a later call
+     * tries again).
+     */
+    static LanguageDetector getDetector(Set<Language> languages, int shortTextLength) {
+        List<LdLocale> locales = BuiltInLanguages.getLanguages().stream()
+                .filter((locale) -> (languages == null) || (languages.isEmpty()) ||
+                        (languages.contains(toWrittenLanguage(locale).getLanguage())))
+                .collect(Collectors.toList());
+        if (locales.isEmpty()) {
+            throw new IllegalArgumentException("No built-in profiles for languages: " + languages);
+        }
+        List<Object> key = Arrays.asList(
+                locales.stream().map(LdLocale::toString).collect(Collectors.toList()), shortTextLength);
+        return DETECTORS.computeIfAbsent(key, (k) -> {
+            try {
+                return LanguageDetectorBuilder.create(NgramExtractors.standard())
+                        .shortTextAlgorithm(shortTextLength)
+                        .withProfiles(new LanguageProfileReader().readBuiltIn(locales))
+                        .build();
+            } catch (Exception error) {
+                throw new IllegalStateException("Error initializing detector.", error);
+            }
+        });
+    }
+
+    /**
+     * The maximum length of texts analyzed with the short text algorithm.
+     */
+    private final int shortTextLength;
+
+    /**
+     * The language detector.
      */
     private final LanguageDetector detector;
 
     /**
      * Constructor.
+     *
+     * <p> The languages and short text length are taken from the {@code analyzer.OPT.languages} and
+     * {@code analyzer.OPT.short.text} system properties. </p>
      */
     public OptimaizeAnalyzer() {
+        this(getConfiguredLanguages(), getConfiguredShortTextLength());
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p> Only the profiles of the specified languages are loaded and scored. Texts no longer than the short text
+     * length are prepared without filtering and scored with the exhaustive short text algorithm; longer texts are
+     * filtered and scored by sampling their n-grams. </p>
+     *
+     * @param languages The languages to identify (all built-in languages if {@code null} or empty).
+     * @param shortTextLength The maximum length of texts analyzed with the short text algorithm.
+     */
+    public OptimaizeAnalyzer(Set<Language> languages, int shortTextLength) {
         super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
-        textObjectFactory = TEXT_OBJECT_FACTORY.value();
-        LanguageDetector detector = null;
-        try {
-            detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
-                    .withProfiles(new LanguageProfileReader().readAllBuiltIn())
-                    .build();
-        } catch (Exception error) {
-            getLogger().error("Error initializing detector.", error);
+        if (shortTextLength < 0) {
+            throw new IllegalArgumentException("Invalid short text length: " + shortTextLength);
         }
-        this.detector = detector;
+        this.shortTextLength = shortTextLength;
+        detector = getDetector(languages, shortTextLength);
     }
 
     /**
@@ -123,14 +264,14 @@ public class OptimaizeAnalyzer
     protected void _analyze(Object input, Consumer<Analysis> collector) {
         String text = Strings.toString(input);
         if (!Strings.isBlank(text)) {
+            TextObjectFactory textObjectFactory = (text.length() <= shortTextLength)
+                    ? SHORT_TEXT_OBJECT_FACTORY.value()
+                    : LONG_TEXT_OBJECT_FACTORY.value();
             TextObject textObject = textObjectFactory.forText(text);
             List<DetectedLanguage> results = detector.getProbabilities(textObject);
             Collections.sort(results);
             for (DetectedLanguage result : results) {
-                String langCode = result.getLocale().getLanguage();
-                String scriptCode = result.getLocale().getScript().orNull();
-                WrittenLanguage written = WrittenLanguage.valueOf(langCode, scriptCode);
-                written = written.withPreferredScript();
+                WrittenLanguage written = toWrittenLanguage(result.getLocale());
                 TextInfo textInfo = new TextInfo();
                 textInfo.setLanguage(written.getLanguage());
                 textInfo.setScript(written.getScript());
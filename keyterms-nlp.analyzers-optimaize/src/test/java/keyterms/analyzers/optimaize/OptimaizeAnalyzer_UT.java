@@ -26,7 +26,10 @@
 
 package keyterms.analyzers.optimaize;
 
+import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -34,10 +37,16 @@ import org.junit.Test;
 
 import keyterms.analyzer.Analysis;
 import keyterms.analyzer.text.TextInfo;
+import keyterms.nlp.iso.Language;
+import keyterms.util.collect.Bags;
 import keyterms.testing.TestData;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class OptimaizeAnalyzer_UT {
 
@@ -67,4 +76,57 @@ public class OptimaizeAnalyzer_UT {
             }
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void languageSubset() {
+        Set<Language> languages = Bags.staticSet(Language.byCode("eng"), Language.byCode("fra"));
+        OptimaizeAnalyzer subsetAnalyzer = new OptimaizeAnalyzer(languages, 10);
+        try {
+            TestData.LANGUAGE_PHRASES.forEach((key, phrase) -> {
+                List<Analysis> results = subsetAnalyzer.analyze(phrase);
+                assertNotNull(phrase, results);
+                results.forEach((result) ->
+                        assertTrue(phrase, languages.contains(TextInfo.of(result).getLanguage())));
+            });
+        } finally {
+            subsetAnalyzer.dispose();
+        }
+    }
+
+    @Test
+    public void shortTextSetting() {
+        try {
+            System.setProperty(OptimaizeAnalyzer.SHORT_TEXT_PROPERTY, "20");
+            assertEquals(20, OptimaizeAnalyzer.getConfiguredShortTextLength());
+            // Invalid settings are ignored rather than breaking the default constructor.
+            for (String invalid : new String[] { "twenty", "-1", "2147483648" }) {
+                System.setProperty(OptimaizeAnalyzer.SHORT_TEXT_PROPERTY, invalid);
+                assertEquals(invalid, OptimaizeAnalyzer.DEFAULT_SHORT_TEXT_LENGTH,
+                        OptimaizeAnalyzer.getConfiguredShortTextLength());
+            }
+            new OptimaizeAnalyzer().dispose();
+        } finally {
+            System.clearProperty(OptimaizeAnalyzer.SHORT_TEXT_PROPERTY);
+        }
+    }
+
+    @Test
+    public void sharedDetectors()
+            throws Exception {
+        Set<Language> languages = Bags.staticSet(Language.byCode("eng"), Language.byCode("fra"));
+        assertSame(OptimaizeAnalyzer.getDetector(languages, 10), OptimaizeAnalyzer.getDetector(languages, 10));
+        // An unrestricted language set is the same configuration however it is specified.
+        assertSame(OptimaizeAnalyzer.getDetector(null, 10), OptimaizeAnalyzer.getDetector(Collections.emptySet(), 10));
+        assertNotSame(OptimaizeAnalyzer.getDetector(languages, 10), OptimaizeAnalyzer.getDetector(languages, 20));
+        assertNotSame(OptimaizeAnalyzer.getDetector(languages, 10), OptimaizeAnalyzer.getDetector(null, 10));
+        // Analyzer instances with the same configuration share the detector.
+        Field detector = OptimaizeAnalyzer.class.getDeclaredField("detector");
+        detector.setAccessible(true);
+        OptimaizeAnalyzer other = new OptimaizeAnalyzer(languages, 10);
+        try {
+            assertSame(OptimaizeAnalyzer.getDetector(languages, 10), detector.get(other));
+        } finally {
+            other.dispose();
+        }
+    }
+}
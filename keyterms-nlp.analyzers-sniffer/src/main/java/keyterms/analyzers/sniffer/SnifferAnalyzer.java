@@ -0,0 +1,337 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzers.sniffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisFeature;
+import keyterms.analyzer.Analyzer;
+import keyterms.analyzer.SamplingPolicy;
+import keyterms.analyzer.text.TextInfo;
+import keyterms.util.collect.Bags;
+import keyterms.util.io.Encoding;
+
+/**
+ * A fast character encoding pre-classifier which recognizes byte order marks, pure ASCII, valid UTF-8 and BOM-less
+ * UTF-16 which is dominated by characters from the first 256 code points.
+ *
+ * <p> The analyzer only produces an analysis when the encoding is certain, and produces nothing otherwise, so that
+ * it can serve as the first tier of an ensemble's cascade (e.g. {@code "unanimous|SNIFF|ICU,MOZ"}) and leave the
+ * ambiguous inputs to the heavier detectors. The one exception is BOM-less UTF-16, which is recognized from the
+ * share of zero bytes rather than with certainty and so is reported with a lower score. ASCII runs are scanned eight
+ * bytes at a time. </p>
+ * <p> The default {@code VotingAnalyzer} consults the sniffer only when the cascade (for example the
+ * {@code analyzer.cascade} system property) names it, so that its full confidence results do not outweigh the other
+ * encoding detectors in an open vote. </p>
+ */
+public class SnifferAnalyzer
+        extends Analyzer {
+    /**
+     * The class serial version identifier.
+     */
+    private static final long serialVersionUID = 4471032645928163517L;
+
+    /**
+     * The types of input accepted by the analyzer.
+     */
+    static final Set<Class<?>> INPUT_CLASSES = Bags.staticSet(
+            byte[].class
+    );
+
+    /**
+     * The analysis features that the analyzer can produce.
+     */
+    static final Set<AnalysisFeature<?>> OUTPUT_FEATURES = Bags.staticSet(
+            TextInfo.SIZE, TextInfo.ENCODING, TextInfo.LENGTH
+    );
+
+    /**
+     * A flag indicating whether the analyzer produces multiple analyses.
+     */
+    static final boolean PRODUCES_RANKINGS = false;
+
+    /**
+     * A flag indicating whether the analyzer produces meaningful scores.
+     */
+    static final boolean PRODUCES_SCORES = true;
+
+    /**
+     * The minimum share of the code units of BOM-less UTF-16 whose high order byte is zero.
+     */
+    private static final double UTF16_ZERO_SHARE = 0.5;
+
+    /**
+     * The score of BOM-less UTF-16 results, which are recognized statistically rather than with certainty.
+     */
+    static final double UTF16_SCORE = 0.5;
+
+    /**
+     * The mask of the high order bit of each byte in a word.
+     */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * The mask of the low order bit of each byte in a word.
+     */
+    private static final long LOW_BITS = 0x0101010101010101L;
+
+    /**
+     * Constructor.
+     */
+    public SnifferAnalyzer() {
+        super(INPUT_CLASSES, OUTPUT_FEATURES, PRODUCES_RANKINGS, PRODUCES_SCORES);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _analyze(Object input, Consumer<Analysis> collector) {
+        byte[] inputData = (byte[])input;
+        if (inputData.length > 0) {
+            Charset encoding = Encoding.detectBom(inputData);
+            int length = -1;
+            double score = 1.0;
+            if (encoding != null) {
+                length = Encoding.decodedLength(inputData, encoding);
+            } else {
+                int asciiLength = getAsciiLength(inputData);
+                if (asciiLength == inputData.length) {
+                    encoding = Encoding.ASCII;
+                    length = asciiLength;
+                } else {
+                    length = getUtf8Length(inputData, asciiLength);
+                    if (length >= 0) {
+                        encoding = Encoding.UTF8;
+                    } else {
+                        encoding = getUtf16Encoding(inputData);
+                        if (encoding != null) {
+                            length = inputData.length / 2;
+                            score = UTF16_SCORE;
+                        }
+                    }
+                }
+            }
+            if (encoding != null) {
+                TextInfo textInfo = new TextInfo();
+                textInfo.setSize(inputData.length);
+                textInfo.setEncoding(encoding.name());
+                textInfo.setLength(length);
+                textInfo.setScore(score);
+                collector.accept(textInfo);
+            }
+        }
+    }
+
+    /**
+     * Determine if a word contains a byte which is either zero or outside of the ASCII range.
+     *
+     * @param word The word.
+     *
+     * @return A flag indicating whether the word contains a zero or non-ASCII byte.
+     */
+    private static boolean isSpecial(long word) {
+        return (((word | ((word - LOW_BITS) & ~word)) & HIGH_BITS) != 0);
+    }
+
+    /**
+     * Determine if a byte is either zero or outside of the ASCII range.
+     *
+     * @param b The byte.
+     *
+     * @return A flag indicating whether the byte is zero or non-ASCII.
+     */
+    private static boolean isSpecial(byte b) {
+        return (b <= 0);
+    }
+
+    /**
+     * Get the length of the non-zero ASCII prefix of the specified data.
+     *
+     * @param data The data.
+     *
+     * @return The number of leading non-zero ASCII bytes.
+     */
+    private static int getAsciiLength(byte[] data) {
+        return skipAscii(data, ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN), 0);
+    }
+
+    /**
+     * Skip over a run of non-zero ASCII bytes, a word at a time where possible.
+     *
+     * @param data The data.
+     * @param words A view of the data for reading words.
+     * @param start The index at which the run starts.
+     *
+     * @return The index of the first byte after the run.
+     */
+    private static int skipAscii(byte[] data, ByteBuffer words, int start) {
+        int index = start;
+        while ((index + Long.BYTES <= data.length) && (!isSpecial(words.getLong(index)))) {
+            index += Long.BYTES;
+        }
+        while ((index < data.length) && (!isSpecial(data[index]))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Get the length of the text encoded by the specified data, provided the data is valid UTF-8.
+     *
+     * <p> Zero bytes and truncated sequences are not accepted, as they more likely indicate binary data or another
+     * encoding. </p>
+     *
+     * @param data The data.
+     * @param start The index of the first byte which may not be ASCII.
+     *
+     * @return The length of the encoded text, or {@code -1} if the data is not valid UTF-8.
+     */
+    private static int getUtf8Length(byte[] data, int start) {
+        ByteBuffer words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int length = start;
+        int index = start;
+        while (index < data.length) {
+            int lead = data[index] & 0xFF;
+            if (lead == 0) {
+                return -1;
+            }
+            if (lead < 0x80) {
+                int next = skipAscii(data, words, index);
+                length += next - index;
+                index = next;
+                continue;
+            }
+            int trailing;
+            int min = 0x80;
+            int max = 0xBF;
+            if ((lead >= 0xC2) && (lead <= 0xDF)) {
+                trailing = 1;
+            } else if ((lead >= 0xE0) && (lead <= 0xEF)) {
+                trailing = 2;
+                min = (lead == 0xE0) ? 0xA0 : min;
+                max = (lead == 0xED) ? 0x9F : max;
+            } else if ((lead >= 0xF0) && (lead <= 0xF4)) {
+                trailing = 3;
+                min = (lead == 0xF0) ? 0x90 : min;
+                max = (lead == 0xF4) ? 0x8F : max;
+            } else {
+                return -1;
+            }
+            if (index + trailing >= data.length) {
+                return -1;
+            }
+            int second = data[index + 1] & 0xFF;
+            if ((second < min) || (second > max)) {
+                return -1;
+            }
+            for (int t = 2; t <= trailing; t++) {
+                if ((data[index + t] & 0xC0) != 0x80) {
+                    return -1;
+                }
+            }
+            // Supplementary characters are represented by surrogate pairs.
+            length += (trailing == 3) ? 2 : 1;
+            index += trailing + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Get the byte order of the specified data, provided the data is valid BOM-less UTF-16 which is dominated by
+     * characters from the first 256 code points.
+     *
+     * @param data The data.
+     *
+     * @return The UTF-16 encoding of the data, or {@code null} if the data is not recognized as UTF-16.
+     */
+    private static Charset getUtf16Encoding(byte[] data) {
+        if ((data.length < 2) || (data.length % 2 != 0)) {
+            return null;
+        }
+        int units = data.length / 2;
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int index = 0; index < data.length; index += 2) {
+            evenZeros += (data[index] == 0) ? 1 : 0;
+            oddZeros += (data[index + 1] == 0) ? 1 : 0;
+        }
+        boolean bigEndian;
+        if ((oddZeros == 0) && (evenZeros >= units * UTF16_ZERO_SHARE)) {
+            bigEndian = true;
+        } else if ((evenZeros == 0) && (oddZeros >= units * UTF16_ZERO_SHARE)) {
+            bigEndian = false;
+        } else {
+            return null;
+        }
+        int high = bigEndian ? 0 : 1;
+        int low = 1 - high;
+        boolean pending = false;
+        for (int index = 0; index < data.length; index += 2) {
+            char unit = (char)(((data[index + high] & 0xFF) << 8) | (data[index + low] & 0xFF));
+            if (Character.isHighSurrogate(unit)) {
+                if (pending) {
+                    return null;
+                }
+                pending = true;
+            } else if (Character.isLowSurrogate(unit)) {
+                if (!pending) {
+                    return null;
+                }
+                pending = false;
+            } else if (pending) {
+                return null;
+            }
+        }
+        if (pending) {
+            return null;
+        }
+        return bigEndian ? Encoding.UTF16BE : Encoding.UTF16LE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _sampled(SamplingPolicy.Sample sample, List<Analysis> results) {
+        TextInfo.describeSampled(sample, results);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void _dispose() {
+        // Intentional NoOp
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.analyzers.sniffer;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import keyterms.analyzer.Analysis;
+import keyterms.analyzer.text.TextInfo;
+import keyterms.testing.TestData;
+import keyterms.util.collect.Bags;
+import keyterms.util.io.Encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class SnifferAnalyzer_UT {
+
+    private static SnifferAnalyzer analyzer;
+
+    @BeforeClass
+    public static void setupAnalyzer() {
+        analyzer = new SnifferAnalyzer();
+    }
+
+    @AfterClass
+    public static void disposeAnalyzer() {
+        analyzer.dispose();
+    }
+
+    private static TextInfo sniff(byte[] data) {
+        List<Analysis> results = analyzer.analyze(data);
+        assertNotNull(results);
+        return (!results.isEmpty()) ? TextInfo.of(results.get(0)) : null;
+    }
+
+    @Test
+    public void utf8() {
+        TestData.LANGUAGE_PHRASES.forEach((key, phrase) -> {
+            TextInfo best = sniff(Encoding.encode(phrase, Encoding.UTF8));
+            assertNotNull(phrase, best);
+            String expected = phrase.chars().allMatch((c) -> c < 0x80) ? "us-ascii" : "utf-8";
+            assertEquals(phrase, expected, best.getEncoding());
+            assertEquals(phrase, phrase.length(), (int)best.getLength());
+        });
+    }
+
+    @Test
+    public void byteOrderMarks() {
+        Bags.staticList(Encoding.UTF8, Encoding.UTF16, Encoding.UTF16LE, Encoding.UTF32, Encoding.UTF32LE)
+                .forEach((encoding) -> {
+                    TextInfo best = sniff(Encoding.encode(TestData.LOREM_IPSUM, encoding, true));
+                    assertNotNull(encoding.name(), best);
+                    assertEquals(encoding.name(), encoding, Encoding.getCharset(best.getEncoding()));
+                    assertEquals(encoding.name(), TestData.LOREM_IPSUM.length(), (int)best.getLength());
+                    assertEquals(encoding.name(), 1.0, best.getScore().doubleValue(), 0);
+                });
+    }
+
+    @Test
+    public void utf16WithoutBom() {
+        for (Charset encoding : new Charset[] { Encoding.UTF16LE, Encoding.UTF16BE }) {
+            TextInfo best = sniff(Encoding.encode(TestData.LOREM_IPSUM, encoding));
+            assertNotNull(encoding.name(), best);
+            assertEquals(encoding.name(), encoding.name().toLowerCase(), best.getEncoding());
+            assertEquals(encoding.name(), TestData.LOREM_IPSUM.length(), (int)best.getLength());
+            // BOM-less UTF-16 is recognized statistically, so it is not reported with full confidence.
+            assertEquals(encoding.name(), SnifferAnalyzer.UTF16_SCORE, best.getScore().doubleValue(), 0);
+        }
+    }
+
+    @Test
+    public void undecided() {
+        assertEquals(null, sniff(new byte[] { 'c', 'a', 'f', (byte)0xE9 }));
+        assertEquals(null, sniff(new byte[] { 'a', (byte)0xE2, (byte)0x82 }));
+        assertEquals(null, sniff(new byte[] { 'a', 0, 'b' }));
+        // Even length data with zero bytes in both positions is neither UTF-8 nor recognizable UTF-16.
+        assertEquals(null, sniff(new byte[] { 'a', 0, 0, 'b', (byte)0xE9, 0 }));
+    }
+}
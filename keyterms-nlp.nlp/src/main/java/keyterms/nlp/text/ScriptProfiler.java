@@ -26,26 +26,38 @@
 
 package keyterms.nlp.text;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 
-import com.ibm.icu.text.Transliterator;
-
 import keyterms.nlp.iso.Script;
+import keyterms.util.lang.Lazy;
 import keyterms.util.math.Statistics;
 
 /**
  * A simple script profiler.
+ *
+ * <p> Texts longer than the chunk size are split into chunks which are profiled in parallel and then merged. The
+ * merged profile is identical to the profile of the whole text taken in a single pass. The first chunk is profiled
+ * on the calling thread and the rest on the executor given to the constructor, or by default on a pool of daemon
+ * threads shared by all profilers (never on the common fork-join pool). </p>
+ * <p> Code points are classified through a precomputed lookup table, so the standard filters cost nothing per code
+ * point; only filters other than the standard ones are evaluated for each code point. The table is built when the
+ * first profiler is constructed, so construction may fail with an {@code IllegalStateException} if it cannot be
+ * built. </p>
  */
 public class ScriptProfiler {
-    /**
-     * A transliterator for Chinese traditional to Chinese simplified script.
-     */
-    private static final Transliterator TO_HANT = Transliterator.getInstance("Simplified-Traditional");
-
     /**
      * A filter used to ignore space characters.
      */
@@ -65,9 +77,44 @@ public class ScriptProfiler {
                     (Characters.isPunctuation(Character.toChars(codePoint))));
 
     /**
-     * The filters used to treat specified code points as "common" characters.
+     * The default number of characters in each chunk of text profiled in parallel.
      */
-    private final Collection<Predicate<Integer>> codePointFilters;
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The shared service which profiles the chunks of large texts for profilers without an executor of their own.
+     */
+    private static final Lazy<ExecutorService> CHUNK_PROFILERS = new Lazy<>(() -> Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), (runnable) -> {
+                Thread thread = new Thread(runnable, "ScriptProfiler-Chunks");
+                thread.setDaemon(true);
+                return thread;
+            }));
+
+    /**
+     * The lookup table used to classify code points.
+     */
+    private final ScriptTable table;
+
+    /**
+     * The table flags of the standard filters used to treat specified code points as "common" characters.
+     */
+    private final int ignoreFlags;
+
+    /**
+     * The other filters used to treat specified code points as "common" characters.
+     */
+    private final Predicate<Integer>[] codePointFilters;
+
+    /**
+     * The number of characters in each chunk of text profiled in parallel.
+     */
+    private final int chunkSize;
+
+    /**
+     * The executor which profiles the chunks of large texts ({@code null} for the shared chunk profilers).
+     */
+    private final Executor executor;
 
     /**
      * Constructor.
@@ -82,8 +129,54 @@ public class ScriptProfiler {
      * @param codePointFilters The filters used to treat specified code points as "common" characters.
      */
     public ScriptProfiler(Collection<Predicate<Integer>> codePointFilters) {
+        this(codePointFilters, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param codePointFilters The filters used to treat specified code points as "common" characters.
+     * @param chunkSize The number of characters in each chunk of text profiled in parallel.
+     */
+    public ScriptProfiler(Collection<Predicate<Integer>> codePointFilters, int chunkSize) {
+        this(codePointFilters, chunkSize, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param codePointFilters The filters used to treat specified code points as "common" characters.
+     * @param chunkSize The number of characters in each chunk of text profiled in parallel.
+     * @param executor The executor which profiles the chunks of large texts ({@code null} to use a pool of daemon
+     * threads shared by all profilers).
+     */
+    public ScriptProfiler(Collection<Predicate<Integer>> codePointFilters, int chunkSize, Executor executor) {
         super();
-        this.codePointFilters = codePointFilters;
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        table = ScriptTable.getInstance();
+        int flags = 0;
+        List<Predicate<Integer>> otherFilters = new ArrayList<>();
+        if (codePointFilters != null) {
+            for (Predicate<Integer> filter : codePointFilters) {
+                if (filter == IGNORE_SPACE_CHARACTERS) {
+                    flags |= ScriptTable.SPACE;
+                } else if (filter == IGNORE_LATIN_NUMBERS) {
+                    flags |= ScriptTable.LATIN_DIGIT;
+                } else if (filter == IGNORE_LATIN_PUNCTUATION) {
+                    flags |= ScriptTable.LATIN_PUNCTUATION;
+                } else if (filter != null) {
+                    otherFilters.add(filter);
+                }
+            }
+        }
+        this.ignoreFlags = flags;
+        @SuppressWarnings("unchecked")
+        Predicate<Integer>[] filters = otherFilters.toArray(new Predicate[0]);
+        this.codePointFilters = filters;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
     }
 
     /**
@@ -94,44 +187,186 @@ public class ScriptProfiler {
      * @return A script profile of the specified text.
      */
     public ScriptProfile profile(String text) {
+        List<Chunk> chunks;
+        if ((text == null) || (text.length() <= chunkSize)) {
+            chunks = Collections.singletonList(profile(text, 0, (text != null) ? text.length() : 0));
+        } else {
+            int[] bounds = getChunkBounds(text);
+            Executor chunkProfilers = (executor != null) ? executor : CHUNK_PROFILERS.value();
+            List<CompletableFuture<Chunk>> pending = new ArrayList<>();
+            for (int b = 1; b < bounds.length - 1; b++) {
+                int start = bounds[b];
+                int end = bounds[b + 1];
+                pending.add(CompletableFuture.supplyAsync(() -> profile(text, start, end), chunkProfilers));
+            }
+            List<Chunk> profiled = new ArrayList<>();
+            profiled.add(profile(text, bounds[0], bounds[1]));
+            try {
+                pending.forEach((chunk) -> profiled.add(chunk.join()));
+            } catch (CompletionException error) {
+                if (error.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)error.getCause();
+                }
+                throw error;
+            }
+            chunks = profiled;
+        }
+        return merge(chunks);
+    }
+
+    /**
+     * Get the boundaries of the chunks of the specified text.
+     *
+     * <p> Chunk boundaries never split a surrogate pair. </p>
+     *
+     * @param text The text.
+     *
+     * @return The start of each chunk followed by the end of the text.
+     */
+    private int[] getChunkBounds(String text) {
+        int[] bounds = new int[(text.length() + chunkSize - 1) / chunkSize + 1];
+        int count = 1;
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + chunkSize, text.length());
+            if ((end < text.length()) && (Character.isHighSurrogate(text.charAt(end - 1))) &&
+                    (Character.isLowSurrogate(text.charAt(end)))) {
+                end++;
+            }
+            bounds[count++] = end;
+            start = end;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Profile a chunk of the specified text.
+     *
+     * @param text The text.
+     * @param start The start of the chunk (inclusive).
+     * @param end The end of the chunk (exclusive).
+     *
+     * @return The chunk profile.
+     */
+    private Chunk profile(String text, int start, int end) {
+        Chunk chunk = new Chunk();
+        for (int c = start; c < end; c++) {
+            chunk.codePoints++;
+            int codePoint = text.codePointAt(c);
+            // For multi-character code points advance the loop counter.
+            c += (Character.charCount(codePoint) - 1);
+            int entry = table.entry(codePoint);
+            Script script = (((entry & ignoreFlags) != 0) || (isIgnored(codePoint)))
+                    ? Script.COMMON
+                    : table.script(entry);
+            if ((Script.HANT.equals(script)) || (Script.HANS.equals(script))) {
+                if (chunk.haniScript == null) {
+                    chunk.haniScript = (table.isSimplified(codePoint)) ? Script.HANS : Script.HANT;
+                }
+                script = chunk.haniScript;
+            }
+            chunk.add(script, c);
+        }
+        return chunk;
+    }
+
+    /**
+     * Determine if any of the filters other than the standard ones treats the code point as a "common" character.
+     *
+     * @param codePoint The code point.
+     *
+     * @return A flag indicating whether the code point is to be treated as a "common" character.
+     */
+    private boolean isIgnored(int codePoint) {
+        for (Predicate<Integer> filter : codePointFilters) {
+            if (filter.test(codePoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merge the profiles of consecutive chunks of a text into the profile of the whole text.
+     *
+     * <p> Runs which span chunk boundaries are joined, and run sizes are recorded in text order so that the run
+     * statistics match those of a sequential profile. All Chinese code points take the simplified or traditional
+     * script of the first Chinese code point in the text. </p>
+     *
+     * @param chunks The chunk profiles in text order.
+     *
+     * @return The profile of the whole text.
+     */
+    private static ScriptProfile merge(List<Chunk> chunks) {
         int codePoints = 0;
         Map<Script, WorkingEntry> workingEntries = new HashMap<>();
         workingEntries.put(Script.COMMON, new WorkingEntry());
-        if (text != null) {
-            WorkingEntry lastEntry = null;
-            Script haniScript = null;
-            for (int c = 0; c < text.length(); c++) {
-                codePoints++;
-                int codePoint = text.codePointAt(c);
-                // For multi-character code points advance the loop counter.
-                int codePointCharCount = Character.charCount(codePoint);
-                c += (codePointCharCount - 1);
-                Character.UnicodeScript unicodeScript = Character.UnicodeScript.of(codePoint);
-                Script script = Script.valueOf(unicodeScript);
-                boolean ignore = ((codePointFilters != null) &&
-                        (codePointFilters.stream().anyMatch((filter) -> filter.test(codePoint))));
-                if (ignore) {
-                    script = Script.COMMON;
+        Script haniScript = chunks.stream()
+                .map((chunk) -> chunk.haniScript)
+                .filter((script) -> script != null)
+                .findFirst()
+                .orElse(null);
+        Script openScript = null;
+        int openRun = 0;
+        for (Chunk chunk : chunks) {
+            codePoints += chunk.codePoints;
+            chunk.entries.forEach((script, chunkEntry) -> {
+                WorkingEntry entry = workingEntries.computeIfAbsent(chunk.relabel(script, haniScript),
+                        (s) -> new WorkingEntry());
+                if (entry.firstIndex == null) {
+                    entry.firstIndex = chunkEntry.firstIndex;
                 }
-                if ((Script.HANT.equals(script)) || (Script.HANS.equals(script))) {
-                    if (haniScript == null) {
-                        String s1 = text.substring(c, c + codePointCharCount);
-                        String s2 = TO_HANT.transliterate(s1);
-                        haniScript = (s1.equals(s2)) ? Script.HANT : Script.HANS;
+                entry.codePoints += chunkEntry.codePoints;
+            });
+            if (chunk.lastEntry == null) {
+                continue;
+            }
+            if (chunk.multipleRuns) {
+                // The chunk holds more than one run: join its first run to any open run, then replay the rest.
+                Script firstScript = chunk.relabel(chunk.firstScript, haniScript);
+                if ((openRun > 0) && (firstScript == openScript)) {
+                    closeRun(workingEntries, firstScript, openRun + chunk.firstRun);
+                } else {
+                    closeRun(workingEntries, openScript, openRun);
+                    closeRun(workingEntries, firstScript, chunk.firstRun);
+                }
+                chunk.entries.forEach((script, chunkEntry) -> {
+                    WorkingEntry entry = workingEntries.get(chunk.relabel(script, haniScript));
+                    for (int r = 0; r < chunkEntry.runCount; r++) {
+                        entry.runStats.add(chunkEntry.runs[r]);
                     }
-                    script = haniScript;
+                });
+                openScript = chunk.relabel(chunk.lastScript, haniScript);
+                openRun = chunk.lastRun;
+            } else {
+                // The whole chunk is a single run which may continue the open run.
+                Script lastScript = chunk.relabel(chunk.lastScript, haniScript);
+                if ((openRun > 0) && (lastScript == openScript)) {
+                    openRun += chunk.lastRun;
+                } else {
+                    closeRun(workingEntries, openScript, openRun);
+                    openScript = lastScript;
+                    openRun = chunk.lastRun;
                 }
-                WorkingEntry entry = workingEntries.computeIfAbsent(script, (s) -> new WorkingEntry());
-                entry.increment(c, lastEntry);
-                lastEntry = entry;
-            }
-            if (lastEntry != null) {
-                lastEntry.closeRun();
             }
         }
+        closeRun(workingEntries, openScript, openRun);
         return new ScriptProfile(codePoints, workingEntries);
     }
 
+    /**
+     * Record a completed run of code points from the specified script.
+     *
+     * @param workingEntries The working entries.
+     * @param script The script.
+     * @param run The number of code points in the run ({@code 0} if there is no run).
+     */
+    private static void closeRun(Map<Script, WorkingEntry> workingEntries, Script script, int run) {
+        if (run > 0) {
+            workingEntries.get(script).runStats.add(run);
+        }
+    }
+
     /**
      * A working entry for the script profiler.
      */
@@ -146,11 +381,6 @@ public class ScriptProfiler {
          */
         int codePoints = 0;
 
-        /**
-         * The current count of sequential code points from the associated script.
-         */
-        int runCount = 0;
-
         /**
          * The statistics on run size (sequential code points from the associated script).
          */
@@ -162,31 +392,135 @@ public class ScriptProfiler {
         private WorkingEntry() {
             super();
         }
+    }
+
+    /**
+     * The profile of a chunk of text.
+     *
+     * <p> The first run of the chunk is kept apart from the others, and the last run is left open, so that runs which
+     * span chunk boundaries can be joined when the chunks are merged. </p>
+     */
+    private static class Chunk {
+        /**
+         * The number of code points in the chunk.
+         */
+        int codePoints;
+
+        /**
+         * The script (simplified or traditional) of the first Chinese code point in the chunk.
+         */
+        Script haniScript;
+
+        /**
+         * The entries for each script in the order they are first seen.
+         */
+        final Map<Script, ChunkEntry> entries = new LinkedHashMap<>();
+
+        /**
+         * The entry for the script of the last run.
+         */
+        ChunkEntry lastEntry;
 
         /**
-         * Increment the number of characters that are members of the associated script.
+         * A flag indicating whether the chunk holds more than one run.
+         */
+        boolean multipleRuns;
+
+        /**
+         * The script of the first run (only set if the chunk holds more than one run).
+         */
+        Script firstScript;
+
+        /**
+         * The number of code points in the first run.
+         */
+        int firstRun;
+
+        /**
+         * The script of the last (open) run.
+         */
+        Script lastScript;
+
+        /**
+         * The number of code points in the last run.
+         */
+        int lastRun;
+
+        /**
+         * Count a code point from the specified script.
          *
-         * @param last The prior entry.
+         * @param script The script.
+         * @param c The character index of the code point.
          */
-        private void increment(int c, WorkingEntry last) {
-            if (firstIndex == null) {
-                firstIndex = c;
+        void add(Script script, int c) {
+            if ((script != lastScript) || (lastEntry == null)) {
+                if (lastEntry != null) {
+                    if (!multipleRuns) {
+                        multipleRuns = true;
+                        firstScript = lastScript;
+                        firstRun = lastRun;
+                    } else {
+                        lastEntry.addRun(lastRun);
+                    }
+                }
+                lastEntry = entries.computeIfAbsent(script, (s) -> new ChunkEntry());
+                lastScript = script;
+                lastRun = 0;
             }
-            codePoints++;
-            runCount++;
-            if ((last != null) && (this != last)) {
-                last.closeRun();
+            if (lastEntry.firstIndex == null) {
+                lastEntry.firstIndex = c;
             }
+            lastEntry.codePoints++;
+            lastRun++;
+        }
+
+        /**
+         * Get the script of the whole text for the specified chunk script.
+         *
+         * @param script The chunk script.
+         * @param textHaniScript The script of the first Chinese code point in the whole text.
+         *
+         * @return The script of the whole text.
+         */
+        Script relabel(Script script, Script textHaniScript) {
+            return ((haniScript != null) && (script == haniScript)) ? textHaniScript : script;
         }
+    }
+
+    /**
+     * The statistics for a single script within a chunk of text.
+     */
+    private static class ChunkEntry {
+        /**
+         * The character index of the first code point from the script.
+         */
+        Integer firstIndex;
+
+        /**
+         * The number of code points from the script.
+         */
+        int codePoints;
+
+        /**
+         * The sizes of the completed runs other than the first run of the chunk, in text order.
+         */
+        int[] runs = new int[8];
 
         /**
-         * Close out the current sequential run.
+         * The number of completed runs.
+         */
+        int runCount;
+
+        /**
+         * Record a completed run.
+         *
+         * @param run The number of code points in the run.
          */
-        private void closeRun() {
-            if (runCount > 0) {
-                runStats.add(runCount);
-                runCount = 0;
+        void addRun(int run) {
+            if (runCount == runs.length) {
+                runs = Arrays.copyOf(runs, runCount * 2);
             }
+            runs[runCount++] = run;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,272 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package keyterms.nlp.text;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.icu.text.Transliterator;
+
+import keyterms.nlp.iso.Script;
+import keyterms.util.io.Encoding;
+import keyterms.util.lang.Lazy;
+
+/**
+ * A precomputed lookup table from Unicode code points to their ISO scripts and to the character classes used by the
+ * standard script profiler filters.
+ *
+ * <p> The table has two levels: the high bits of a code point select a block of 256 entries, and identical blocks
+ * (such as unassigned planes) are shared. Each entry holds the index of the script plus the class flags. </p>
+ * <p> Chinese code points which change when converted from simplified to traditional script are held in a separate
+ * bit set. Running the ICU transliterator over every Chinese code point is slow, so the simplified code points are
+ * computed ahead of time (see {@link #main(String[])}) and loaded from the {@code rsc/simplified.lst} resource. The
+ * rest of the table is built from the runtime's own Unicode data when the first script profiler is constructed. </p>
+ */
+final class ScriptTable {
+    /**
+     * The flag for space characters (see {@code ScriptProfiler.IGNORE_SPACE_CHARACTERS}).
+     */
+    static final int SPACE = 1 << 12;
+
+    /**
+     * The flag for latin digits (see {@code ScriptProfiler.IGNORE_LATIN_NUMBERS}).
+     */
+    static final int LATIN_DIGIT = 1 << 13;
+
+    /**
+     * The flag for latin punctuation (see {@code ScriptProfiler.IGNORE_LATIN_PUNCTUATION}).
+     */
+    static final int LATIN_PUNCTUATION = 1 << 14;
+
+    /**
+     * The mask for the script index within a table entry.
+     */
+    private static final int SCRIPT_MASK = (1 << 12) - 1;
+
+    /**
+     * The number of bits of a code point which index into a block.
+     */
+    private static final int BLOCK_BITS = 8;
+
+    /**
+     * The shared table instance.
+     */
+    private static final Lazy<ScriptTable> INSTANCE = new Lazy<>(ScriptTable::new);
+
+    /**
+     * Get the shared table instance.
+     *
+     * @return The shared table instance.
+     */
+    static ScriptTable getInstance() {
+        ScriptTable table = INSTANCE.value();
+        if (table == null) {
+            throw new IllegalStateException("The script table could not be built.");
+        }
+        return table;
+    }
+
+    /**
+     * Write the simplified Chinese code points as ranges of hexadecimal code points to the file named by the first
+     * argument, regenerating the {@code rsc/simplified.lst} resource.
+     *
+     * @param args The command line arguments.
+     *
+     * @throws IOException for input/output errors.
+     */
+    public static void main(String[] args)
+            throws IOException {
+        BitSet simplified = transliterateSimplified();
+        StringBuilder ranges = new StringBuilder("# Simplified Chinese code points (ICU Simplified-Traditional)\n");
+        for (int start = simplified.nextSetBit(0); start >= 0; start = simplified.nextSetBit(start)) {
+            int end = simplified.nextClearBit(start);
+            ranges.append(String.format("%04X", start));
+            if (end - 1 > start) {
+                ranges.append(String.format("..%04X", end - 1));
+            }
+            ranges.append('\n');
+            start = end;
+        }
+        Files.write(Paths.get(args[0]), ranges.toString().getBytes(Encoding.UTF8));
+    }
+
+    /**
+     * Find the Chinese code points which change when converted from simplified to traditional script.
+     *
+     * @return The Chinese code points which belong to the simplified script.
+     */
+    static BitSet transliterateSimplified() {
+        BitSet simplified = new BitSet();
+        Transliterator toHant = Transliterator.getInstance("Simplified-Traditional");
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN) {
+                String text = new String(Character.toChars(codePoint));
+                if (!text.equals(toHant.transliterate(text))) {
+                    simplified.set(codePoint);
+                }
+            }
+        }
+        return simplified;
+    }
+
+    /**
+     * Load the simplified Chinese code points from the {@code rsc/simplified.lst} resource.
+     *
+     * @return The Chinese code points which belong to the simplified script.
+     */
+    private static BitSet loadSimplified() {
+        BitSet simplified = new BitSet();
+        try (InputStream stream = ScriptTable.class.getResourceAsStream("rsc/simplified.lst")) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing resource: rsc/simplified.lst");
+            }
+            for (String line : Encoding.decode(stream.readAllBytes(), Encoding.UTF8).split("\n")) {
+                line = line.trim();
+                if ((!line.isEmpty()) && (!line.startsWith("#"))) {
+                    int separator = line.indexOf("..");
+                    int start = Integer.parseInt((separator < 0) ? line : line.substring(0, separator), 16);
+                    int end = (separator < 0) ? start : Integer.parseInt(line.substring(separator + 2), 16);
+                    simplified.set(start, end + 1);
+                }
+            }
+        } catch (IOException error) {
+            throw new IllegalStateException("Could not load the simplified Chinese code points.", error);
+        }
+        return simplified;
+    }
+
+    /**
+     * The scripts by table index (index {@code 0} is reserved for code points without an ISO script).
+     */
+    private final Script[] scripts;
+
+    /**
+     * The block index for each range of 256 code points.
+     */
+    private final short[] blockIndexes;
+
+    /**
+     * The distinct blocks of table entries.
+     */
+    private final short[][] blocks;
+
+    /**
+     * The Chinese code points which belong to the simplified script.
+     */
+    private final BitSet simplified = loadSimplified();
+
+    /**
+     * Constructor.
+     */
+    private ScriptTable() {
+        super();
+        List<Script> scriptList = new ArrayList<>();
+        scriptList.add(null);
+        Map<Script, Integer> scriptIndexes = new HashMap<>();
+        Map<Character.UnicodeScript, Integer> unicodeIndexes = new HashMap<>();
+        for (Character.UnicodeScript unicodeScript : Character.UnicodeScript.values()) {
+            Script script = Script.valueOf(unicodeScript);
+            int index = 0;
+            if (script != null) {
+                index = scriptIndexes.computeIfAbsent(script, (s) -> {
+                    scriptList.add(s);
+                    return scriptList.size() - 1;
+                });
+            }
+            unicodeIndexes.put(unicodeScript, index);
+        }
+        scripts = scriptList.toArray(new Script[0]);
+        blockIndexes = new short[(Character.MAX_CODE_POINT + 1) >>> BLOCK_BITS];
+        List<short[]> blockList = new ArrayList<>();
+        Map<ShortBuffer, Integer> blockMap = new HashMap<>();
+        for (int b = 0; b < blockIndexes.length; b++) {
+            short[] block = new short[1 << BLOCK_BITS];
+            for (int e = 0; e < block.length; e++) {
+                int codePoint = (b << BLOCK_BITS) | e;
+                Character.UnicodeScript unicodeScript = Character.UnicodeScript.of(codePoint);
+                int entry = unicodeIndexes.get(unicodeScript);
+                if (Character.isSpaceChar(codePoint)) {
+                    entry |= SPACE;
+                }
+                char[] chars = Character.toChars(codePoint);
+                if (Characters.isLatinDigit(chars)) {
+                    entry |= LATIN_DIGIT;
+                }
+                if ((unicodeScript == Character.UnicodeScript.LATIN) && (Characters.isPunctuation(chars))) {
+                    entry |= LATIN_PUNCTUATION;
+                }
+                block[e] = (short)entry;
+            }
+            blockIndexes[b] = (short)(int)blockMap.computeIfAbsent(ShortBuffer.wrap(block), (k) -> {
+                blockList.add(block);
+                return blockList.size() - 1;
+            });
+        }
+        blocks = blockList.toArray(new short[0][]);
+    }
+
+    /**
+     * Get the table entry (script index plus class flags) for the specified code point.
+     *
+     * @param codePoint The code point.
+     *
+     * @return The table entry.
+     */
+    int entry(int codePoint) {
+        return blocks[blockIndexes[codePoint >>> BLOCK_BITS]][codePoint & ((1 << BLOCK_BITS) - 1)];
+    }
+
+    /**
+     * Get the script for the specified table entry.
+     *
+     * @param entry The table entry.
+     *
+     * @return The script ({@code null} if the code point has no ISO script).
+     */
+    Script script(int entry) {
+        return scripts[entry & SCRIPT_MASK];
+    }
+
+    /**
+     * Determine if the specified Chinese code point belongs to the simplified script.
+     *
+     * @param codePoint The code point.
+     *
+     * @return A flag indicating whether the code point changes when converted to traditional script.
+     */
+    boolean isSimplified(int codePoint) {
+        return simplified.get(codePoint);
+    }
+}
@@ -29,6 +29,7 @@ package keyterms.nlp.text;
 import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import keyterms.nlp.iso.WrittenLanguage;
 import keyterms.util.text.Strings;
@@ -40,9 +41,9 @@ import keyterms.util.text.TextSplitter;
 public class SentenceSplitter
         implements TextSplitter {
     /**
-     * The written language handled by this splitter.
+     * The locale whose sentence boundary rules are used by this splitter.
      */
-    private final WrittenLanguage writtenLanguage;
+    private final Locale locale;
 
     /**
      * Constructor.
@@ -50,8 +51,20 @@ public class SentenceSplitter
      * @param writtenLanguage The written language of the text to split.
      */
     public SentenceSplitter(WrittenLanguage writtenLanguage) {
+        this(writtenLanguage.getLocale());
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p> Use {@code Locale.ROOT} for language neutral sentence boundaries, such as in texts mixing several languages.
+     * </p>
+     *
+     * @param locale The locale whose sentence boundary rules are used to split text.
+     */
+    public SentenceSplitter(Locale locale) {
         super();
-        this.writtenLanguage = writtenLanguage;
+        this.locale = locale;
     }
 
     /**
@@ -61,7 +74,7 @@ public class SentenceSplitter
     public List<String> split(CharSequence text) {
         List<String> sentences = new ArrayList<>();
         if (!Strings.isEmpty(text)) {
-            BreakIterator sentenceSplitter = BreakIterator.getSentenceInstance(writtenLanguage.getLocale());
+            BreakIterator sentenceSplitter = BreakIterator.getSentenceInstance(locale);
             sentenceSplitter.setText(text.toString());
             int current = sentenceSplitter.current();
             if (current != -1) {
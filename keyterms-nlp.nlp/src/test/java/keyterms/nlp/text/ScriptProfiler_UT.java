@@ -26,6 +26,10 @@
 
 package keyterms.nlp.text;
 
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import keyterms.nlp.iso.Script;
@@ -227,4 +231,58 @@ public class ScriptProfiler_UT {
         assertEquals(Script.HANS, profile.getScript());
         assertFalse(profile.contains(Script.HANT));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void chunkedProfile() {
+        testChunkedProfile("http://www.google.com , t 个个個 نهفشلا 這是 ззг 𝐀𝐁 这是 hello.  ");
+        // The first Chinese code point is traditional, and later chunks start with simplified ones.
+        testChunkedProfile("ab 個 个个个个个个个个 cd");
+        testChunkedProfile("ab 个 個個個個個個個個 cd");
+    }
+
+    private void testChunkedProfile(String input) {
+        ScriptProfile whole = new ScriptProfiler().profile(input);
+        for (int chunkSize = 2; chunkSize < input.length(); chunkSize++) {
+            ScriptProfile chunked = new ScriptProfiler(Arrays.asList(ScriptProfiler.IGNORE_SPACE_CHARACTERS,
+                    ScriptProfiler.IGNORE_LATIN_NUMBERS, ScriptProfiler.IGNORE_LATIN_PUNCTUATION), chunkSize)
+                    .profile(input);
+            assertEquals(whole.getScript(), chunked.getScript());
+            assertEquals(whole.getScript(true), chunked.getScript(true));
+            assertEquals(whole.getCodePointCount(), chunked.getCodePointCount());
+            assertEquals(whole.getEntries().size(), chunked.getEntries().size());
+            for (int e = 0; e < whole.getEntries().size(); e++) {
+                ScriptProfile.Entry expected = whole.getEntries().get(e);
+                ScriptProfile.Entry actual = chunked.getEntries().get(e);
+                assertEquals(expected.getScript(), actual.getScript());
+                assertEquals(expected.getFirstIndex(), actual.getFirstIndex());
+                assertEquals(expected.getCodePoints(), actual.getCodePoints());
+                assertEquals(expected.getRunCount(), actual.getRunCount());
+                assertEquals(expected.getMinimumRunSize(), actual.getMinimumRunSize());
+                assertEquals(expected.getMeanRunSize(), actual.getMeanRunSize(), 0);
+                assertEquals(expected.getMaximumRunSize(), actual.getMaximumRunSize());
+            }
+        }
+    }
+
+    @Test
+    public void chunkedProfileHanScript() {
+        String input = "ab 個 个个个个个个个个 cd";
+        assertEquals(Script.HANT, new ScriptProfiler().profile(input).getScript());
+        assertEquals(Script.HANT, new ScriptProfiler(null, 6).profile(input).getScript());
+        assertFalse(new ScriptProfiler(null, 6).profile(input).contains(Script.HANS));
+    }
+
+    @Test
+    public void chunkedProfileExecutor() {
+        String input = "ab 個 个个个个个个个个 cd";
+        AtomicInteger tasks = new AtomicInteger();
+        Executor executor = (task) -> {
+            tasks.incrementAndGet();
+            task.run();
+        };
+        ScriptProfile profile = new ScriptProfiler(null, 4, executor).profile(input);
+        assertEquals(Script.HANT, profile.getScript());
+        // The first chunk is profiled on the calling thread.
+        assertEquals((input.length() + 3) / 4 - 1, tasks.get());
+    }
+}
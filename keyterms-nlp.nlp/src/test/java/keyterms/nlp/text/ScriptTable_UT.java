@@ -0,0 +1,76 @@
+/*
+ * NOTICE
+ * This software was produced for the U.S. Government and is subject to the
+ * Rights in Data-General Clause 5.227-14 (May 2014).
+ * Copyright 2018 The MITRE Corporation. All rights reserved.
+ *
+ * “Approved for Public Release; Distribution Unlimited” Case  18-2165
+ *
+ * This project contains content developed by The MITRE Corporation.
+ * If this code is used in a deployment or embedded within another project,
+ * it is requested that you send an email to opensource@mitre.org
+ * in order to let us know where this software is being used.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package keyterms.nlp.text;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import keyterms.nlp.iso.Script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ScriptTable_UT {
+
+    @Test
+    public void entriesMatchUnicodeData() {
+        ScriptTable table = ScriptTable.getInstance();
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            int entry = table.entry(codePoint);
+            String label = String.format("U+%04X", codePoint);
+            assertEquals(label, Script.valueOf(Character.UnicodeScript.of(codePoint)), table.script(entry));
+            assertEquals(label, ScriptProfiler.IGNORE_SPACE_CHARACTERS.test(codePoint),
+                    (entry & ScriptTable.SPACE) != 0);
+            assertEquals(label, ScriptProfiler.IGNORE_LATIN_NUMBERS.test(codePoint),
+                    (entry & ScriptTable.LATIN_DIGIT) != 0);
+            assertEquals(label, ScriptProfiler.IGNORE_LATIN_PUNCTUATION.test(codePoint),
+                    (entry & ScriptTable.LATIN_PUNCTUATION) != 0);
+        }
+    }
+
+    @Test
+    public void simplifiedMatchesTransliterator() {
+        ScriptTable table = ScriptTable.getInstance();
+        BitSet simplified = ScriptTable.transliterateSimplified();
+        assertFalse(simplified.isEmpty());
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            // The resource must be regenerated (ScriptTable.main) whenever the ICU version changes.
+            assertEquals(String.format("U+%04X", codePoint), simplified.get(codePoint), table.isSimplified(codePoint));
+        }
+        assertTrue(table.isSimplified("个".codePointAt(0)));
+        assertFalse(table.isSimplified("個".codePointAt(0)));
+    }
+
+    @Test
+    public void sharedInstance() {
+        assertSame(ScriptTable.getInstance(), ScriptTable.getInstance());
+    }
+}
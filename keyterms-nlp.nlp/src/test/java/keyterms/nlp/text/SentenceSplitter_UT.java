@@ -28,6 +28,7 @@ package keyterms.nlp.text;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import org.junit.Test;
 
@@ -84,4 +85,12 @@ public class SentenceSplitter_UT {
     public void largeLoremIpsum() {
         testSplitter(TestData.LOREM_IPSUM_LARGE, WrittenLanguage.valueOf("latin", "latn"), 128);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void rootLocale() {
+        String text = "Hello World! Bonjour le monde. Привет, мир! 你好，世界。";
+        List<String> sentences = new SentenceSplitter(Locale.ROOT).split(text);
+        assertEquals(4, sentences.size());
+        assertEquals(text, String.join("", sentences));
+    }
+}
@@ -29,9 +29,12 @@ package keyterms.service;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
@@ -41,9 +44,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
 
 import keyterms.analyzer.Analysis;
+import keyterms.analyzer.AnalysisCache;
 import keyterms.analyzer.Analyzer;
 import keyterms.analyzer.CoreAnalyzers;
 import keyterms.analyzer.profiles.WekaProfile;
@@ -81,6 +86,24 @@ public class AnalyzerEndPoints {
         return KeyTermsService.defaultAnalyzerKey;
     }
 
+    /**
+     * Determine if the product and profile analyzers have finished loading.
+     *
+     * <p> The service accepts requests while analyzers load in the background; this end point reports 503:
+     * SERVICE_UNAVAILABLE until loading completes so that it may be used as a readiness probe. </p>
+     *
+     * @return A response indicating whether the analyzers have finished loading.
+     */
+    @GET
+    @Path("ready")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response isReady() {
+        boolean ready = ((CoreAnalyzers.getInstance().isReady()) && (WekaProfiles.getInstance().isReady()));
+        return Response.status((ready) ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+                .entity(Boolean.toString(ready))
+                .build();
+    }
+
     /**
      * Get the products available for text analysis.
      *
@@ -109,6 +132,27 @@ public class AnalyzerEndPoints {
                 .collect(Collectors.toCollection(TreeSet::new));
     }
 
+    /**
+     * Get the statistics for the shared analysis result cache.
+     *
+     * @return The statistics for the shared analysis result cache (empty if caching is disabled).
+     */
+    @GET
+    @Path("cache_stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Long> getCacheStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        AnalysisCache cache = KeyTermsService.analysisCache;
+        if (cache != null) {
+            statistics.put("size", (long)cache.size());
+            statistics.put("maximum_size", (long)cache.getMaximumSize());
+            statistics.put("hits", cache.getHits());
+            statistics.put("misses", cache.getMisses());
+            statistics.put("evictions", cache.getEvictions());
+        }
+        return statistics;
+    }
+
     /**
      * Get the best analysis result for the specified text data.
      *
@@ -165,7 +209,7 @@ public class AnalyzerEndPoints {
                 results.add(result);
             }
         } catch (Exception error) {
-            throw new ServiceError(error);
+            throw KeyTermsService.serviceError(error);
         }
         return results;
     }
@@ -192,28 +236,29 @@ public class AnalyzerEndPoints {
                     .orElse(null));
             Charset encoding = (textInfo != null) ? Encoding.getCharset(textInfo.getEncoding()) : null;
             String text = (encoding != null) ? Encoding.decode((byte[])data, encoding) : null;
+            // All analyses are started before any results are collected.
+            List<Keyed<String, CompletableFuture<List<Analysis>>>> pending = new ArrayList<>();
             getProducts().forEach((product) -> {
                 Analyzer analyzer = KeyTermsService.getAnalyzer(product);
-                List<Analysis> productResults = (analyzer.accepts(byte[].class))
-                        ? analyzer.analyze(data)
-                        : analyzer.analyze(text);
-                for (int r = 0; r < Math.min(productResults.size(), KeyTermsService.MAX_RESULTS); r++) {
-                    Analysis result = productResults.get(r);
-                    analyses.add(new Keyed<>(product, result));
-                }
+                pending.add(new Keyed<>(product, (analyzer.accepts(byte[].class))
+                        ? analyzer.analyzeAsync(data)
+                        : analyzer.analyzeAsync(text)));
             });
             getProfiles().forEach((product) -> {
                 Analyzer analyzer = KeyTermsService.getAnalyzer(product);
-                List<Analysis> productResults = (analyzer.accepts(byte[].class))
-                        ? analyzer.analyze(data)
-                        : analyzer.analyze(text);
+                pending.add(new Keyed<>(product, (analyzer.accepts(byte[].class))
+                        ? analyzer.analyzeAsync(data)
+                        : analyzer.analyzeAsync(text)));
+            });
+            pending.forEach((entry) -> {
+                List<Analysis> productResults = entry.getValue().join();
                 for (int r = 0; r < Math.min(productResults.size(), KeyTermsService.MAX_RESULTS); r++) {
                     Analysis result = productResults.get(r);
-                    analyses.add(new Keyed<>(product, result));
+                    analyses.add(new Keyed<>(entry.getKey(), result));
                 }
             });
         } catch (Exception error) {
-            throw new ServiceError(error);
+            throw KeyTermsService.serviceError(error);
         }
         return analyses;
     }
@@ -248,7 +293,7 @@ public class AnalyzerEndPoints {
             Charset encoding = (textInfo != null) ? Encoding.getCharset(textInfo.getEncoding()) : null;
             preview = (encoding != null) ? Encoding.decode((byte[])data, encoding) : null;
         } catch (Exception error) {
-            throw new ServiceError(error);
+            throw KeyTermsService.serviceError(error);
         }
         return preview;
     }
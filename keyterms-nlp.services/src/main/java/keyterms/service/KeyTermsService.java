@@ -48,9 +48,12 @@ import javax.ws.rs.core.Response;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import keyterms.analyzer.AnalysisCache;
 import keyterms.analyzer.Analyzer;
 import keyterms.analyzer.AnalyzerId;
 import keyterms.analyzer.CoreAnalyzers;
+import keyterms.analyzer.OverflowPolicy;
+import keyterms.analyzer.RejectedAnalysisException;
 import keyterms.analyzer.profiles.WekaProfile;
 import keyterms.analyzer.profiles.WekaProfiles;
 import keyterms.analyzer.text.TextInfo;
@@ -64,6 +67,7 @@ import keyterms.nlp.model.Transliteration;
 import keyterms.nlp.text.ScriptProfiler;
 import keyterms.nlp.transliterate.Transliterators;
 import keyterms.rest.service.RestService;
+import keyterms.rest.service.ServiceError;
 import keyterms.util.collect.Keyed;
 import keyterms.util.config.Setting;
 import keyterms.util.config.SettingFactory;
@@ -128,6 +132,65 @@ public class KeyTermsService
             .withDefault("/var/lib/cld2")
             .build();
 
+    /**
+     * The maximum number of analyses which may wait for each core analyzer pool.
+     */
+    private static final Setting<Integer> ANALYZER_QUEUE_CAPACITY = new SettingFactory<>(
+            "analyzer.queue.capacity", Integer.class)
+            .build();
+
+    /**
+     * The behavior of the core analyzer pools when their queues of pending analyses are full.
+     */
+    private static final Setting<OverflowPolicy> ANALYZER_OVERFLOW_POLICY = new SettingFactory<>(
+            "analyzer.overflow.policy", OverflowPolicy.class)
+            .build();
+
+    /**
+     * The number of instances each analyzer pool keeps even when idle.
+     */
+    private static final Setting<Integer> ANALYZER_MIN_INSTANCES = new SettingFactory<>(
+            "analyzer.min.instances", Integer.class)
+            .build();
+
+    /**
+     * The maximum number of instances (and threads) in each analyzer pool.
+     */
+    private static final Setting<Integer> ANALYZER_MAX_INSTANCES = new SettingFactory<>(
+            "analyzer.max.instances", Integer.class)
+            .build();
+
+    /**
+     * The number of seconds an analyzer instance in excess of the minimum may remain unused before it is disposed.
+     */
+    private static final Setting<Integer> ANALYZER_IDLE_SECONDS = new SettingFactory<>(
+            "analyzer.idle.seconds", Integer.class)
+            .build();
+
+    /**
+     * A flag indicating whether analyzer pools, ensemble analyses and small core analyzer runs use virtual threads
+     * (where supported by the runtime).
+     */
+    private static final Setting<Boolean> ANALYZER_VIRTUAL_THREADS = new SettingFactory<>(
+            "analyzer.virtual.threads", Boolean.class)
+            .build();
+
+    /**
+     * The input size below which the core analyzers run sequentially on the request thread.
+     */
+    private static final Setting<Integer> ANALYZER_SEQUENTIAL_THRESHOLD = new SettingFactory<>(
+            "analyzer.sequential.threshold", Integer.class)
+            .withDefault(CoreAnalyzers.DEFAULT_SEQUENTIAL_THRESHOLD)
+            .build();
+
+    /**
+     * The maximum number of analysis results to cache (zero to disable caching).
+     */
+    private static final Setting<Integer> ANALYZER_CACHE_SIZE = new SettingFactory<>(
+            "analyzer.cache.size", Integer.class)
+            .withDefault(0)
+            .build();
+
     /**
      * The default profile for text analysis.
      */
@@ -157,6 +220,11 @@ public class KeyTermsService
      */
     static Analyzer defaultAnalyzer;
 
+    /**
+     * The cache of analysis results shared by the product and profile analyzers ({@code null} if disabled).
+     */
+    static AnalysisCache analysisCache;
+
     /**
      * Get the specified analyzer.
      *
@@ -181,6 +249,23 @@ public class KeyTermsService
         return analyzer;
     }
 
+    /**
+     * Get the service error reported for the specified error.
+     *
+     * <p> Analyses rejected by saturated analyzer pools are reported as 503: SERVICE_UNAVAILABLE so that clients may
+     * back off and retry. </p>
+     *
+     * @param error The error.
+     *
+     * @return The service error reported for the specified error.
+     */
+    static ServiceError serviceError(Throwable error) {
+        RejectedAnalysisException rejected = RejectedAnalysisException.causeOf(error);
+        return (rejected != null)
+                ? new ServiceError(Response.Status.SERVICE_UNAVAILABLE, rejected)
+                : new ServiceError(error);
+    }
+
     /**
      * Constructor.
      */
@@ -194,8 +279,33 @@ public class KeyTermsService
     @Override
     protected void startup() {
         System.setProperty("cld2.home", CLD2_HOME.getValue());
+        if (ANALYZER_QUEUE_CAPACITY.getValue() != null) {
+            System.setProperty("analyzer.queue.capacity", ANALYZER_QUEUE_CAPACITY.getValue().toString());
+        }
+        if (ANALYZER_OVERFLOW_POLICY.getValue() != null) {
+            System.setProperty("analyzer.overflow.policy", ANALYZER_OVERFLOW_POLICY.getValue().name());
+        }
+        if (ANALYZER_MIN_INSTANCES.getValue() != null) {
+            System.setProperty("analyzer.min.instances", ANALYZER_MIN_INSTANCES.getValue().toString());
+        }
+        if (ANALYZER_MAX_INSTANCES.getValue() != null) {
+            System.setProperty("analyzer.max.instances", ANALYZER_MAX_INSTANCES.getValue().toString());
+        }
+        if (ANALYZER_IDLE_SECONDS.getValue() != null) {
+            System.setProperty("analyzer.idle.seconds", ANALYZER_IDLE_SECONDS.getValue().toString());
+        }
+        if (ANALYZER_VIRTUAL_THREADS.getValue() != null) {
+            System.setProperty("analyzer.virtual.threads", ANALYZER_VIRTUAL_THREADS.getValue().toString());
+        }
+        System.setProperty("analyzer.sequential.threshold", ANALYZER_SEQUENTIAL_THRESHOLD.getValue().toString());
+        // Analyzer pools are registered immediately and warm up in the background (see /analyzer/ready).
         CoreAnalyzers.getInstance();
         WekaProfiles.getInstance(getWebRoot());
+        if (ANALYZER_CACHE_SIZE.getValue() > 0) {
+            analysisCache = new AnalysisCache(ANALYZER_CACHE_SIZE.getValue());
+            CoreAnalyzers.getInstance().setCache(analysisCache);
+            WekaProfiles.getInstance().setCache(analysisCache);
+        }
         setDefaultAnalyzer(DEFAULT_PROFILE.getValue());
         Transliterators.loadIcuBuiltIns();
         Transliterators.loadCustomRules();
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
@@ -46,6 +47,7 @@ import keyterms.analyzer.Analyzer;
 import keyterms.analyzer.CoreAnalyzers;
 import keyterms.analyzer.profiles.WekaProfile;
 import keyterms.analyzer.profiles.WekaProfiles;
+import keyterms.analyzer.text.SegmentingAnalyzer;
 import keyterms.analyzer.text.TextInfo;
 import keyterms.rest.service.ServiceError;
 import keyterms.util.collect.Keyed;
@@ -59,6 +61,11 @@ import keyterms.util.text.Strings;
 @Singleton
 @Path("/lid")
 public class LidEndPoints {
+    /**
+     * The analyzer which identifies the language of each part of mixed-language text.
+     */
+    private final SegmentingAnalyzer segmentingAnalyzer = new SegmentingAnalyzer();
+
     /**
      * Constructor.
      */
@@ -155,11 +162,31 @@ public class LidEndPoints {
                 }
             }
         } catch (Exception error) {
-            throw new ServiceError(error);
+            throw KeyTermsService.serviceError(error);
         }
         return results;
     }
 
+    /**
+     * Get the language spans of the specified text data.
+     *
+     * <p> Each span records the character offset and length of a run of text in a single language and script. </p>
+     *
+     * @param textData The text data to analyze.
+     *
+     * @return The language spans of the specified text data, in text order.
+     */
+    @POST
+    @Path("segments")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Analysis> segments(String textData) {
+        try {
+            return segmentingAnalyzer.analyze(textData);
+        } catch (Exception error) {
+            throw KeyTermsService.serviceError(error);
+        }
+    }
+
     /**
      * Get the analysis results for the specified text data.
      *
@@ -174,28 +201,29 @@ public class LidEndPoints {
         List<Keyed<String, Analysis>> analyses = new ArrayList<>();
         try {
             byte[] binary = Encoding.encode(textData, Encoding.UTF8);
+            // All analyses are started before any results are collected.
+            List<Keyed<String, CompletableFuture<List<Analysis>>>> pending = new ArrayList<>();
             getProducts().forEach((product) -> {
                 Analyzer analyzer = KeyTermsService.getAnalyzer(product);
                 if (analyzer.produces(TextInfo.LANGUAGE)) {
-                    List<Analysis> productResults = (analyzer.accepts(CharSequence.class))
-                            ? analyzer.analyze(textData)
-                            : analyzer.analyze(binary);
-                    for (int r = 0; r < Math.min(productResults.size(), KeyTermsService.MAX_RESULTS); r++) {
-                        Analysis result = productResults.get(r);
-                        analyses.add(new Keyed<>(product, result));
-                    }
+                    pending.add(new Keyed<>(product, (analyzer.accepts(CharSequence.class))
+                            ? analyzer.analyzeAsync(textData)
+                            : analyzer.analyzeAsync(binary)));
                 }
             });
             getProfiles().forEach((product) -> {
                 Analyzer analyzer = KeyTermsService.getAnalyzer(product);
-                List<Analysis> productResults = analyzer.analyze(textData);
+                pending.add(new Keyed<>(product, analyzer.analyzeAsync(textData)));
+            });
+            pending.forEach((entry) -> {
+                List<Analysis> productResults = entry.getValue().join();
                 for (int r = 0; r < Math.min(productResults.size(), KeyTermsService.MAX_RESULTS); r++) {
                     Analysis result = productResults.get(r);
-                    analyses.add(new Keyed<>(product, result));
+                    analyses.add(new Keyed<>(entry.getKey(), result));
                 }
             });
         } catch (Exception error) {
-            throw new ServiceError(error);
+            throw KeyTermsService.serviceError(error);
         }
         return analyses;
     }
@@ -27,7 +27,11 @@
 package keyterms.util.io;
 
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
@@ -450,6 +454,49 @@ public final class Encoding {
         return decoded;
     }
 
+    /**
+     * Determine the length of the text which would be produced by decoding the given bytes using the specified
+     * character encoding scheme.
+     *
+     * <p> The result is equal to the length of the text returned by {@link #decode(byte[], Charset)}, but the bytes
+     * are decoded into a small reusable buffer so that the decoded text is never materialized. </p>
+     *
+     * <p> This method will return {@code 0} if the specified data is {@code null}. </p>
+     *
+     * @param bytes The bytes to decode.
+     * @param charset The character set encoding.
+     *
+     * @return The length of the decoded text.
+     */
+    public static int decodedLength(byte[] bytes, Charset charset) {
+        Charset encoding = charset;
+        if (encoding == null) {
+            encoding = detectBom(bytes);
+            encoding = (encoding != null) ? encoding : PLATFORM_DEFAULT;
+        }
+        int length = 0;
+        if (bytes != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            stripBom(buffer, getBom(encoding));
+            CharsetDecoder decoder = encoding.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer chars = CharBuffer.allocate(Math.min(Math.max(bytes.length, 16), 8192));
+            CoderResult result;
+            do {
+                result = decoder.decode(buffer, chars, true);
+                length += chars.position();
+                chars.clear();
+            } while (result.isOverflow());
+            do {
+                result = decoder.flush(chars);
+                length += chars.position();
+                chars.clear();
+            } while (result.isOverflow());
+        }
+        return length;
+    }
+
     /**
      * Constructor.
      */
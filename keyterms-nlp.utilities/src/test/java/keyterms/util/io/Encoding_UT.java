@@ -124,4 +124,21 @@ public class Encoding_UT {
         decoded = Encoding.decode(encoded, Encoding.UTF8);
         assertEquals(text, decoded);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void decodedLength() {
+        assertEquals(0, Encoding.decodedLength(null, Encoding.UTF8));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("Hello \u4e16\u754c \ud83d\ude00 ");
+        }
+        for (Charset charset : new Charset[] { Encoding.UTF8, Encoding.UTF16, Encoding.UTF32LE, Encoding.ASCII }) {
+            byte[] encoded = Encoding.encode(text, charset, true);
+            assertEquals(charset.name(), Encoding.decode(encoded, charset).length(),
+                    Encoding.decodedLength(encoded, charset));
+        }
+        byte[] malformed = new byte[] { 'a', (byte)0xC3, (byte)0xFF, 'b', (byte)0xF0, (byte)0x9F };
+        assertEquals(Encoding.decode(malformed, Encoding.UTF8).length(),
+                Encoding.decodedLength(malformed, Encoding.UTF8));
+    }
+}